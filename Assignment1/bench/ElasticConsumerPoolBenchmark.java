@@ -0,0 +1,186 @@
+package Assignment1.bench;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import Assignment1.src.AsyncLog;
+import Assignment1.src.DataItem;
+import Assignment1.src.ElasticConsumerPool;
+import Assignment1.src.LatencyHistogram;
+
+/**
+ * Compares an ElasticConsumerPool with a fixed pool of the same average size under bursty load.
+ *
+ * Each run sends bursts of items (each taking workMillis to process, like a call to a
+ * slow service) separated by idle gaps. The elastic run goes first; its time-weighted
+ * average number of consumers, rounded, is then the size of the fixed pool that gets the
+ * same bursts. Both therefore spend about the same consumer-time, and the question is
+ * where it goes: the elastic pool adds consumers during a burst and retires them in the
+ * gaps, the fixed pool keeps the same number all the time.
+ *
+ * Latency is per item, from put() into the queue to the end of its processing, reported
+ * as p50/p99 and the peak (max). Each row is the mean over the measured iterations;
+ * a warm-up run of each pool is discarded first.
+ *
+ * Usage (all options optional):
+ *   java -cp out Assignment1.bench.ElasticConsumerPoolBenchmark --bursts 5 --burst-size 80
+ *        --work-ms 2 --gap-ms 300 --max-consumers 8 --iterations 3
+ */
+public class ElasticConsumerPoolBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int bursts = 5;
+        int burstSize = 80;
+        int workMillis = 2;
+        int gapMillis = 300;
+        int maxConsumers = 8;
+        int iterations = 3;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bursts":
+                    bursts = Integer.parseInt(args[++i]);
+                    break;
+                case "--burst-size":
+                    burstSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--work-ms":
+                    workMillis = Integer.parseInt(args[++i]);
+                    break;
+                case "--gap-ms":
+                    gapMillis = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-consumers":
+                    maxConsumers = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        AsyncLog.configure(AsyncLog.Level.WARN, 1); // Keep per-consumer stop lines out of the table
+        Load load = new Load(bursts, burstSize, workMillis, gapMillis);
+
+        // Warm-up: one run of each, discarded
+        Result warm = run(elastic(maxConsumers), load);
+        run(fixed(fixedSize(warm)), load);
+
+        double[][] elasticRows = new double[iterations][];
+        double[][] fixedRows = new double[iterations][];
+        for (int it = 0; it < iterations; it++) {
+            Result elasticResult = run(elastic(maxConsumers), load);
+            Result fixedResult = run(fixed(fixedSize(elasticResult)), load);
+            elasticRows[it] = elasticResult.row();
+            fixedRows[it] = fixedResult.row();
+        }
+
+        System.out.printf("%-8s %9s %6s %10s %10s %10s%n", "pool", "avg size", "peak", "p50 ms", "p99 ms", "max ms");
+        print("elastic", elasticRows);
+        print("fixed", fixedRows);
+    }
+
+    private static ElasticConsumerPool.Builder elastic(int maxConsumers) {
+        return ElasticConsumerPool.builder()
+                .minConsumers(1).maxConsumers(maxConsumers)
+                .scaleUpDepth(2).scaleDownUtilization(0.5)
+                .checkIntervalMillis(5).cooldownMillis(5, 20);
+    }
+
+    private static ElasticConsumerPool.Builder fixed(int consumers) {
+        return ElasticConsumerPool.builder().minConsumers(consumers).maxConsumers(consumers);
+    }
+
+    // The elastic run's average size, rounded to whole consumers
+    private static int fixedSize(Result elasticResult) {
+        return Math.max(1, (int) Math.round(elasticResult.stats.getAverageConsumers()));
+    }
+
+    /**
+     * Sends the bursts through a pool built from the given builder and waits until every
+     * item is processed.
+     */
+    static Result run(ElasticConsumerPool.Builder builder, Load load) throws InterruptedException {
+        int total = load.bursts * load.burstSize;
+        long[] enqueuedAt = new long[total];
+        LatencyHistogram latency = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(total);
+        BlockingQueue<DataItem> queue = new ArrayBlockingQueue<>(total);
+
+        ElasticConsumerPool pool = builder.handler(item -> {
+            Thread.sleep(load.workMillis);
+            latency.record(System.nanoTime() - enqueuedAt[item.getValue()]);
+            done.countDown();
+        }).build(queue);
+        pool.start();
+        for (int b = 0; b < load.bursts; b++) {
+            for (int i = b * load.burstSize; i < (b + 1) * load.burstSize; i++) {
+                enqueuedAt[i] = System.nanoTime(); // Written before put(), read after take()
+                queue.put(new DataItem(i));
+            }
+            Thread.sleep(load.gapMillis);
+        }
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Pool did not finish the load");
+        }
+        if (!pool.shutdown(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Pool did not shut down");
+        }
+        return new Result(pool.getStats(), latency);
+    }
+
+    private static void print(String name, double[][] rows) {
+        double[][] columns = new double[5][rows.length];
+        for (int r = 0; r < rows.length; r++) {
+            for (int c = 0; c < 5; c++) columns[c][r] = rows[r][c];
+        }
+        System.out.printf("%-8s %9.2f %6.1f %10.1f %10.1f %10.1f%n", name,
+                QueueBenchmark.mean(columns[0]), QueueBenchmark.mean(columns[1]), QueueBenchmark.mean(columns[2]),
+                QueueBenchmark.mean(columns[3]), QueueBenchmark.mean(columns[4]));
+    }
+
+    /**
+     * The bursty load both pools receive.
+     */
+    static final class Load {
+        final int bursts;
+        final int burstSize;
+        final int workMillis;
+        final int gapMillis;
+
+        Load(int bursts, int burstSize, int workMillis, int gapMillis) {
+            this.bursts = bursts;
+            this.burstSize = burstSize;
+            this.workMillis = workMillis;
+            this.gapMillis = gapMillis;
+        }
+    }
+
+    /**
+     * Pool statistics and item latencies of one run.
+     */
+    static final class Result {
+        final ElasticConsumerPool.Stats stats;
+        final LatencyHistogram latency;
+
+        Result(ElasticConsumerPool.Stats stats, LatencyHistogram latency) {
+            this.stats = stats;
+            this.latency = latency;
+        }
+
+        // avg size, peak size, p50 / p99 / max latency in ms
+        double[] row() {
+            return new double[] {
+                    stats.getAverageConsumers(),
+                    stats.getPeakConsumers(),
+                    latency.getValueAtPercentile(50) / 1e6,
+                    latency.getValueAtPercentile(99) / 1e6,
+                    latency.getMax() / 1e6
+            };
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Assignment1.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import Assignment1.src.AsyncLog;
+import Assignment1.src.DataItem;
+import Assignment1.src.FlowConsumer;
+import Assignment1.src.FlowProducer;
+
+/**
+ * Compares the demand-driven Flow path (FlowProducer/FlowConsumer) with the blocking-queue
+ * path for broadcasting every item to K subscribers.
+ *
+ *   - blocking: one producer thread put()s each item into K ArrayBlockingQueues and K
+ *     consumer threads take() from them; a full or empty queue parks a thread.
+ *   - flow: FlowProducer with K FlowConsumers on a ForkJoinPool of K workers; a subscriber
+ *     that is out of demand simply gets no more work, no thread waits for it.
+ *
+ * Both use the same buffer size per subscriber. Throughput counts deliveries, i.e.
+ * items x subscribers per second. Warm-up runs are discarded as in QueueBenchmark.
+ *
+ * Usage (all options optional):
+ *   java -cp out Assignment1.bench.FlowBenchmark --subscribers 1,2,4 --buffer 256
+ *        --items 200000 --warmup 3 --iterations 5
+ */
+public class FlowBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] subscriberCounts = {1, 2, 4};
+        int buffer = 256;
+        int items = 200_000;
+        int warmup = 3;
+        int iterations = 5;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--subscribers":
+                    String[] parts = args[++i].split(",");
+                    subscriberCounts = new int[parts.length];
+                    for (int p = 0; p < parts.length; p++) subscriberCounts[p] = Integer.parseInt(parts[p]);
+                    break;
+                case "--buffer":
+                    buffer = Integer.parseInt(args[++i]);
+                    break;
+                case "--items":
+                    items = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        AsyncLog.configure(AsyncLog.Level.WARN, 1); // Keep per-stream completion lines out of the table
+        System.out.printf("%-9s %11s %20s %12s%n", "path", "subscribers", "deliveries/sec", "+/-");
+        for (int subscribers : subscriberCounts) {
+            for (int w = 0; w < warmup; w++) {
+                runBlocking(subscribers, buffer, items);
+                runFlow(subscribers, buffer, items);
+            }
+            double[] blocking = new double[iterations];
+            double[] flow = new double[iterations];
+            for (int it = 0; it < iterations; it++) {
+                blocking[it] = runBlocking(subscribers, buffer, items);
+                flow[it] = runFlow(subscribers, buffer, items);
+            }
+            System.out.printf("%-9s %11d %,20.0f %,12.0f%n", "blocking", subscribers,
+                    QueueBenchmark.mean(blocking), QueueBenchmark.stddev(blocking));
+            System.out.printf("%-9s %11d %,20.0f %,12.0f%n", "flow", subscribers,
+                    QueueBenchmark.mean(flow), QueueBenchmark.stddev(flow));
+        }
+    }
+
+    /**
+     * Broadcasts items through one bounded queue per subscriber.
+     * @return Deliveries per second.
+     */
+    static double runBlocking(int subscribers, int buffer, int items) throws InterruptedException {
+        DataItem stopItem = new DataItem(null);
+        List<BlockingQueue<DataItem>> queues = new ArrayList<>();
+        List<Thread> consumers = new ArrayList<>();
+        for (int s = 0; s < subscribers; s++) {
+            BlockingQueue<DataItem> queue = new ArrayBlockingQueue<>(buffer);
+            queues.add(queue);
+            consumers.add(new Thread(() -> {
+                try {
+                    while (queue.take() != stopItem) {
+                        // Handoff only
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        consumers.forEach(Thread::start);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < items; i++) {
+            DataItem item = new DataItem(i);
+            for (BlockingQueue<DataItem> queue : queues) {
+                queue.put(item);
+            }
+        }
+        for (BlockingQueue<DataItem> queue : queues) {
+            queue.put(stopItem);
+        }
+        for (Thread t : consumers) t.join();
+        return (double) items * subscribers * 1_000_000_000.0 / (System.nanoTime() - begin);
+    }
+
+    /**
+     * Broadcasts items through FlowProducer to FlowConsumers requesting buffer items at a time.
+     * @return Deliveries per second.
+     */
+    static double runFlow(int subscribers, int buffer, int items) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(subscribers);
+        try {
+            FlowProducer publisher = new FlowProducer(0, items, pool, buffer);
+            List<FlowConsumer> consumers = new ArrayList<>();
+            for (int s = 0; s < subscribers; s++) {
+                FlowConsumer consumer = new FlowConsumer(buffer) {
+                    @Override
+                    protected void process(DataItem item) {
+                        // Handoff only
+                    }
+                };
+                consumers.add(consumer);
+            }
+
+            for (FlowConsumer consumer : consumers) {
+                publisher.subscribe(consumer);
+            }
+            long begin = System.nanoTime();
+            publisher.start();
+            for (FlowConsumer consumer : consumers) {
+                if (!consumer.await(60, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Flow run did not complete");
+                }
+            }
+            return (double) items * subscribers * 1_000_000_000.0 / (System.nanoTime() - begin);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package Assignment1.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import Assignment1.src.DataItem;
+import Assignment1.src.LatencyHistogram;
+import Assignment1.src.QueueType;
+import Assignment1.src.WaitStrategy;
+
+/**
+ * Throughput and latency benchmark for the producer/consumer handoff.
+ *
+ * Runs every combination of queue type, capacity and producer/consumer count, with
+ * warm-up iterations (discarded, to let the JIT compile the hot loops) followed by
+ * measured iterations. Producers and consumers do nothing but put/take, so the numbers
+ * isolate the cost of the queue itself:
+ *   - throughput: items handed over per second (mean and standard deviation over iterations)
+ *   - latency: time from put() starting to take() returning, per item, as p50/p99/p999
+ *
+ * Usage (all options optional, lists are comma separated):
+ *   java -cp out Assignment1.bench.QueueBenchmark
+ *        --queues array,linked,transfer,sync,spsc,mpmc --capacities 5,64,1024
+ *        --topologies 1x1,2x2,4x4 --items 200000 --warmup 3 --iterations 5 --wait yield
+ */
+public class QueueBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        List<QueueType> queues = Arrays.asList(QueueType.values());
+        List<Integer> capacities = Arrays.asList(5, 64, 1024);
+        List<int[]> topologies = Arrays.asList(new int[] {1, 1}, new int[] {2, 2}, new int[] {4, 4});
+        int items = 200_000;
+        int warmup = 3;
+        int iterations = 5;
+        WaitStrategy waitStrategy = WaitStrategy.yielding();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--queues":
+                    queues = new ArrayList<>();
+                    for (String name : args[++i].split(",")) queues.add(QueueType.fromName(name));
+                    break;
+                case "--capacities":
+                    capacities = new ArrayList<>();
+                    for (String c : args[++i].split(",")) capacities.add(Integer.parseInt(c));
+                    break;
+                case "--topologies":
+                    topologies = new ArrayList<>();
+                    for (String t : args[++i].split(",")) {
+                        String[] pc = t.split("x");
+                        topologies.add(new int[] {Integer.parseInt(pc[0]), Integer.parseInt(pc[1])});
+                    }
+                    break;
+                case "--items":
+                    items = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--wait":
+                    waitStrategy = WaitStrategy.fromName(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        System.out.printf("%-9s %8s %5s %16s %12s %10s %10s %10s%n",
+                "queue", "capacity", "PxC", "items/sec", "+/-", "p50 us", "p99 us", "p999 us");
+
+        for (int[] topology : topologies) {
+            for (QueueType type : queues) {
+                // The SPSC ring is only correct with one producer and one consumer
+                if (type == QueueType.SPSC_RING && (topology[0] != 1 || topology[1] != 1)) {
+                    continue;
+                }
+                for (int capacity : capacities) {
+                    LatencyHistogram latency = new LatencyHistogram();
+                    for (int w = 0; w < warmup; w++) {
+                        runOnce(type, capacity, topology[0], topology[1], items, waitStrategy, null);
+                    }
+                    double[] throughput = new double[iterations];
+                    for (int it = 0; it < iterations; it++) {
+                        throughput[it] = runOnce(type, capacity, topology[0], topology[1], items, waitStrategy, latency);
+                    }
+                    System.out.printf("%-9s %8d %5s %,16.0f %,12.0f %10.1f %10.1f %10.1f%n",
+                            type.getCliName(), capacity, topology[0] + "x" + topology[1],
+                            mean(throughput), stddev(throughput),
+                            latency.getValueAtPercentile(50) / 1e3,
+                            latency.getValueAtPercentile(99) / 1e3,
+                            latency.getValueAtPercentile(99.9) / 1e3);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves items through one queue with the given number of producers and consumers.
+     * @param latency Receives per-item latencies, or null during warm-up.
+     * @return Items per second.
+     */
+    static double runOnce(QueueType type, int capacity, int producers, int consumers, int items,
+                          WaitStrategy waitStrategy, LatencyHistogram latency) throws InterruptedException {
+        BlockingQueue<DataItem> queue = type.create(capacity, waitStrategy);
+        DataItem stopItem = new DataItem(null);
+
+        // Items and their put timestamps are prepared up front so the timed loop only
+        // measures the handoff; each producer owns a disjoint index range.
+        DataItem[] payload = new DataItem[items];
+        for (int i = 0; i < items; i++) payload[i] = new DataItem(i);
+        long[] putStarted = new long[items];
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producerThreads = new ArrayList<>();
+        List<Thread> consumerThreads = new ArrayList<>();
+
+        int perProducer = items / producers;
+        for (int p = 0; p < producers; p++) {
+            int from = p * perProducer;
+            int to = p == producers - 1 ? items : from + perProducer;
+            producerThreads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = from; i < to; i++) {
+                        putStarted[i] = System.nanoTime();
+                        queue.put(payload[i]);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            consumerThreads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    while (true) {
+                        DataItem item = queue.take();
+                        if (item == stopItem) break;
+                        if (latency != null) {
+                            // put() happens-before take() returning, so the stamp is visible
+                            latency.record(System.nanoTime() - putStarted[item.getValue()]);
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        producerThreads.forEach(Thread::start);
+        consumerThreads.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+
+        for (Thread t : producerThreads) t.join();
+        for (int c = 0; c < consumers; c++) queue.put(stopItem);
+        for (Thread t : consumerThreads) t.join();
+
+        return items * 1_000_000_000.0 / (System.nanoTime() - begin);
+    }
+
+    static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    static double stddev(double[] values) {
+        double m = mean(values);
+        double sq = 0;
+        for (double v : values) sq += (v - m) * (v - m);
+        return values.length > 1 ? Math.sqrt(sq / (values.length - 1)) : 0.0;
+    }
+}
@@ -0,0 +1,28 @@
+package Assignment1.src;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the JVM's per-thread allocation counter, used to check that a hot path
+ * produces no garbage. Works on HotSpot-based JVMs; elsewhere it reports -1.
+ */
+public final class Allocations {
+
+    private Allocations() {
+    }
+
+    /**
+     * Returns the total number of heap bytes allocated by the calling thread so far,
+     * or -1 if the JVM does not track it.
+     */
+    public static long currentThreadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,235 @@
+package Assignment1.src;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logging that stays off the producer/consumer hot path.
+ *
+ * System.out.println takes the PrintStream lock and formats the message on the calling
+ * thread, so two threads that log every item end up taking turns. Here a log call only
+ * stores the message and its argument into a buffer owned by the calling thread (no lock,
+ * no string building). A background writer thread drains all buffers every few
+ * milliseconds, formats the events and prints each batch with a single write.
+ *
+ * Events below the configured level are discarded before touching the buffer, and
+ * sampled() keeps only every Nth call per thread. If a thread's buffer is full the event
+ * is dropped and counted rather than blocking the caller.
+ */
+public final class AsyncLog {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final long FLUSH_INTERVAL_MS = 10;
+
+    private static volatile Level threshold = Level.INFO;
+    private static volatile int sampleEvery = 1;
+    private static volatile int bufferSize = 256;
+    private static volatile PrintStream out = System.out;
+    private static volatile PrintStream err = System.err;
+
+    private static final List<ThreadBuffer> BUFFERS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<ThreadBuffer> LOCAL = ThreadLocal.withInitial(AsyncLog::register);
+    private static final LongAdder DROPPED = new LongAdder();
+
+    static {
+        Thread writer = new Thread(AsyncLog::writerLoop, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncLog::flush));
+    }
+
+    private AsyncLog() {
+    }
+
+    /**
+     * Sets the minimum level that is logged and the sampling rate for sampled().
+     * @param sampleEvery Keep one out of every N sampled() calls per thread (1 = all).
+     */
+    public static void configure(Level level, int sampleEvery) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be positive: " + sampleEvery);
+        }
+        AsyncLog.threshold = level;
+        AsyncLog.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Sets how many pending events each thread may buffer. Applies to threads that
+     * log for the first time after this call.
+     * @param bufferSize A power of two, so the slot index is a mask instead of a modulo.
+     */
+    public static void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a positive power of two: " + bufferSize);
+        }
+        AsyncLog.bufferSize = bufferSize;
+    }
+
+    /**
+     * Redirects output, mainly for tests. WARN and ERROR go to err, the rest to out.
+     */
+    public static void setOutput(PrintStream out, PrintStream err) {
+        flush();
+        AsyncLog.out = out;
+        AsyncLog.err = err;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level != Level.OFF && level.compareTo(threshold) >= 0;
+    }
+
+    /**
+     * Logs message followed by arg (arg may be null). Formatting happens on the writer
+     * thread, so arg must not change after the call.
+     */
+    public static void log(Level level, String message, Object arg) {
+        if (isEnabled(level)) {
+            LOCAL.get().add(level, message, arg);
+        }
+    }
+
+    public static void info(String message, Object arg) {
+        log(Level.INFO, message, arg);
+    }
+
+    public static void error(String message, Object arg) {
+        log(Level.ERROR, message, arg);
+    }
+
+    /**
+     * Like log(), but keeps only every Nth call per thread (see configure()).
+     * Meant for per-item events such as "Generated" / "Processed".
+     */
+    public static void sampled(Level level, String message, Object arg) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        ThreadBuffer buffer = LOCAL.get();
+        if (++buffer.sampleCounter >= sampleEvery) {
+            buffer.sampleCounter = 0;
+            buffer.add(level, message, arg);
+        }
+    }
+
+    /**
+     * Writes out everything logged so far. Call before printing a final summary.
+     */
+    public static void flush() {
+        drainAll();
+    }
+
+    /**
+     * Returns how many events were dropped because a thread's buffer was full.
+     */
+    public static long droppedCount() {
+        return DROPPED.sum();
+    }
+
+    private static ThreadBuffer register() {
+        ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread(), bufferSize);
+        BUFFERS.add(buffer);
+        return buffer;
+    }
+
+    private static void writerLoop() {
+        while (true) {
+            drainAll();
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Formats and prints all pending events. Synchronized so the writer thread and an
+     * explicit flush() never interleave their output.
+     */
+    private static synchronized void drainAll() {
+        StringBuilder normal = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        Iterator<ThreadBuffer> it = BUFFERS.iterator();
+        while (it.hasNext()) {
+            ThreadBuffer buffer = it.next();
+            buffer.drainTo(normal, errors);
+            // Forget buffers of finished threads once they are empty
+            if (!buffer.owner.isAlive() && buffer.isEmpty()) {
+                BUFFERS.remove(buffer);
+            }
+        }
+        if (normal.length() > 0) {
+            out.print(normal);
+            out.flush();
+        }
+        if (errors.length() > 0) {
+            err.print(errors);
+            err.flush();
+        }
+    }
+
+    /**
+     * Single-writer (owner thread) / single-reader (log writer) ring of pending events,
+     * stored as parallel arrays so logging does not allocate an event object.
+     */
+    private static final class ThreadBuffer {
+        final Thread owner;
+        final int capacity;
+        final int mask;
+        final Level[] levels;
+        final String[] messages;
+        final Object[] args;
+        // Next slot to write (owner only) and next slot to read (writer only)
+        final AtomicLong tail = new Sequence(0);
+        final AtomicLong head = new Sequence(0);
+        // Owner-only counter for sampled()
+        int sampleCounter;
+
+        ThreadBuffer(Thread owner, int capacity) {
+            this.owner = owner;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.levels = new Level[capacity];
+            this.messages = new String[capacity];
+            this.args = new Object[capacity];
+        }
+
+        void add(Level level, String message, Object arg) {
+            long t = tail.get();
+            if (t - head.get() >= capacity) {
+                DROPPED.increment(); // Never block the hot path on logging
+                return;
+            }
+            int index = (int) t & mask;
+            levels[index] = level;
+            messages[index] = message;
+            args[index] = arg;
+            tail.lazySet(t + 1); // Publishes the slot to the writer
+        }
+
+        void drainTo(StringBuilder normal, StringBuilder errors) {
+            long h = head.get();
+            long t = tail.get();
+            for (; h < t; h++) {
+                int index = (int) h & mask;
+                StringBuilder target = levels[index].compareTo(Level.WARN) >= 0 ? errors : normal;
+                target.append(messages[index]);
+                if (args[index] != null) {
+                    target.append(args[index]);
+                }
+                target.append(System.lineSeparator());
+                args[index] = null;
+            }
+            head.lazySet(h);
+        }
+
+        boolean isEmpty() {
+            return head.get() == tail.get();
+        }
+    }
+}
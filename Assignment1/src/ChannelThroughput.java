@@ -0,0 +1,218 @@
+package Assignment1.src;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Measures throughput and steady-state allocation of a one-producer / one-consumer
+ * handoff, comparing the primitive channels against DataItem objects on a ring buffer.
+ *
+ * Each side reads its thread's allocation counter once warm-up items have passed and
+ * again at the end, so only the steady-state path is counted.
+ */
+public final class ChannelThroughput {
+
+    private static final int BATCH = 256;
+
+    private ChannelThroughput() {
+    }
+
+    /**
+     * Streams 0 .. warmup + items - 1 through an IntChannel.
+     */
+    public static Result intChannel(int warmup, int items, int capacity, WaitStrategy waitStrategy)
+            throws InterruptedException {
+        IntChannel channel = new IntChannel(capacity, waitStrategy);
+        int total = warmup + items;
+        long[] producerBytes = new long[1];
+
+        Thread producer = new Thread(() -> {
+            try {
+                long start = 0;
+                for (int i = 0; i < total; i++) {
+                    if (i == warmup) start = Allocations.currentThreadAllocatedBytes();
+                    channel.put(i);
+                }
+                producerBytes[0] = Allocations.currentThreadAllocatedBytes() - start;
+                channel.close();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        IntSink sink = new IntSink();
+        return run(producer, producerBytes, () -> {
+            boolean measuring = warmup == 0;
+            long start = measuring ? Allocations.currentThreadAllocatedBytes() : 0;
+            while (channel.drainTo(sink, BATCH) >= 0) {
+                if (!measuring && sink.count >= warmup) {
+                    start = Allocations.currentThreadAllocatedBytes();
+                    measuring = true;
+                }
+            }
+            return Allocations.currentThreadAllocatedBytes() - start;
+        }, items, total, () -> sink.count == total);
+    }
+
+    /**
+     * Streams 0 .. warmup + items - 1 through a LongChannel.
+     */
+    public static Result longChannel(int warmup, int items, int capacity, WaitStrategy waitStrategy)
+            throws InterruptedException {
+        LongChannel channel = new LongChannel(capacity, waitStrategy);
+        int total = warmup + items;
+        long[] producerBytes = new long[1];
+
+        Thread producer = new Thread(() -> {
+            try {
+                long start = 0;
+                for (long i = 0; i < total; i++) {
+                    if (i == warmup) start = Allocations.currentThreadAllocatedBytes();
+                    channel.put(i);
+                }
+                producerBytes[0] = Allocations.currentThreadAllocatedBytes() - start;
+                channel.close();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        LongSink sink = new LongSink();
+        return run(producer, producerBytes, () -> {
+            boolean measuring = warmup == 0;
+            long start = measuring ? Allocations.currentThreadAllocatedBytes() : 0;
+            while (channel.drainTo(sink, BATCH) >= 0) {
+                if (!measuring && sink.count >= warmup) {
+                    start = Allocations.currentThreadAllocatedBytes();
+                    measuring = true;
+                }
+            }
+            return Allocations.currentThreadAllocatedBytes() - start;
+        }, items, total, () -> sink.count == total);
+    }
+
+    /**
+     * The same handoff with a new DataItem (and boxed Integer) per value on an SPSC ring.
+     */
+    public static Result boxed(int warmup, int items, int capacity, WaitStrategy waitStrategy)
+            throws InterruptedException {
+        BlockingQueue<DataItem> queue = new SpscRingBuffer<>(capacity, waitStrategy);
+        DataItem stopItem = new DataItem(null);
+        int total = warmup + items;
+        long[] producerBytes = new long[1];
+        long[] received = new long[1];
+
+        Thread producer = new Thread(() -> {
+            try {
+                long start = 0;
+                for (int i = 0; i < total; i++) {
+                    if (i == warmup) start = Allocations.currentThreadAllocatedBytes();
+                    queue.put(new DataItem(i));
+                }
+                producerBytes[0] = Allocations.currentThreadAllocatedBytes() - start;
+                queue.put(stopItem);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        return run(producer, producerBytes, () -> {
+            long start = warmup == 0 ? Allocations.currentThreadAllocatedBytes() : 0;
+            while (true) {
+                DataItem item = queue.take();
+                if (item == stopItem) break;
+                if (++received[0] == warmup) start = Allocations.currentThreadAllocatedBytes();
+            }
+            return Allocations.currentThreadAllocatedBytes() - start;
+        }, items, total, () -> received[0] == total);
+    }
+
+    private static Result run(Thread producer, long[] producerBytes, ConsumerLoop consumerLoop,
+                              int items, int totalItems, BooleanSupplier complete)
+            throws InterruptedException {
+        long[] consumerBytes = new long[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                consumerBytes[0] = consumerLoop.run();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        long start = System.nanoTime();
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join();
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(items, totalItems, elapsed, producerBytes[0], consumerBytes[0], complete.getAsBoolean());
+    }
+
+    @FunctionalInterface
+    private interface ConsumerLoop {
+        long run() throws InterruptedException;
+    }
+
+    // Sinks are plain objects created once, so draining does not allocate a lambda per call
+    private static final class IntSink implements IntConsumer {
+        long count;
+        long sum;
+
+        @Override
+        public void accept(int value) {
+            count++;
+            sum += value;
+        }
+    }
+
+    private static final class LongSink implements LongConsumer {
+        long count;
+        long sum;
+
+        @Override
+        public void accept(long value) {
+            count++;
+            sum += value;
+        }
+    }
+
+    /**
+     * Outcome of one measured run. Throughput covers the whole run (warm-up included);
+     * byte counts cover the steady-state items only.
+     */
+    public static final class Result {
+        private final int items;
+        private final int totalItems;
+        private final long elapsedNanos;
+        private final long producerBytes;
+        private final long consumerBytes;
+        private final boolean complete;
+
+        Result(int items, int totalItems, long elapsedNanos, long producerBytes, long consumerBytes,
+               boolean complete) {
+            this.items = items;
+            this.totalItems = totalItems;
+            this.elapsedNanos = elapsedNanos;
+            this.producerBytes = producerBytes;
+            this.consumerBytes = consumerBytes;
+            this.complete = complete;
+        }
+
+        public long getProducerBytes() { return producerBytes; }
+        public long getConsumerBytes() { return consumerBytes; }
+        public boolean isComplete() { return complete; }
+
+        public double getBytesPerItem() {
+            return (producerBytes + consumerBytes) / (double) items;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f items/sec, allocated %,d B (producer) + %,d B (consumer) = %.2f B/item",
+                    totalItems * 1_000_000_000.0 / elapsedNanos, producerBytes, consumerBytes, getBytesPerItem());
+        }
+    }
+}
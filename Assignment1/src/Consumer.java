@@ -1,5 +1,9 @@
 package Assignment1.src;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 /**
  * The Consumer class is responsible for taking items from the shared BlockingQueue
  * and processing them. It implements Runnable to run on a separate thread.
@@ -8,14 +12,54 @@ public class Consumer implements Runnable {
 
     private final BlockingQueue<DataItem> queue;
     private final DataItem stopItem;
+    // Maximum number of items handed to processBatch() at once (1 = item-by-item mode)
+    private final int batchSize;
+    // How long to keep filling a batch after its first item arrived
+    private final long maxWaitNanos;
+    // Caps how many consumers may be inside process()/processBatch() at once (null = no cap).
+    // Shared by all consumers of a topology; matters when thousands run on virtual threads.
+    private final Semaphore inFlightLimit;
+    // Number of items processed so far. Only written by the consumer thread;
+    // read it after the thread has finished.
+    private long processedCount;
 
     public Consumer(BlockingQueue<DataItem> queue, DataItem stopItem) {
+        this(queue, stopItem, 1, 0);
+    }
+
+    /**
+     * Creates a consumer that works in batches.
+     * A batch is closed when it holds batchSize items or when maxWaitMicros have passed
+     * since its first item arrived, whichever comes first.
+     * @param batchSize Maximum items per processBatch() call; 1 disables batching.
+     * @param maxWaitMicros How long to wait for more items before flushing a partial batch.
+     */
+    public Consumer(BlockingQueue<DataItem> queue, DataItem stopItem, int batchSize, long maxWaitMicros) {
+        this(queue, stopItem, batchSize, maxWaitMicros, null);
+    }
+
+    /**
+     * Creates a consumer whose processing step is throttled by a shared semaphore.
+     * @param inFlightLimit Permit required for every process()/processBatch() call, or null.
+     */
+    public Consumer(BlockingQueue<DataItem> queue, DataItem stopItem, int batchSize, long maxWaitMicros,
+                    Semaphore inFlightLimit) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
         this.queue = queue;
         this.stopItem = stopItem;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.inFlightLimit = inFlightLimit;
     }
 
     @Override
     public void run() {
+        if (batchSize > 1) {
+            runBatched();
+            return;
+        }
         try {
             while (true) {
                 // Blocks if queue is empty
@@ -23,21 +67,144 @@ public class Consumer implements Runnable {
                 
                 // Reference equality check for the poison pill
                 if (item == stopItem) {
-                    System.out.println("[Consumer] Stop signal received.");
+                    AsyncLog.info("[Consumer] Stop signal received.", null);
                     break;
                 }
                 
-                process(item);
+                handle(item);
+                processedCount++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            AsyncLog.error("[Consumer] Interrupted.", null);
+        }
+    }
+
+    /**
+     * Batch loop: block for the first item, then bulk-drain whatever else is already
+     * queued, waiting up to maxWaitNanos for stragglers.
+     */
+    private void runBatched() {
+        List<DataItem> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.clear();
+                batch.add(queue.take()); // Blocks if queue is empty
+                int stopIndex = fillBatch(batch);
+
+                if (stopIndex < 0) {
+                    handleBatch(batch);
+                    processedCount += batch.size();
+                    continue;
+                }
+
+                // The poison pill landed mid-batch: finish the items ahead of it, then stop
+                if (stopIndex > 0) {
+                    handleBatch(batch.subList(0, stopIndex));
+                    processedCount += stopIndex;
+                }
+                // Anything drained after our pill (e.g. another consumer's pill) goes back
+                for (int i = stopIndex + 1; i < batch.size(); i++) {
+                    queue.put(batch.get(i));
+                }
+                AsyncLog.info("[Consumer] Stop signal received.", null);
+                return;
             }
         } catch (InterruptedException ex) {
             Thread.currentThread().interrupt();
-            System.err.println("[Consumer] Interrupted.");
+            AsyncLog.error("[Consumer] Interrupted.", null);
         }
     }
 
-    private void process(DataItem item) throws InterruptedException {
+    /**
+     * Tops up a batch that already holds one item.
+     * @return The index of the stop item in the batch, or -1 if there is none.
+     */
+    private int fillBatch(List<DataItem> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        int scanned = 0;
+        while (true) {
+            // Only look at the items added since the last check
+            for (; scanned < batch.size(); scanned++) {
+                if (batch.get(scanned) == stopItem) {
+                    return scanned;
+                }
+            }
+            if (batch.size() >= batchSize) {
+                return -1;
+            }
+            // Bulk removal of everything already waiting (one lock acquisition for ArrayBlockingQueue)
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return -1;
+            }
+            DataItem next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return -1;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Runs process() under the in-flight limit, if there is one.
+     */
+    private void handle(DataItem item) throws InterruptedException {
+        if (inFlightLimit == null) {
+            process(item);
+            return;
+        }
+        inFlightLimit.acquire();
+        try {
+            process(item);
+        } finally {
+            inFlightLimit.release();
+        }
+    }
+
+    /**
+     * Runs processBatch() under the in-flight limit, if there is one.
+     */
+    private void handleBatch(List<DataItem> batch) throws InterruptedException {
+        if (inFlightLimit == null) {
+            processBatch(batch);
+            return;
+        }
+        inFlightLimit.acquire();
+        try {
+            processBatch(batch);
+        } finally {
+            inFlightLimit.release();
+        }
+    }
+
+    /**
+     * Handles a batch of items. The default processes them one by one; subclasses
+     * override this to write the whole batch to the sink in one go.
+     * The list is reused once this returns, so copy it if it must be kept.
+     */
+    protected void processBatch(List<DataItem> batch) throws InterruptedException {
+        for (DataItem item : batch) {
+            process(item);
+        }
+    }
+
+    /**
+     * Returns how many items this consumer processed (excluding the stop signal).
+     */
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Handles a single item. Subclasses may override this to plug in a real sink.
+     */
+    protected void process(DataItem item) throws InterruptedException {
         // Simulate processing time (e.g., writing to DB)
         Thread.sleep(1); 
-        System.out.println("[Consumer] Processed: " + item);
+        AsyncLog.sampled(AsyncLog.Level.INFO, "[Consumer] Processed: ", item);
     }
 }
\ No newline at end of file
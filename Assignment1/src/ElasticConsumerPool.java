@@ -0,0 +1,329 @@
+package Assignment1.src;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of consumers on one queue whose size follows the load.
+ *
+ * A controller thread checks the queue every checkIntervalMillis:
+ *   - Scale up: when the backlog exceeds scaleUpDepth items per consumer, it starts enough
+ *     consumers to bring it back under that (at most maxConsumers).
+ *   - Scale down: when consumers were busy less than scaleDownUtilization of the last
+ *     interval and nothing is queued, it retires one consumer (never below minConsumers).
+ * Each direction has its own cooldown after any scaling step, so a short spike does not
+ * make the pool flap. Scaling up reacts fast, scaling down waits longer.
+ *
+ * Consumers are retired the same way the topology shuts them down: one stop item goes
+ * into the queue, and whichever consumer takes it finishes its current item and exits.
+ * No thread is interrupted.
+ */
+public class ElasticConsumerPool {
+
+    private final BlockingQueue<DataItem> queue;
+    private final DataItem stopItem = new DataItem(null);
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int scaleUpDepth;
+    private final double scaleDownUtilization;
+    private final long checkIntervalMillis;
+    private final long scaleUpCooldownNanos;
+    private final long scaleDownCooldownNanos;
+    private final ItemHandler handler;
+
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private ScheduledExecutorService controller;
+    // Set by shutdown(); a check() already waiting on the monitor must not add consumers
+    private boolean stopped; // guarded by this
+
+    // Guarded by this
+    private int live;            // consumer threads still running
+    private int retiring;        // stop items sent but not yet taken
+    private long startNanos;
+    private long lastCheckNanos;
+    private long lastBusyNanos;
+    private long lastScaleNanos;
+    private double consumerNanos; // integral of active consumers over time
+    private int peakConsumers;
+    private int scaleUps;
+    private int scaleDowns;
+
+    private ElasticConsumerPool(Builder builder, BlockingQueue<DataItem> queue) {
+        this.queue = queue;
+        this.minConsumers = builder.minConsumers;
+        this.maxConsumers = builder.maxConsumers;
+        this.scaleUpDepth = builder.scaleUpDepth;
+        this.scaleDownUtilization = builder.scaleDownUtilization;
+        this.checkIntervalMillis = builder.checkIntervalMillis;
+        this.scaleUpCooldownNanos = TimeUnit.MILLISECONDS.toNanos(builder.scaleUpCooldownMillis);
+        this.scaleDownCooldownNanos = TimeUnit.MILLISECONDS.toNanos(builder.scaleDownCooldownMillis);
+        this.handler = builder.handler;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts minConsumers consumers and the controller.
+     */
+    public synchronized void start() {
+        if (controller != null || stopped) {
+            throw new IllegalStateException("Pool already started or shut down");
+        }
+        startNanos = System.nanoTime();
+        lastCheckNanos = startNanos;
+        lastScaleNanos = startNanos;
+        for (int i = 0; i < minConsumers; i++) {
+            addConsumer();
+        }
+        controller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "elastic-pool-controller");
+            t.setDaemon(true);
+            return t;
+        });
+        controller.scheduleAtFixedRate(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns how many consumers are running and not about to retire.
+     */
+    public synchronized int getActiveConsumers() {
+        return live - retiring;
+    }
+
+    /**
+     * One controller step: measure, then scale up, scale down or do nothing.
+     */
+    private synchronized void check() {
+        if (stopped) {
+            return; // shutdownNow() does not stop a check that was waiting for the monitor
+        }
+        long now = System.nanoTime();
+        int active = live - retiring;
+        long interval = now - lastCheckNanos;
+        long busy = busyNanos.sum();
+        double utilization = active == 0 || interval == 0
+                ? 0.0 : (busy - lastBusyNanos) / ((double) interval * active);
+        consumerNanos += (double) active * interval;
+        lastCheckNanos = now;
+        lastBusyNanos = busy;
+
+        int depth = queue.size();
+        long sinceScale = now - lastScaleNanos;
+        if (depth > active * scaleUpDepth && active < maxConsumers && sinceScale >= scaleUpCooldownNanos) {
+            // Enough consumers to get every one under scaleUpDepth queued items
+            int wanted = Math.min(maxConsumers, (depth + scaleUpDepth - 1) / scaleUpDepth);
+            for (int i = active; i < wanted; i++) {
+                addConsumer();
+            }
+            scaleUps++;
+            lastScaleNanos = now;
+        } else if (depth == 0 && utilization < scaleDownUtilization && active > minConsumers
+                && sinceScale >= scaleDownCooldownNanos) {
+            // Non-blocking: if the queue is momentarily full, try again next interval
+            if (queue.offer(stopItem)) {
+                retiring++;
+                scaleDowns++;
+                lastScaleNanos = now;
+            }
+        }
+    }
+
+    // Called with the monitor held
+    private void addConsumer() {
+        if (stopped) {
+            return;
+        }
+        live++;
+        peakConsumers = Math.max(peakConsumers, live - retiring);
+        workers.execute(() -> {
+            try {
+                new PooledConsumer().run();
+            } finally {
+                synchronized (this) {
+                    live--;
+                    // It exited on one of the stop items counted in retiring (or was interrupted)
+                    if (retiring > 0) {
+                        retiring--;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the controller and all consumers, once they have worked through everything
+     * already queued. Call it after the producers are done. Does nothing if the pool was
+     * never started.
+     * @return false if the consumers did not finish within the timeout.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        int remaining;
+        synchronized (this) {
+            stopped = true;
+            if (controller == null) {
+                // Never started: no consumers to stop
+                workers.shutdown();
+                return true;
+            }
+            controller.shutdownNow();
+            long now = System.nanoTime();
+            consumerNanos += (double) (live - retiring) * (now - lastCheckNanos);
+            lastCheckNanos = now;
+            remaining = live - retiring;
+            retiring += remaining;
+        }
+        // Outside the monitor: a full queue must not block consumers that are exiting
+        for (int i = 0; i < remaining; i++) {
+            queue.put(stopItem);
+        }
+        workers.shutdown();
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns what the pool did so far; the average covers start() up to shutdown().
+     */
+    public synchronized Stats getStats() {
+        long elapsed = lastCheckNanos - startNanos;
+        return new Stats(processed.sum(), peakConsumers, scaleUps, scaleDowns,
+                elapsed <= 0 ? 0.0 : consumerNanos / elapsed);
+    }
+
+    /**
+     * Consumer that records its busy time for the utilization measurement.
+     */
+    private class PooledConsumer extends Consumer {
+        PooledConsumer() {
+            super(queue, stopItem);
+        }
+
+        @Override
+        protected void process(DataItem item) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                if (handler == null) {
+                    super.process(item);
+                } else {
+                    handler.handle(item);
+                }
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+                processed.increment();
+            }
+        }
+    }
+
+    /**
+     * Fluent configuration. Defaults: 1..8 consumers, scale up above 4 queued items per
+     * consumer, scale down below 50% utilization, checks every 10 ms, cooldowns of 20 ms
+     * (up) and 200 ms (down).
+     */
+    public static class Builder {
+        private int minConsumers = 1;
+        private int maxConsumers = 8;
+        private int scaleUpDepth = 4;
+        private double scaleDownUtilization = 0.5;
+        private long checkIntervalMillis = 10;
+        private long scaleUpCooldownMillis = 20;
+        private long scaleDownCooldownMillis = 200;
+        private ItemHandler handler;
+
+        public Builder minConsumers(int minConsumers) {
+            this.minConsumers = minConsumers;
+            return this;
+        }
+
+        public Builder maxConsumers(int maxConsumers) {
+            this.maxConsumers = maxConsumers;
+            return this;
+        }
+
+        /**
+         * Queued items per consumer above which consumers are added.
+         */
+        public Builder scaleUpDepth(int scaleUpDepth) {
+            this.scaleUpDepth = scaleUpDepth;
+            return this;
+        }
+
+        /**
+         * Fraction of time spent in process() (0..1) below which a consumer is retired.
+         */
+        public Builder scaleDownUtilization(double scaleDownUtilization) {
+            this.scaleDownUtilization = scaleDownUtilization;
+            return this;
+        }
+
+        public Builder checkIntervalMillis(long checkIntervalMillis) {
+            this.checkIntervalMillis = checkIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Minimum time after any scaling step before consumers are added / retired.
+         */
+        public Builder cooldownMillis(long scaleUpCooldownMillis, long scaleDownCooldownMillis) {
+            this.scaleUpCooldownMillis = scaleUpCooldownMillis;
+            this.scaleDownCooldownMillis = scaleDownCooldownMillis;
+            return this;
+        }
+
+        /**
+         * Replaces the default Consumer.process() behaviour.
+         */
+        public Builder handler(ItemHandler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        public ElasticConsumerPool build(BlockingQueue<DataItem> queue) {
+            if (minConsumers <= 0 || maxConsumers < minConsumers || scaleUpDepth <= 0 || checkIntervalMillis <= 0) {
+                throw new IllegalArgumentException("Need 0 < minConsumers <= maxConsumers and positive depth/interval");
+            }
+            return new ElasticConsumerPool(this, queue);
+        }
+    }
+
+    /**
+     * Summary of one pool run.
+     */
+    public static class Stats {
+        private final long processed;
+        private final int peakConsumers;
+        private final int scaleUps;
+        private final int scaleDowns;
+        private final double averageConsumers;
+
+        Stats(long processed, int peakConsumers, int scaleUps, int scaleDowns, double averageConsumers) {
+            this.processed = processed;
+            this.peakConsumers = peakConsumers;
+            this.scaleUps = scaleUps;
+            this.scaleDowns = scaleDowns;
+            this.averageConsumers = averageConsumers;
+        }
+
+        public long getProcessed() { return processed; }
+        public int getPeakConsumers() { return peakConsumers; }
+        public int getScaleUps() { return scaleUps; }
+        public int getScaleDowns() { return scaleDowns; }
+
+        /**
+         * Time-weighted average number of active consumers.
+         */
+        public double getAverageConsumers() { return averageConsumers; }
+
+        @Override
+        public String toString() {
+            return String.format("processed=%d consumers avg=%.2f peak=%d scale-ups=%d scale-downs=%d",
+                    processed, averageConsumers, peakConsumers, scaleUps, scaleDowns);
+        }
+    }
+}
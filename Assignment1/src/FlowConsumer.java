@@ -0,0 +1,103 @@
+package Assignment1.src;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of Consumer: a Flow.Subscriber that pulls items with request(n).
+ *
+ * It asks for a window of prefetch items up front and tops the window up each time half
+ * of it has been processed, so at most prefetch items are ever outstanding. There is no
+ * take() loop and no stop item: the publisher calls onComplete() when the stream ends.
+ */
+public class FlowConsumer implements Flow.Subscriber<DataItem> {
+
+    private final int prefetch;
+    private final int refillThreshold;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Flow.Subscription subscription;
+    // Items received since the last request(); signals are serialized by the publisher
+    private int sinceRequest;
+    // Read it after await() has returned true
+    private long processedCount;
+    private volatile Throwable error;
+
+    /**
+     * @param prefetch Maximum number of requested but not yet received items.
+     */
+    public FlowConsumer(int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        }
+        this.prefetch = prefetch;
+        this.refillThreshold = Math.max(1, prefetch / 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(DataItem item) {
+        try {
+            process(item);
+        } catch (RuntimeException ex) {
+            // rule 2.13: a subscriber must not throw; give up the subscription instead
+            subscription.cancel();
+            onError(ex);
+            return;
+        }
+        processedCount++;
+        if (++sinceRequest >= refillThreshold) {
+            int replenish = sinceRequest;
+            sinceRequest = 0;
+            subscription.request(replenish);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        AsyncLog.error("[FlowConsumer] Stream failed: " + throwable, null);
+        done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        AsyncLog.info("[FlowConsumer] Stream completed.", null);
+        done.countDown();
+    }
+
+    /**
+     * Handles a single item. Runs on the publisher's executor, so it should not block;
+     * subclasses override this to plug in a real sink.
+     */
+    protected void process(DataItem item) {
+        AsyncLog.sampled(AsyncLog.Level.INFO, "[FlowConsumer] Processed: ", item);
+    }
+
+    /**
+     * Waits until the stream completed or failed.
+     * @return false if the timeout elapsed first.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * Returns how many items this subscriber processed.
+     */
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Returns the error the stream ended with, or null.
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,201 @@
+package Assignment1.src;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking counterpart of Producer: a Flow.Publisher that emits DataItems
+ * firstValue .. firstValue + count - 1 only as fast as subscribers ask for them.
+ *
+ * Backpressure comes from request(n) demand instead of a blocked put(). Every subscriber
+ * gets its own bounded buffer. New items are generated only while every buffer has room,
+ * so the slowest subscriber sets the pace without any thread being parked; work is
+ * triggered by request() calls and runs on the given executor.
+ *
+ * Items are broadcast: every subscriber receives every item produced after it subscribed.
+ * Nothing is generated before start(), so subscribers that subscribe before it see the
+ * full sequence; later ones join mid-stream.
+ */
+public class FlowProducer implements Flow.Publisher<DataItem> {
+
+    private final int end;
+    private final Executor executor;
+    private final int bufferSize;
+    private final List<ItemSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Next value to generate; guarded by this
+    private int next;
+    private volatile boolean started;
+    private volatile boolean sourceDone;
+
+    /**
+     * @param executor Runs delivery to subscribers (e.g. ForkJoinPool.commonPool()).
+     * @param bufferSize Per-subscriber buffer of generated but not yet requested items.
+     */
+    public FlowProducer(int firstValue, int count, Executor executor, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.next = firstValue;
+        this.end = firstValue + count;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.sourceDone = count <= 0;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DataItem> subscriber) {
+        ItemSubscription subscription = new ItemSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (sourceDone) {
+            subscription.signal(); // Completes at once if nothing is left to send
+        }
+    }
+
+    /**
+     * Starts generating items for the current subscribers.
+     */
+    public void start() {
+        started = true;
+        produce();
+    }
+
+    /**
+     * Generates items while every subscriber's buffer has room, then wakes up the
+     * subscribers that have something to deliver.
+     */
+    private void produce() {
+        if (!started) {
+            return;
+        }
+        synchronized (this) {
+            generate:
+            while (next < end && !subscriptions.isEmpty()) {
+                for (ItemSubscription s : subscriptions) {
+                    if (s.bufferedCount() >= bufferSize) {
+                        break generate; // The slowest subscriber is full: wait for its request()
+                    }
+                }
+                DataItem item = new DataItem(next++);
+                for (ItemSubscription s : subscriptions) {
+                    s.enqueue(item);
+                }
+            }
+            if (next >= end) {
+                sourceDone = true;
+            }
+        }
+        signalAll();
+    }
+
+    private void signalAll() {
+        for (ItemSubscription s : subscriptions) {
+            s.signal();
+        }
+    }
+
+    /**
+     * One subscriber's buffer and outstanding demand.
+     * Delivery uses a work-in-progress counter so that at most one executor task drains
+     * a subscription at a time and onNext calls are never concurrent (Reactive Streams rule 1.3).
+     */
+    private final class ItemSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super DataItem> subscriber;
+        private final ArrayDeque<DataItem> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        // Error to signal from drain(), so onError never overlaps an onNext call
+        private volatile Throwable pendingError;
+        private boolean terminated; // only touched by the draining task
+
+        ItemSubscription(Flow.Subscriber<? super DataItem> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (pendingError == null) {
+                    pendingError = new IllegalArgumentException("request must be positive (rule 3.9): " + n);
+                }
+                subscriptions.remove(this);
+                signal(); // The drain loop sends onError after any onNext in progress
+                produce();
+                return;
+            }
+            // Add with overflow capped at Long.MAX_VALUE (= unbounded)
+            demand.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            produce();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            produce(); // A cancelled slow subscriber must no longer hold the others back
+        }
+
+        int bufferedCount() {
+            synchronized (buffer) {
+                return buffer.size();
+            }
+        }
+
+        void enqueue(DataItem item) {
+            synchronized (buffer) {
+                buffer.add(item);
+            }
+        }
+
+        private DataItem poll() {
+            synchronized (buffer) {
+                return buffer.poll();
+            }
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!terminated && !cancelled && pendingError != null) {
+                    terminated = true;
+                    cancelled = true; // No more onNext after onError
+                    subscriber.onError(pendingError);
+                }
+                boolean delivered = false;
+                while (!cancelled && pendingError == null && demand.get() > 0) {
+                    DataItem item = poll();
+                    if (item == null) {
+                        break;
+                    }
+                    subscriber.onNext(item);
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    delivered = true;
+                }
+                if (!terminated && !cancelled && sourceDone && bufferedCount() == 0) {
+                    terminated = true;
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                }
+                if (delivered) {
+                    produce(); // Buffer space was freed: the source may continue
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package Assignment1.src;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockingQueue decorator that feeds PipelineMetrics.
+ *
+ * Each element is wrapped with the time its put() started, so the consumer-side take()
+ * can record how long the element waited. The wrapper costs one small allocation per
+ * item, which is the price of per-item latency; leave the queue unwrapped when metrics
+ * are not needed.
+ */
+public class InstrumentedQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final BlockingQueue<Stamped<E>> delegate;
+    private final PipelineMetrics metrics;
+
+    /**
+     * @param delegate The real queue, e.g. QueueType.MPMC_RING.create(capacity, waitStrategy).
+     */
+    public InstrumentedQueue(BlockingQueue<Stamped<E>> delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        long start = System.nanoTime();
+        delegate.put(new Stamped<>(e, start));
+        metrics.onPut(System.nanoTime() - start, delegate.size());
+    }
+
+    @Override
+    public boolean offer(E e) {
+        long start = System.nanoTime();
+        if (!delegate.offer(new Stamped<>(e, start))) {
+            return false;
+        }
+        metrics.onPut(System.nanoTime() - start, delegate.size());
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!delegate.offer(new Stamped<>(e, start), timeout, unit)) {
+            return false;
+        }
+        metrics.onPut(System.nanoTime() - start, delegate.size());
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        long start = System.nanoTime();
+        Stamped<E> s = delegate.take();
+        return received(s, start);
+    }
+
+    @Override
+    public E poll() {
+        long start = System.nanoTime();
+        Stamped<E> s = delegate.poll();
+        return s == null ? null : received(s, start);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        Stamped<E> s = delegate.poll(timeout, unit);
+        return s == null ? null : received(s, start);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        long start = System.nanoTime();
+        List<Stamped<E>> drained = new ArrayList<>();
+        delegate.drainTo(drained, maxElements);
+        long now = System.nanoTime();
+        for (Stamped<E> s : drained) {
+            metrics.onLatency(now - s.enqueuedNanos);
+            c.add(s.value);
+        }
+        if (!drained.isEmpty()) {
+            metrics.onTake(now - start, drained.size());
+        }
+        return drained.size();
+    }
+
+    @Override
+    public E peek() {
+        Stamped<E> s = delegate.peek();
+        return s == null ? null : s.value;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Stamped<E>> it = delegate.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return it.next().value;
+            }
+        };
+    }
+
+    private E received(Stamped<E> s, long takeStart) {
+        long now = System.nanoTime();
+        metrics.onTake(now - takeStart, 1);
+        metrics.onLatency(now - s.enqueuedNanos);
+        return s.value;
+    }
+
+    /**
+     * An element plus the time its put() started.
+     */
+    public static final class Stamped<E> {
+        final E value;
+        final long enqueuedNanos;
+
+        Stamped(E value, long enqueuedNanos) {
+            this.value = value;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
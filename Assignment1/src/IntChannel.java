@@ -0,0 +1,59 @@
+package Assignment1.src;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Single-producer / single-consumer channel for raw int values.
+ * See PrimitiveChannel for the design; the steady-state put/drain path does not allocate.
+ */
+public class IntChannel extends PrimitiveChannel {
+
+    private final int[] buffer;
+
+    public IntChannel(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.buffer = new int[this.capacity];
+    }
+
+    /**
+     * Writes one value, waiting while the channel is full.
+     */
+    public void put(int value) throws InterruptedException {
+        long t = awaitWritable();
+        buffer[(int) t & mask] = value;
+        publish(t + 1);
+    }
+
+    /**
+     * Writes values[from .. from + length - 1], publishing each run of free slots at once.
+     */
+    public void putAll(int[] values, int from, int length) throws InterruptedException {
+        int end = from + length;
+        while (from < end) {
+            long t = awaitWritable();
+            int n = Math.min(end - from, freeSlots(t));
+            for (int i = 0; i < n; i++) {
+                buffer[(int) (t + i) & mask] = values[from + i];
+            }
+            publish(t + n);
+            from += n;
+        }
+    }
+
+    /**
+     * Passes up to max values to the sink, waiting until at least one is available.
+     * @return The number of values delivered, or -1 once the channel is closed and empty.
+     */
+    public int drainTo(IntConsumer sink, int max) throws InterruptedException {
+        int n = awaitReadable(max);
+        if (n <= 0) {
+            return n;
+        }
+        long h = readPosition();
+        for (int i = 0; i < n; i++) {
+            sink.accept(buffer[(int) (h + i) & mask]);
+        }
+        consumed(h + n);
+        return n;
+    }
+}
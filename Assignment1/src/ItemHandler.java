@@ -0,0 +1,11 @@
+package Assignment1.src;
+
+/**
+ * What a consumer does with each item, for consumers that are not subclassed directly
+ * (PartitionedTopology's partition consumers, ElasticConsumerPool's pooled consumers).
+ * Same contract as Consumer.process().
+ */
+@FunctionalInterface
+public interface ItemHandler {
+    void handle(DataItem item) throws InterruptedException;
+}
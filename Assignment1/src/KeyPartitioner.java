@@ -0,0 +1,321 @@
+package Assignment1.src;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Routes each DataItem to one of M partition queues based on a key, so all items with the
+ * same key are handled by the same consumer, in the order they were put.
+ *
+ * Producers see it as a BlockingQueue and call put()/offer(), while each consumer reads its
+ * own partition queue directly. The read methods (poll, take, drainTo, ...) also work, by
+ * scanning the partitions in turn, but a reader that takes items from several partitions
+ * no longer keeps per-key order, and with rebalancing it must call completed() itself.
+ *
+ * Without rebalancing the partition is simply hash(key) mod M. With rebalancing, each key
+ * remembers its partition and how many of its items are queued or being processed. When
+ * that count is zero and the key's partition is deeper than the shallowest partition by
+ * more than the threshold, the key is moved there. Moving a key only when it has nothing
+ * in flight keeps per-key order intact; a hot key then stops piling onto a busy partition.
+ */
+public class KeyPartitioner extends AbstractQueue<DataItem> implements BlockingQueue<DataItem> {
+
+    // Longest a blocking read waits on the partitions before it scans them again
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<BlockingQueue<DataItem>> partitions;
+    private final Function<DataItem, ?> keyFunction;
+    private final boolean rebalance;
+    private final int imbalanceThreshold;
+    private final ConcurrentHashMap<Object, KeyState> keys = new ConcurrentHashMap<>();
+    private final LongAdder[] routed;
+    private final LongAdder moves = new LongAdder();
+    // Partition the next read starts from, so scans are spread over all partitions
+    private final AtomicInteger readStart = new AtomicInteger();
+
+    /**
+     * @param partitions One queue per consumer.
+     * @param keyFunction Extracts the ordering key from an item.
+     * @param rebalance Whether idle keys may move off overloaded partitions.
+     * @param imbalanceThreshold Depth difference that counts as overloaded.
+     */
+    public KeyPartitioner(List<BlockingQueue<DataItem>> partitions, Function<DataItem, ?> keyFunction,
+                          boolean rebalance, int imbalanceThreshold) {
+        this.partitions = partitions;
+        this.keyFunction = keyFunction;
+        this.rebalance = rebalance;
+        this.imbalanceThreshold = imbalanceThreshold;
+        this.routed = new LongAdder[partitions.size()];
+        for (int i = 0; i < routed.length; i++) {
+            routed[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void put(DataItem item) throws InterruptedException {
+        int partition = route(item);
+        boolean added = false;
+        try {
+            partitions.get(partition).put(item);
+            added = true;
+        } finally {
+            if (!added) {
+                unroute(item, partition); // Interrupted while waiting for space
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(DataItem item) {
+        int partition = route(item);
+        boolean added = false;
+        try {
+            added = partitions.get(partition).offer(item);
+        } finally {
+            if (!added) {
+                unroute(item, partition);
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public boolean offer(DataItem item, long timeout, TimeUnit unit) throws InterruptedException {
+        int partition = route(item);
+        boolean added = false;
+        try {
+            added = partitions.get(partition).offer(item, timeout, unit);
+        } finally {
+            if (!added) {
+                unroute(item, partition);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Must be called by the consumer after it has finished processing an item, so a
+     * rebalancing partitioner knows when a key has nothing in flight. No-op otherwise.
+     */
+    public void completed(DataItem item) {
+        if (rebalance) {
+            KeyState state = keys.get(keyOf(item));
+            synchronized (state) {
+                state.inFlight--;
+            }
+        }
+    }
+
+    /**
+     * Returns how many items were routed to each partition so far.
+     */
+    public long[] getRoutedCounts() {
+        long[] counts = new long[routed.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = routed[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Returns how many times a key was moved to another partition.
+     */
+    public long getKeyMoves() {
+        return moves.sum();
+    }
+
+    private Object keyOf(DataItem item) {
+        return keyFunction.apply(item);
+    }
+
+    private int route(DataItem item) {
+        Objects.requireNonNull(item);
+        Object key = keyOf(item);
+        int partition = rebalance ? routeRebalancing(key) : hashPartition(key);
+        routed[partition].increment();
+        return partition;
+    }
+
+    /**
+     * Takes back route() for an item that never reached its partition, so the key does
+     * not look busy forever and the routed counts stay exact.
+     */
+    private void unroute(DataItem item, int partition) {
+        routed[partition].decrement();
+        completed(item);
+    }
+
+    private int hashPartition(Object key) {
+        int h = Objects.hashCode(key);
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return Math.floorMod(h, partitions.size());
+    }
+
+    private int routeRebalancing(Object key) {
+        KeyState state = keys.computeIfAbsent(key, k -> new KeyState(hashPartition(k)));
+        synchronized (state) {
+            if (state.inFlight == 0) {
+                int shallowest = shallowestPartition();
+                if (partitions.get(state.partition).size() - partitions.get(shallowest).size() > imbalanceThreshold) {
+                    state.partition = shallowest;
+                    moves.increment();
+                }
+            }
+            state.inFlight++;
+            return state.partition;
+        }
+    }
+
+    private int shallowestPartition() {
+        int best = 0;
+        int bestSize = Integer.MAX_VALUE;
+        for (int i = 0; i < partitions.size(); i++) {
+            int size = partitions.get(i).size();
+            if (size < bestSize) {
+                best = i;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int size() {
+        int total = 0;
+        for (BlockingQueue<DataItem> partition : partitions) {
+            total += partition.size();
+        }
+        return total;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int total = 0;
+        for (BlockingQueue<DataItem> partition : partitions) {
+            total += partition.remainingCapacity();
+        }
+        return total;
+    }
+
+    // Read side: normally each consumer reads its own partition queue. These scan the
+    // partitions in turn, starting one further each call so no partition is always last.
+
+    @Override
+    public DataItem poll() {
+        int first = nextReadStart();
+        for (int i = 0; i < partitions.size(); i++) {
+            DataItem item = partitions.get((first + i) % partitions.size()).poll();
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public DataItem take() throws InterruptedException {
+        DataItem item = null;
+        while (item == null) {
+            item = pollRound(POLL_SLICE_NANOS);
+        }
+        return item;
+    }
+
+    @Override
+    public DataItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        DataItem item = poll();
+        while (item == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            item = pollRound(Math.min(remaining, POLL_SLICE_NANOS));
+        }
+        return item;
+    }
+
+    @Override
+    public DataItem peek() {
+        for (BlockingQueue<DataItem> partition : partitions) {
+            DataItem item = partition.peek();
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int drainTo(Collection<? super DataItem> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super DataItem> c, int maxElements) {
+        int drained = 0;
+        for (BlockingQueue<DataItem> partition : partitions) {
+            if (drained >= maxElements) {
+                break;
+            }
+            drained += partition.drainTo(c, maxElements - drained);
+        }
+        return drained;
+    }
+
+    /**
+     * Weakly consistent: walks a snapshot of the partitions, one after another.
+     */
+    @Override
+    public Iterator<DataItem> iterator() {
+        List<DataItem> snapshot = new ArrayList<>();
+        for (BlockingQueue<DataItem> partition : partitions) {
+            snapshot.addAll(partition);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Polls every partition once, waiting up to sliceNanos spread over the partitions.
+     */
+    private DataItem pollRound(long sliceNanos) throws InterruptedException {
+        long perPartition = Math.max(1, sliceNanos / partitions.size());
+        int first = nextReadStart();
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<DataItem> partition = partitions.get((first + i) % partitions.size());
+            DataItem item = partition.poll(perPartition, TimeUnit.NANOSECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private int nextReadStart() {
+        return Math.floorMod(readStart.getAndIncrement(), partitions.size());
+    }
+
+    /**
+     * Where a key currently lives and how many of its items are not finished yet.
+     * Guarded by its own monitor.
+     */
+    private static final class KeyState {
+        int partition;
+        int inFlight;
+
+        KeyState(int partition) {
+            this.partition = partition;
+        }
+    }
+}
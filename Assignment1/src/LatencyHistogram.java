@@ -0,0 +1,100 @@
+package Assignment1.src;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram with bounded relative error, in the style of HdrHistogram.
+ *
+ * Values below 128 get one bucket each. Above that, every power-of-two range is split into
+ * 64 equal buckets, so a recorded value is known to within 1/64 (about 1.6%) no matter
+ * how large it is. The whole positive long range fits in about 3700 buckets, and
+ * recording is a bucket computation plus one atomic increment - no allocation, no lock.
+ */
+public class LatencyHistogram {
+
+    // Values below 2^SUB_BUCKET_BITS are recorded exactly
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int BUCKETS = (65 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value (negative values are clamped to 0).
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = totalCount.get();
+        return n == 0 ? 0.0 : (double) totalSum.get() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100), reported as the upper edge of
+     * its bucket, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = totalCount.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long v) {
+        if (v < (1 << SUB_BUCKET_BITS)) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        // (v >> shift) keeps the top SUB_BUCKET_BITS bits, i.e. a value in [HALF, 2 * HALF)
+        return shift * HALF + (int) (v >> shift);
+    }
+
+    static long highestValueIn(int index) {
+        if (index < (1 << SUB_BUCKET_BITS)) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long mantissa = index - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
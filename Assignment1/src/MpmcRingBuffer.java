@@ -0,0 +1,96 @@
+package Assignment1.src;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-producer / multi-consumer ring buffer (bounded queue after Dmitry Vyukov's design).
+ * Every slot carries a sequence number that tells whose turn it is:
+ *   sequence == position      -> slot is free for the producer claiming that position
+ *   sequence == position + 1  -> slot holds an element for the consumer at that position
+ * Producers and consumers claim positions with a CAS on tail/head and then hand the slot
+ * over by bumping its sequence, so no lock is ever taken.
+ *
+ * The ring has at least two slots: with one slot, "free for position p + 1" and "holds
+ * the element of position p" are the same sequence value, so full and empty look alike.
+ */
+public class MpmcRingBuffer<E> extends RingBuffer<E> {
+
+    private final AtomicLongArray sequences;
+    // Next position to read, shared by all consumers
+    private final Sequence head = new Sequence(0);
+    // Next position to write, shared by all producers
+    private final Sequence tail = new Sequence(0);
+
+    public MpmcRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity == 1 ? 2 : capacity, waitStrategy);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(index, e);
+                    sequences.lazySet(index, pos + 1); // Publish to consumers
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // Slot still holds last lap's element: full
+            }
+            // diff > 0: another producer claimed this position, reload tail
+        }
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            long pos = head.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequences.lazySet(index, pos + capacity); // Free for the next lap
+                    return e;
+                }
+            } else if (diff < 0) {
+                return null; // Nothing published at this position yet: empty
+            }
+            // diff > 0: another consumer took this position, reload head
+        }
+    }
+
+    @Override
+    public E peek() {
+        long pos = head.get();
+        int index = (int) pos & mask;
+        return sequences.get(index) == pos + 1 ? buffer.get(index) : null;
+    }
+
+    @Override
+    public int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(t - h, capacity));
+    }
+
+    @Override
+    protected long headPosition() {
+        return head.get();
+    }
+
+    @Override
+    protected long tailPosition() {
+        return tail.get();
+    }
+}
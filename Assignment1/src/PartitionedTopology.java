@@ -0,0 +1,260 @@
+package Assignment1.src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs N producers and M key-partitioned consumers.
+ *
+ * With one shared queue and several consumers, items with the same key can be processed
+ * out of order. Here every consumer owns a partition queue and KeyPartitioner sends all
+ * items with the same key to the same partition, so each key is processed in order while
+ * different keys are processed in parallel.
+ *
+ * Shutdown works like ProducerConsumerTopology: once all producers are done, one stop
+ * item is put into every partition queue.
+ */
+public class PartitionedTopology {
+
+    private final int producers;
+    private final int partitions;
+    private final int itemsPerProducer;
+    private final int queueSize;
+    private final long timeoutSeconds;
+    private final Function<DataItem, ?> keyFunction;
+    private final boolean rebalance;
+    private final int imbalanceThreshold;
+    private final ItemHandler handler;
+
+    private PartitionedTopology(Builder builder) {
+        this.producers = builder.producers;
+        this.partitions = builder.partitions;
+        this.itemsPerProducer = builder.itemsPerProducer;
+        this.queueSize = builder.queueSize;
+        this.timeoutSeconds = builder.timeoutSeconds;
+        this.keyFunction = builder.keyFunction;
+        this.rebalance = builder.rebalance;
+        this.imbalanceThreshold = builder.imbalanceThreshold;
+        this.handler = builder.handler;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs all producers and partition consumers to completion.
+     */
+    public SkewReport run() throws InterruptedException {
+        List<BlockingQueue<DataItem>> queues = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            queues.add(new ArrayBlockingQueue<>(queueSize));
+        }
+        KeyPartitioner partitioner = new KeyPartitioner(queues, keyFunction, rebalance, imbalanceThreshold);
+        DataItem stopItem = new DataItem(null);
+
+        ExecutorService producerPool = ThreadMode.PLATFORM.newExecutor(producers);
+        ExecutorService consumerPool = ThreadMode.PLATFORM.newExecutor(partitions);
+        long start = System.nanoTime();
+
+        for (BlockingQueue<DataItem> queue : queues) {
+            consumerPool.submit(new PartitionConsumer(queue, stopItem, partitioner, handler));
+        }
+
+        List<Future<?>> producerFutures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int firstValue = p * itemsPerProducer + 1;
+            producerFutures.add(producerPool.submit(new Producer(partitioner, firstValue, itemsPerProducer, null)));
+        }
+
+        try {
+            // Wait for every producer, even after one fails: the stop items must not
+            // overtake items another producer is still routing
+            Throwable firstFailure = null;
+            for (Future<?> future : producerFutures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (firstFailure == null) {
+                        firstFailure = ex.getCause();
+                    }
+                }
+            }
+            if (firstFailure != null) {
+                System.err.println("[Partitioned] Producer failed: " + firstFailure);
+            }
+        } finally {
+            producerPool.shutdown();
+            // One stop item per partition, after every real item
+            for (BlockingQueue<DataItem> queue : queues) {
+                queue.put(stopItem);
+            }
+        }
+
+        consumerPool.shutdown();
+        boolean finished = consumerPool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        if (!finished) {
+            System.err.println("[Partitioned] Consumers took too long, forcing shutdown.");
+            consumerPool.shutdownNow();
+        }
+        return new SkewReport(partitioner.getRoutedCounts(), partitioner.getKeyMoves(),
+                System.nanoTime() - start, finished);
+    }
+
+    /**
+     * Consumer that reports each finished item back to the partitioner.
+     */
+    private static class PartitionConsumer extends Consumer {
+        private final KeyPartitioner partitioner;
+        private final ItemHandler handler;
+
+        PartitionConsumer(BlockingQueue<DataItem> queue, DataItem stopItem,
+                          KeyPartitioner partitioner, ItemHandler handler) {
+            super(queue, stopItem);
+            this.partitioner = partitioner;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void process(DataItem item) throws InterruptedException {
+            try {
+                if (handler == null) {
+                    super.process(item);
+                } else {
+                    handler.handle(item);
+                }
+            } finally {
+                partitioner.completed(item);
+            }
+        }
+    }
+
+    /**
+     * Fluent configuration. By default the key is the item value modulo 16.
+     */
+    public static class Builder {
+        private int producers = 1;
+        private int partitions = 4;
+        private int itemsPerProducer = 20;
+        private int queueSize = 5;
+        private long timeoutSeconds = 60;
+        private Function<DataItem, ?> keyFunction = item -> item.getValue() % 16;
+        private boolean rebalance = false;
+        private int imbalanceThreshold = 2;
+        private ItemHandler handler;
+
+        public Builder producers(int producers) {
+            this.producers = producers;
+            return this;
+        }
+
+        public Builder partitions(int partitions) {
+            this.partitions = partitions;
+            return this;
+        }
+
+        public Builder itemsPerProducer(int itemsPerProducer) {
+            this.itemsPerProducer = itemsPerProducer;
+            return this;
+        }
+
+        /**
+         * Capacity of each partition queue.
+         */
+        public Builder queueSize(int queueSize) {
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        public Builder timeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+            return this;
+        }
+
+        /**
+         * Items with equal keys (by equals/hashCode) are processed in order by one consumer.
+         */
+        public Builder keyFunction(Function<DataItem, ?> keyFunction) {
+            this.keyFunction = keyFunction;
+            return this;
+        }
+
+        /**
+         * Lets keys with nothing in flight move off a partition that is more than
+         * imbalanceThreshold items deeper than the shallowest one.
+         */
+        public Builder rebalance(int imbalanceThreshold) {
+            this.rebalance = true;
+            this.imbalanceThreshold = imbalanceThreshold;
+            return this;
+        }
+
+        /**
+         * Replaces the default Consumer.process() behaviour.
+         */
+        public Builder handler(ItemHandler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        public PartitionedTopology build() {
+            if (producers <= 0 || partitions <= 0 || itemsPerProducer <= 0 || queueSize <= 0) {
+                throw new IllegalArgumentException("Counts and sizes must be positive");
+            }
+            return new PartitionedTopology(this);
+        }
+    }
+
+    /**
+     * How evenly the items were spread over the partitions.
+     */
+    public static class SkewReport {
+        private final long[] itemsPerPartition;
+        private final long keyMoves;
+        private final long elapsedNanos;
+        private final boolean completed;
+
+        SkewReport(long[] itemsPerPartition, long keyMoves, long elapsedNanos, boolean completed) {
+            this.itemsPerPartition = itemsPerPartition;
+            this.keyMoves = keyMoves;
+            this.elapsedNanos = elapsedNanos;
+            this.completed = completed;
+        }
+
+        public long[] getItemsPerPartition() { return itemsPerPartition.clone(); }
+        public long getKeyMoves() { return keyMoves; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public boolean isCompleted() { return completed; }
+
+        /**
+         * Busiest partition divided by the average partition: 1.0 is perfectly even,
+         * M means one partition got everything.
+         */
+        public double getImbalance() {
+            long total = 0;
+            long max = 0;
+            for (long count : itemsPerPartition) {
+                total += count;
+                max = Math.max(max, count);
+            }
+            return total == 0 ? 1.0 : max * itemsPerPartition.length / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Partition load:");
+            for (int p = 0; p < itemsPerPartition.length; p++) {
+                sb.append(String.format(" p%d=%d", p, itemsPerPartition[p]));
+            }
+            return sb.append(String.format(" | imbalance %.2fx | key moves %d | %.1f ms",
+                    getImbalance(), keyMoves, elapsedNanos / 1_000_000.0)).toString();
+        }
+    }
+}
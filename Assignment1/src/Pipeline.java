@@ -0,0 +1,288 @@
+package Assignment1.src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A chain of processing stages connected by bounded queues, e.g. parse -> enrich -> write.
+ *
+ * Each stage has its own worker count and its own input buffer, so the slowest stage can be
+ * scaled on its own. Because every buffer is bounded, a slow stage fills its input queue
+ * and blocks the stage before it, all the way back to the source (end-to-end backpressure).
+ *
+ * End of stream follows the same protocol as ProducerConsumerTopology: when the last
+ * worker of a stage finishes, it puts one end marker per worker of the next stage.
+ * If any stage throws, the pipeline records the first failure, interrupts every worker
+ * and run() rethrows it as a PipelineException.
+ *
+ * Example:
+ *   Pipeline.from(lines)
+ *           .stage("parse", 2, 64, Parser::parse)
+ *           .stage("enrich", 8, 64, enricher::enrich)
+ *           .sink("write", 1, 64, writer::write)
+ *           .run();
+ */
+public class Pipeline {
+
+    // End-of-stream marker; never handed to user code
+    private static final Object END = new Object();
+
+    private final Iterable<?> source;
+    private final List<StageSpec> stages;
+    private final ThreadMode threadMode;
+
+    private Pipeline(Iterable<?> source, List<StageSpec> stages, ThreadMode threadMode) {
+        this.source = source;
+        this.stages = stages;
+        this.threadMode = threadMode;
+    }
+
+    /**
+     * Starts a pipeline whose items come from the given source.
+     */
+    public static <T> Builder<T> from(Iterable<? extends T> source) {
+        return new Builder<>(source, new ArrayList<>(), ThreadMode.PLATFORM);
+    }
+
+    /**
+     * Runs all stages to completion.
+     * @throws PipelineException if any stage failed; the remaining work is abandoned.
+     */
+    public Result run() throws InterruptedException, PipelineException {
+        int stageCount = stages.size();
+        List<BlockingQueue<Object>> queues = new ArrayList<>();
+        List<AtomicInteger> remainingWorkers = new ArrayList<>();
+        List<LongAdder> processed = new ArrayList<>();
+        int totalWorkers = 1; // the source
+        for (StageSpec stage : stages) {
+            queues.add(new ArrayBlockingQueue<>(stage.bufferSize));
+            remainingWorkers.add(new AtomicInteger(stage.workers));
+            processed.add(new LongAdder());
+            totalWorkers += stage.workers;
+        }
+
+        AtomicReference<PipelineException> failure = new AtomicReference<>();
+        ExecutorService exec = threadMode.newExecutor(totalWorkers);
+        long start = System.nanoTime();
+
+        // Source: feeds the first stage, then sends one end marker per first-stage worker
+        exec.submit(() -> {
+            try {
+                for (Object item : source) {
+                    queues.get(0).put(item);
+                }
+                sendEnd(queues.get(0), stages.get(0).workers);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) { // Errors too: a dead source would never send END
+                fail(failure, exec, new PipelineException("source", ex));
+            }
+        });
+
+        for (int s = 0; s < stageCount; s++) {
+            StageSpec stage = stages.get(s);
+            BlockingQueue<Object> input = queues.get(s);
+            BlockingQueue<Object> output = s + 1 < stageCount ? queues.get(s + 1) : null;
+            int downstreamWorkers = output != null ? stages.get(s + 1).workers : 0;
+            AtomicInteger remaining = remainingWorkers.get(s);
+            LongAdder count = processed.get(s);
+
+            for (int w = 0; w < stage.workers; w++) {
+                exec.submit(() -> {
+                    try {
+                        while (true) {
+                            Object item = input.take(); // Blocks if upstream is slower
+                            if (item == END) {
+                                break;
+                            }
+                            Object result = stage.function.apply(item);
+                            count.increment();
+                            if (output != null && result != null) {
+                                output.put(result); // Blocks if downstream is slower
+                            }
+                        }
+                        // Last worker out closes the next stage
+                        if (remaining.decrementAndGet() == 0 && output != null) {
+                            sendEnd(output, downstreamWorkers);
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable ex) { // Errors too: a dead worker would never close its stage
+                        fail(failure, exec, new PipelineException(stage.name, ex));
+                    }
+                });
+            }
+        }
+
+        exec.shutdown();
+        try {
+            while (!exec.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting; a failure calls shutdownNow() and ends the wait
+            }
+        } catch (InterruptedException ex) {
+            exec.shutdownNow();
+            throw ex;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        List<String> names = new ArrayList<>();
+        long[] counts = new long[stageCount];
+        for (int s = 0; s < stageCount; s++) {
+            names.add(stages.get(s).name);
+            counts[s] = processed.get(s).sum();
+        }
+        return new Result(names, counts, elapsed);
+    }
+
+    private static void sendEnd(BlockingQueue<Object> queue, int workers) throws InterruptedException {
+        for (int i = 0; i < workers; i++) {
+            queue.put(END);
+        }
+    }
+
+    /**
+     * Records the first failure and interrupts every worker, including those blocked on
+     * a full or empty queue, so the whole pipeline stops instead of hanging.
+     */
+    private static void fail(AtomicReference<PipelineException> failure, ExecutorService exec,
+                             PipelineException ex) {
+        if (failure.compareAndSet(null, ex)) {
+            System.err.println("[Pipeline] " + ex.getMessage());
+        }
+        exec.shutdownNow();
+    }
+
+    /**
+     * Work done by a middle stage. Returning null drops the item.
+     */
+    @FunctionalInterface
+    public interface Stage<I, O> {
+        O apply(I item) throws Exception;
+    }
+
+    /**
+     * Work done by the final stage.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        void accept(T item) throws Exception;
+    }
+
+    /**
+     * Adds stages one by one; T is the type produced by the stage added last.
+     */
+    public static class Builder<T> {
+        private final Iterable<?> source;
+        private final List<StageSpec> stages;
+        private ThreadMode threadMode;
+
+        private Builder(Iterable<?> source, List<StageSpec> stages, ThreadMode threadMode) {
+            this.source = source;
+            this.stages = stages;
+            this.threadMode = threadMode;
+        }
+
+        /**
+         * Runs all workers on platform threads (default) or virtual threads.
+         */
+        public Builder<T> threadMode(ThreadMode threadMode) {
+            this.threadMode = threadMode;
+            return this;
+        }
+
+        /**
+         * Appends a stage.
+         * @param workers Number of threads running this stage.
+         * @param bufferSize Capacity of this stage's input queue.
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<R> stage(String name, int workers, int bufferSize, Stage<? super T, ? extends R> stage) {
+            Stage<Object, Object> erased = (Stage<Object, Object>) stage;
+            // Each builder owns its list, so reusing an earlier builder cannot change this one
+            List<StageSpec> next = new ArrayList<>(stages);
+            next.add(new StageSpec(name, workers, bufferSize, erased));
+            return new Builder<>(source, next, threadMode);
+        }
+
+        /**
+         * Appends the final stage and returns the runnable pipeline.
+         */
+        @SuppressWarnings("unchecked")
+        public Pipeline sink(String name, int workers, int bufferSize, Sink<? super T> sink) {
+            Sink<Object> erased = (Sink<Object>) sink;
+            List<StageSpec> all = new ArrayList<>(stages);
+            all.add(new StageSpec(name, workers, bufferSize, item -> {
+                erased.accept(item);
+                return null;
+            }));
+            return new Pipeline(source, List.copyOf(all), threadMode);
+        }
+    }
+
+    /**
+     * Configuration of one stage.
+     */
+    private static class StageSpec {
+        final String name;
+        final int workers;
+        final int bufferSize;
+        final Stage<Object, Object> function;
+
+        StageSpec(String name, int workers, int bufferSize, Stage<Object, Object> function) {
+            if (workers <= 0 || bufferSize <= 0) {
+                throw new IllegalArgumentException("Stage " + name + " needs positive workers and buffer size");
+            }
+            this.name = name;
+            this.workers = workers;
+            this.bufferSize = bufferSize;
+            this.function = function;
+        }
+    }
+
+    /**
+     * Items handled per stage and total run time.
+     */
+    public static class Result {
+        private final List<String> stageNames;
+        private final long[] processed;
+        private final long elapsedNanos;
+
+        Result(List<String> stageNames, long[] processed, long elapsedNanos) {
+            this.stageNames = stageNames;
+            this.processed = processed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns how many items the named stage handled.
+         */
+        public long getProcessed(String stageName) {
+            int index = stageNames.indexOf(stageName);
+            if (index < 0) {
+                throw new IllegalArgumentException("No such stage: " + stageName);
+            }
+            return processed[index];
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < stageNames.size(); i++) {
+                sb.append(i == 0 ? "" : " -> ").append(stageNames.get(i)).append('=').append(processed[i]);
+            }
+            return String.format("%s in %.1f ms", sb, elapsedNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package Assignment1.src;
+
+/**
+ * Thrown by Pipeline.run() when a stage fails. The original exception is the cause.
+ */
+public class PipelineException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String stageName;
+
+    public PipelineException(String stageName, Throwable cause) {
+        super("Stage '" + stageName + "' failed: " + cause, cause);
+        this.stageName = stageName;
+    }
+
+    /**
+     * Returns the name of the stage that failed first.
+     */
+    public String getStageName() {
+        return stageName;
+    }
+}
@@ -0,0 +1,178 @@
+package Assignment1.src;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and histograms for one producer/consumer handoff, filled in by InstrumentedQueue.
+ *
+ * Records items per side, time spent inside put/take (i.e. blocked on a full or empty
+ * queue), queue occupancy seen after each put, and how long each item waited between the
+ * producer's put and the consumer's take. Read it through snapshot(), or let
+ * startReporting() print a line periodically.
+ */
+public class PipelineMetrics {
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder produced = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder putNanos = new LongAdder();
+    private final LongAdder takeNanos = new LongAdder();
+    private final LongAdder occupancySum = new LongAdder();
+    private final LongAdder occupancySamples = new LongAdder();
+    private final AtomicLong maxOccupancy = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private ScheduledExecutorService reporter;
+
+    void onPut(long blockedNanos, int occupancyAfter) {
+        produced.increment();
+        putNanos.add(blockedNanos);
+        occupancySum.add(occupancyAfter);
+        occupancySamples.increment();
+        maxOccupancy.accumulateAndGet(occupancyAfter, Math::max);
+    }
+
+    void onTake(long blockedNanos, int items) {
+        consumed.add(items);
+        takeNanos.add(blockedNanos);
+    }
+
+    void onLatency(long waitedNanos) {
+        latency.record(waitedNanos);
+    }
+
+    /**
+     * Returns a point-in-time copy of all metrics.
+     * @param currentDepth Current queue size, or -1 if unknown.
+     */
+    public Snapshot snapshot(int currentDepth) {
+        long samples = occupancySamples.sum();
+        return new Snapshot(
+                System.nanoTime() - startNanos,
+                produced.sum(), consumed.sum(),
+                putNanos.sum(), takeNanos.sum(),
+                currentDepth,
+                samples == 0 ? 0.0 : (double) occupancySum.sum() / samples,
+                maxOccupancy.get(),
+                latency.getValueAtPercentile(50),
+                latency.getValueAtPercentile(99),
+                latency.getValueAtPercentile(99.9),
+                latency.getMax());
+    }
+
+    /**
+     * Prints a report line every periodMillis, with throughput over the last period.
+     * @param depth Supplies the current queue size (e.g. queue::size).
+     */
+    public synchronized void startReporting(long periodMillis, IntSupplier depth) {
+        if (reporter != null) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        Snapshot[] previous = { snapshot(depth.getAsInt()) };
+        reporter.scheduleAtFixedRate(() -> {
+            Snapshot current = snapshot(depth.getAsInt());
+            // Printed directly: the report is periodic, not per item, and should show even
+            // when item logging is turned off
+            System.out.println("[Metrics] " + current.describeSince(previous[0]));
+            previous[0] = current;
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Immutable view of the metrics at one moment. Latencies and blocked times are in nanoseconds.
+     */
+    public static class Snapshot {
+        private final long elapsedNanos;
+        private final long produced;
+        private final long consumed;
+        private final long putBlockedNanos;
+        private final long takeBlockedNanos;
+        private final int depth;
+        private final double avgOccupancy;
+        private final long maxOccupancy;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long maxLatency;
+
+        Snapshot(long elapsedNanos, long produced, long consumed, long putBlockedNanos, long takeBlockedNanos,
+                 int depth, double avgOccupancy, long maxOccupancy, long p50, long p99, long p999, long maxLatency) {
+            this.elapsedNanos = elapsedNanos;
+            this.produced = produced;
+            this.consumed = consumed;
+            this.putBlockedNanos = putBlockedNanos;
+            this.takeBlockedNanos = takeBlockedNanos;
+            this.depth = depth;
+            this.avgOccupancy = avgOccupancy;
+            this.maxOccupancy = maxOccupancy;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.maxLatency = maxLatency;
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+        public long getProduced() { return produced; }
+        public long getConsumed() { return consumed; }
+        public long getPutBlockedNanos() { return putBlockedNanos; }
+        public long getTakeBlockedNanos() { return takeBlockedNanos; }
+        public int getDepth() { return depth; }
+        public double getAvgOccupancy() { return avgOccupancy; }
+        public long getMaxOccupancy() { return maxOccupancy; }
+        public long getLatencyP50() { return p50; }
+        public long getLatencyP99() { return p99; }
+        public long getLatencyP999() { return p999; }
+        public long getLatencyMax() { return maxLatency; }
+
+        public double getProducedPerSecond() {
+            return perSecond(produced, elapsedNanos);
+        }
+
+        public double getConsumedPerSecond() {
+            return perSecond(consumed, elapsedNanos);
+        }
+
+        /**
+         * One report line with rates computed over the interval since an earlier snapshot.
+         */
+        public String describeSince(Snapshot earlier) {
+            long interval = elapsedNanos - earlier.elapsedNanos;
+            return format(perSecond(produced - earlier.produced, interval),
+                    perSecond(consumed - earlier.consumed, interval));
+        }
+
+        @Override
+        public String toString() {
+            return format(getProducedPerSecond(), getConsumedPerSecond());
+        }
+
+        private String format(double producedRate, double consumedRate) {
+            return String.format("in=%.0f/s out=%.0f/s blocked put=%.1f ms take=%.1f ms "
+                            + "depth=%d (avg %.1f, max %d) wait p50=%.1f us p99=%.1f us p999=%.1f us max=%.1f us",
+                    producedRate, consumedRate, putBlockedNanos / 1e6, takeBlockedNanos / 1e6,
+                    depth, avgOccupancy, maxOccupancy, p50 / 1e3, p99 / 1e3, p999 / 1e3, maxLatency / 1e3);
+        }
+
+        private static double perSecond(long count, long nanos) {
+            return nanos <= 0 ? 0.0 : count * 1_000_000_000.0 / nanos;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package Assignment1.src;
+
+import java.util.Objects;
+
+/**
+ * Shared plumbing for the primitive channels (IntChannel, LongChannel).
+ *
+ * A primitive channel is a single-producer / single-consumer ring over a preallocated
+ * primitive array, so moving a value through it allocates nothing: no DataItem, no boxed
+ * Integer. End of stream is a flag set by close() rather than a special value, so every
+ * int/long value - including 0, -1 or MIN_VALUE - is a legal payload.
+ *
+ * This class only manages the read/write positions; subclasses own the array.
+ */
+public abstract class PrimitiveChannel {
+
+    protected final int capacity;
+    protected final int mask;
+    private final WaitStrategy waitStrategy;
+
+    // Next position to read. Written by the consumer only; cache = consumer's view of tail.
+    private final Sequence head = new Sequence(0);
+    // Next position to write. Written by the producer only; cache = producer's view of head.
+    private final Sequence tail = new Sequence(0);
+    // Set by the producer after its last write
+    private volatile boolean closed;
+
+    protected PrimitiveChannel(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + requestedCapacity);
+        }
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    /**
+     * Signals end of stream. Call from the producer after the last put; values already
+     * written are still delivered to the consumer.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.min(t - h, capacity);
+    }
+
+    /**
+     * Producer side: waits until at least one slot is free.
+     * @return The position to write next.
+     */
+    protected final long awaitWritable() throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Channel is closed");
+        }
+        long t = tail.get();
+        int attempt = 0;
+        while (t - tail.cache >= capacity) {
+            tail.cache = head.get();
+            if (t - tail.cache >= capacity) {
+                waitFor(attempt++);
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Producer side: how many slots are free from position t, without waiting.
+     */
+    protected final int freeSlots(long t) {
+        tail.cache = head.get();
+        return (int) (capacity - (t - tail.cache));
+    }
+
+    /**
+     * Producer side: makes everything written before newTail visible to the consumer.
+     */
+    protected final void publish(long newTail) {
+        tail.lazySet(newTail);
+    }
+
+    /**
+     * Consumer side: waits until at least one value is readable or the stream ended.
+     * @return The number of readable values (at most max), or -1 at end of stream.
+     */
+    protected final int awaitReadable(int max) throws InterruptedException {
+        long h = head.get();
+        int attempt = 0;
+        while (h >= head.cache) {
+            head.cache = tail.get();
+            if (h < head.cache) {
+                break;
+            }
+            if (closed) {
+                // close() happens after the last publish, so one more look is conclusive
+                head.cache = tail.get();
+                if (h >= head.cache) {
+                    return -1;
+                }
+                break;
+            }
+            waitFor(attempt++);
+        }
+        return (int) Math.min(max, head.cache - h);
+    }
+
+    /**
+     * Consumer side: the position to read next.
+     */
+    protected final long readPosition() {
+        return head.get();
+    }
+
+    /**
+     * Consumer side: hands the slots before newHead back to the producer.
+     */
+    protected final void consumed(long newHead) {
+        head.lazySet(newHead);
+    }
+
+    private void waitFor(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        waitStrategy.idle(attempt);
+    }
+}
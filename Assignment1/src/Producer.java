@@ -1,5 +1,7 @@
 package Assignment1.src;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 /**
@@ -10,10 +12,15 @@ public class Producer implements Runnable {
 
     // The shared thread-safe buffer where items are placed
     private final BlockingQueue<DataItem> queue;
+    // The value carried by the first generated item (later items count up from here)
+    private final int firstValue;
     // The number of items to generate before stopping
     private final int count;
-    // The special object used to signal the Consumer to terminate (Poison Pill)
+    // The special object used to signal the Consumer to terminate (Poison Pill).
+    // May be null when shutdown is coordinated by someone else (see ProducerConsumerTopology).
     private final DataItem stopItem;
+    // Number of items collected before they are published together (1 = publish each item)
+    private final int publishBatchSize;
 
     /**
      * Constructor initializes the producer with the shared queue and production limits.
@@ -22,7 +29,35 @@ public class Producer implements Runnable {
      * @param stopItem The specific object instance that acts as the stop signal.
      */
     public Producer(BlockingQueue<DataItem> queue, int count, DataItem stopItem) {
+        this(queue, 1, count, stopItem);
+    }
+
+    /**
+     * Constructor for producers that share a queue with other producers.
+     * Each producer is handed its own value range so no two producers emit the same item.
+     * @param queue The queue to store produced items.
+     * @param firstValue Value of the first item; the producer emits firstValue .. firstValue + count - 1.
+     * @param count Total number of items to produce.
+     * @param stopItem The stop signal to send when done, or null to send none.
+     */
+    public Producer(BlockingQueue<DataItem> queue, int firstValue, int count, DataItem stopItem) {
+        this(queue, firstValue, count, stopItem, 1);
+    }
+
+    /**
+     * Constructor for a producer that publishes items in batches.
+     * On a RingBuffer a batch is published with a single counter update; on other
+     * queues the items are put one after another.
+     * @param publishBatchSize Number of items per publish; 1 disables batching.
+     */
+    public Producer(BlockingQueue<DataItem> queue, int firstValue, int count, DataItem stopItem,
+                    int publishBatchSize) {
+        if (publishBatchSize <= 0) {
+            throw new IllegalArgumentException("publishBatchSize must be positive: " + publishBatchSize);
+        }
         this.queue = queue;
+        this.publishBatchSize = publishBatchSize;
+        this.firstValue = firstValue;
         this.count = count;
         this.stopItem = stopItem;
     }
@@ -33,27 +68,70 @@ public class Producer implements Runnable {
     @Override
     public void run() {
         try {
+            if (publishBatchSize > 1) {
+                runBatched();
+                return;
+            }
             // Loop to produce the specified number of items
-            for (int i = 1; i <= count; i++) {
+            for (int i = firstValue; i < firstValue + count; i++) {
                 DataItem item = new DataItem(i);
                 
                 // Simulate production time (e.g., reading from DB or heavy calculation)
                 Thread.sleep(1); 
                 
-                System.out.println("[Producer] Generated: " + item);
+                AsyncLog.sampled(AsyncLog.Level.INFO, "[Producer] Generated: ", item);
                 // Insert the item into the queue.
                 // This call blocks if the queue is full, handling backpressure automatically.
                 queue.put(item); // Blocks if queue is full
             }
             
             // After the loop finishes, send the poison pill to signal the consumer to stop
-            queue.put(stopItem);
-            System.out.println("[Producer] Stop signal sent.");
+            if (stopItem != null) {
+                queue.put(stopItem);
+                AsyncLog.info("[Producer] Stop signal sent.", null);
+            }
 
         } catch (InterruptedException ex) {
             // Handle thread interruption by restoring the interrupted status
             Thread.currentThread().interrupt();
-            System.err.println("[Producer] Interrupted.");
+            AsyncLog.error("[Producer] Interrupted.", null);
+        }
+    }
+
+    /**
+     * Batched variant of run(): items are collected locally and published together.
+     */
+    private void runBatched() throws InterruptedException {
+        List<DataItem> batch = new ArrayList<>(publishBatchSize);
+        for (int i = firstValue; i < firstValue + count; i++) {
+            DataItem item = new DataItem(i);
+            Thread.sleep(1); // Simulated production time, as in run()
+            AsyncLog.sampled(AsyncLog.Level.INFO, "[Producer] Generated: ", item);
+
+            batch.add(item);
+            if (batch.size() == publishBatchSize) {
+                publish(batch);
+                batch.clear();
+            }
+        }
+        publish(batch); // Whatever is left over
+
+        if (stopItem != null) {
+            queue.put(stopItem);
+            AsyncLog.info("[Producer] Stop signal sent.", null);
+        }
+    }
+
+    /**
+     * Publishes a batch, using the ring buffer's bulk path when available.
+     */
+    private void publish(List<DataItem> batch) throws InterruptedException {
+        if (queue instanceof RingBuffer) {
+            ((RingBuffer<DataItem>) queue).putBatch(batch);
+            return;
+        }
+        for (DataItem item : batch) {
+            queue.put(item); // Blocks if queue is full
         }
     }
-}
\ No newline at end of file
+}
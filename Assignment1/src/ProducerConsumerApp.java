@@ -1,14 +1,42 @@
 package Assignment1.src;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Main application entry point that orchestrates the Producer-Consumer pattern.
  * It sets up the shared resources and manages the thread lifecycle using an ExecutorService.
+ *
+ * Run without arguments for the classic one-producer / one-consumer demo, or pass options
+ * to run an N-producer / M-consumer topology:
+ *   --producers N --consumers M --items K (per producer) --queue-size Q
+ *   --queue array|linked|transfer|sync|spsc|mpmc --wait spin|yield|park
+ *   --batch N --batch-wait-us T (consumer batches) --publish-batch N (producer batches)
+ *   --threads platform|virtual --max-concurrency N (cap on consumers processing at once)
+ *   --log-level debug|info|warn|error|off --log-every N (log only every Nth per-item event)
+ *   --metrics [--report-ms N]   instruments the queue and prints throughput, blocked time,
+ *                               occupancy and wait-latency percentiles (every N ms and at the end)
+ *   --spill-dir DIR   items beyond --queue-size overflow to memory-mapped segment files in
+ *                     DIR instead of blocking producers; unconsumed items survive a restart
+ *   --scale   runs the same load with 1, 2, 4 and 8 consumers and prints a throughput table
+ *   --primitive   streams --items values through IntChannel/LongChannel and the boxed DataItem
+ *                 path, reporting throughput and steady-state bytes allocated per item
+ *   --partitions M [--keys K] [--rebalance T]   M key-partitioned consumers; the key is
+ *                 value % K (default 16); per-key order is kept and a skew report is printed.
+ *                 --rebalance lets idle keys move off partitions more than T items deeper
+ *   --pipeline    runs a parse -> enrich -> write demo; --consumers sets the enrich workers
+ *   --compare-threads   runs the same load on platform and virtual threads and compares
+ *                       throughput, peak heap and peak OS thread count
  */
 
 public class ProducerConsumerApp {
@@ -17,6 +45,11 @@ public class ProducerConsumerApp {
     private static final int ITEM_COUNT = 20;
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runTopology(args);
+            return;
+        }
+
         // Using a bounded queue determines how much backlog is allowed.
         // If the queue reaches 5 items, the producer will block until the consumer makes space.
         BlockingQueue<DataItem> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
@@ -46,6 +79,270 @@ public class ProducerConsumerApp {
             Thread.currentThread().interrupt();
         }
         
+        AsyncLog.flush(); // Make sure every buffered log line is out before the final message
         System.out.println("Application finished.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses the command line options and runs a multi-producer / multi-consumer topology.
+     */
+    private static void runTopology(String[] args) {
+        ProducerConsumerTopology.Builder builder = ProducerConsumerTopology.builder()
+                .queueSize(QUEUE_SIZE)
+                .itemsPerProducer(ITEM_COUNT);
+        boolean scale = false;
+        boolean compareThreads = false;
+        boolean metrics = false;
+        boolean primitive = false;
+        boolean pipeline = false;
+        int partitions = 0;
+        int keys = 16;
+        int rebalanceThreshold = -1;
+        int producers = 1;
+        int queueSize = QUEUE_SIZE;
+        AsyncLog.Level logLevel = AsyncLog.Level.INFO;
+        int logEvery = 1;
+        int items = ITEM_COUNT;
+        int consumers = 1;
+        int batchSize = 1;
+        long batchWaitMicros = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--producers":
+                    producers = Integer.parseInt(args[++i]);
+                    builder.producers(producers);
+                    break;
+                case "--consumers":
+                    consumers = Integer.parseInt(args[++i]);
+                    builder.consumers(consumers);
+                    break;
+                case "--items":
+                    items = Integer.parseInt(args[++i]);
+                    builder.itemsPerProducer(items);
+                    break;
+                case "--queue-size":
+                    queueSize = Integer.parseInt(args[++i]);
+                    builder.queueSize(queueSize);
+                    break;
+                case "--queue":
+                    builder.queueType(QueueType.fromName(args[++i]));
+                    break;
+                case "--wait":
+                    builder.waitStrategy(WaitStrategy.fromName(args[++i]));
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch-wait-us":
+                    batchWaitMicros = Long.parseLong(args[++i]);
+                    break;
+                case "--publish-batch":
+                    builder.producerBatch(Integer.parseInt(args[++i]));
+                    break;
+                case "--threads":
+                    builder.threadMode(ThreadMode.fromName(args[++i]));
+                    break;
+                case "--max-concurrency":
+                    builder.maxConcurrency(Integer.parseInt(args[++i]));
+                    break;
+                case "--log-level":
+                    logLevel = AsyncLog.Level.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--log-every":
+                    logEvery = Integer.parseInt(args[++i]);
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                case "--report-ms":
+                    builder.reportEveryMillis(Long.parseLong(args[++i]));
+                    break;
+                case "--spill-dir":
+                    builder.spillDirectory(Paths.get(args[++i]));
+                    break;
+                case "--partitions":
+                    partitions = Integer.parseInt(args[++i]);
+                    break;
+                case "--keys":
+                    keys = Integer.parseInt(args[++i]);
+                    break;
+                case "--rebalance":
+                    rebalanceThreshold = Integer.parseInt(args[++i]);
+                    break;
+                case "--pipeline":
+                    pipeline = true;
+                    break;
+                case "--primitive":
+                    primitive = true;
+                    break;
+                case "--compare-threads":
+                    compareThreads = true;
+                    break;
+                case "--scale":
+                    scale = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        builder.consumerBatch(batchSize, batchWaitMicros);
+        AsyncLog.configure(logLevel, logEvery);
+
+        try {
+            if (partitions > 0) {
+                int keyCount = keys;
+                PartitionedTopology.Builder partitioned = PartitionedTopology.builder()
+                        .producers(producers)
+                        .partitions(partitions)
+                        .itemsPerProducer(items)
+                        .queueSize(queueSize)
+                        .keyFunction(item -> item.getValue() % keyCount);
+                if (rebalanceThreshold >= 0) {
+                    partitioned.rebalance(rebalanceThreshold);
+                }
+                PartitionedTopology.SkewReport report = partitioned.build().run();
+                AsyncLog.flush();
+                System.out.println(report);
+                return;
+            }
+            if (pipeline) {
+                runPipelineDemo(items, consumers);
+                return;
+            }
+            if (primitive) {
+                comparePrimitiveChannels(items);
+                return;
+            }
+            if (compareThreads) {
+                compareThreadModes(builder, consumers, metrics);
+                return;
+            }
+            if (!scale) {
+                ProducerConsumerTopology.RunReport report = withMetrics(builder, metrics).build().run();
+                AsyncLog.flush();
+                System.out.println(report);
+                return;
+            }
+
+            // Same producers and load each time; only the consumer count changes
+            List<ProducerConsumerTopology.RunReport> reports = new ArrayList<>();
+            for (int c : new int[] {1, 2, 4, 8}) {
+                reports.add(withMetrics(builder.consumers(c), metrics).build().run());
+            }
+            AsyncLog.flush();
+            System.out.println("\n=== Throughput by consumer count ===");
+            for (ProducerConsumerTopology.RunReport report : reports) {
+                System.out.println(report);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * With --metrics, gives the next run its own PipelineMetrics, so the counters and the
+     * elapsed time of one run are not mixed into the next.
+     */
+    private static ProducerConsumerTopology.Builder withMetrics(ProducerConsumerTopology.Builder builder,
+                                                                boolean metrics) {
+        return metrics ? builder.metrics(new PipelineMetrics()) : builder;
+    }
+
+    /**
+     * Three-stage demo: parse text into items, enrich them (simulated 1 ms I/O call, the
+     * slow stage, scaled by enrichWorkers) and write them out.
+     */
+    private static void runPipelineDemo(int items, int enrichWorkers) throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= items; i++) {
+            lines.add(Integer.toString(i));
+        }
+
+        try {
+            Pipeline.Result result = Pipeline.from(lines)
+                    .stage("parse", 1, QUEUE_SIZE, (String line) -> new DataItem(Integer.parseInt(line)))
+                    .stage("enrich", enrichWorkers, QUEUE_SIZE, (DataItem item) -> {
+                        Thread.sleep(1);
+                        return item;
+                    })
+                    .sink("write", 1, QUEUE_SIZE, (DataItem item) -> AsyncLog.sampled(AsyncLog.Level.INFO, "[Write] ", item))
+                    .run();
+            AsyncLog.flush();
+            System.out.println(result);
+        } catch (PipelineException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Streams the same number of values through the primitive channels and through
+     * DataItem objects, after a warm-up of the same length.
+     */
+    private static void comparePrimitiveChannels(int items) throws InterruptedException {
+        WaitStrategy wait = WaitStrategy.yielding();
+        int capacity = 1024;
+        System.out.println("IntChannel  : " + ChannelThroughput.intChannel(items, items, capacity, wait));
+        System.out.println("LongChannel : " + ChannelThroughput.longChannel(items, items, capacity, wait));
+        System.out.println("DataItem    : " + ChannelThroughput.boxed(items, items, capacity, wait));
+    }
+
+    /**
+     * Runs the same load three ways: a platform pool capped at the core count (the old
+     * fixed pool), a platform pool with one thread per consumer, and one virtual thread
+     * per consumer. Peak heap and OS thread counts are sampled while each run is active.
+     */
+    private static void compareThreadModes(ProducerConsumerTopology.Builder builder, int consumers,
+                                           boolean metrics) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<String> rows = new ArrayList<>();
+
+        int capped = Math.min(cores, consumers);
+        rows.add(measure(withMetrics(builder.threadMode(ThreadMode.PLATFORM).consumers(capped), metrics)));
+        rows.add(measure(withMetrics(builder.threadMode(ThreadMode.PLATFORM).consumers(consumers), metrics)));
+        if (ThreadMode.VIRTUAL.isSupported()) {
+            rows.add(measure(withMetrics(builder.threadMode(ThreadMode.VIRTUAL).consumers(consumers), metrics)));
+        } else {
+            rows.add("VIRTUAL skipped: virtual threads need Java 21+ (running " + Runtime.version() + ")");
+        }
+
+        AsyncLog.flush();
+        System.out.println("\n=== Platform vs virtual threads ===");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+    }
+
+    /**
+     * Runs one topology while a background thread samples heap usage and live thread count.
+     */
+    private static String measure(ProducerConsumerTopology.Builder builder) throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+
+        AtomicLong peakHeap = new AtomicLong(baselineHeap);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        ProducerConsumerTopology.RunReport report = builder.build().run();
+
+        sampler.interrupt();
+        sampler.join();
+        return String.format("%s | peak heap +%.1f MB | peak OS threads %d",
+                report, (peakHeap.get() - baselineHeap) / (1024.0 * 1024.0), threads.getPeakThreadCount());
+    }
+}
@@ -0,0 +1,367 @@
+package Assignment1.src;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Runs N producers and M consumers against one shared bounded queue.
+ *
+ * Shutdown protocol: producers do NOT send poison pills themselves. The topology waits
+ * until every producer has finished and only then puts exactly M stop items into the queue.
+ * Because the queue is FIFO, every real item is ahead of every stop item, and because each
+ * consumer exits after taking one stop item, each consumer receives exactly one of them.
+ * The result is that every consumer terminates and no item is lost or processed twice.
+ */
+public class ProducerConsumerTopology {
+
+    private final int producers;
+    private final int consumers;
+    private final int itemsPerProducer;
+    private final int queueSize;
+    private final long timeoutSeconds;
+    private final QueueType queueType;
+    private final WaitStrategy waitStrategy;
+    private final int consumerBatchSize;
+    private final long consumerBatchWaitMicros;
+    private final int producerBatchSize;
+    private final ThreadMode threadMode;
+    private final PipelineMetrics metrics;
+    private final long reportEveryMillis;
+    private final Path spillDirectory;
+    private final BiFunction<BlockingQueue<DataItem>, DataItem, Consumer> consumerFactory;
+
+    private ProducerConsumerTopology(Builder builder) {
+        this.producers = builder.producers;
+        this.consumers = builder.consumers;
+        this.itemsPerProducer = builder.itemsPerProducer;
+        this.queueSize = builder.queueSize;
+        this.timeoutSeconds = builder.timeoutSeconds;
+        this.queueType = builder.queueType;
+        this.waitStrategy = builder.waitStrategy;
+        this.consumerBatchSize = builder.consumerBatchSize;
+        this.consumerBatchWaitMicros = builder.consumerBatchWaitMicros;
+        this.producerBatchSize = builder.producerBatchSize;
+        this.threadMode = builder.threadMode;
+        this.metrics = builder.metrics;
+        this.reportEveryMillis = builder.reportEveryMillis;
+        this.spillDirectory = builder.spillDirectory;
+        // One semaphore shared by all consumers caps in-flight process() calls
+        Semaphore inFlightLimit = builder.maxConcurrency > 0 ? new Semaphore(builder.maxConcurrency) : null;
+        this.consumerFactory = builder.consumerFactory != null
+                ? builder.consumerFactory
+                : (q, stop) -> new Consumer(q, stop, consumerBatchSize, consumerBatchWaitMicros, inFlightLimit);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs the topology to completion and reports what happened.
+     */
+    public RunReport run() throws InterruptedException {
+        BlockingQueue<DataItem> queue;
+        if (spillDirectory != null) {
+            queue = openSpillingQueue();
+        } else {
+            queue = metrics == null
+                    ? queueType.create(queueSize, waitStrategy)
+                    : new InstrumentedQueue<>(queueType.create(queueSize, waitStrategy), metrics);
+        }
+        if (metrics != null && reportEveryMillis > 0) {
+            metrics.startReporting(reportEveryMillis, queue::size);
+        }
+        DataItem stopItem = new DataItem(null);
+
+        ExecutorService producerPool = threadMode.newExecutor(producers);
+        ExecutorService consumerPool = threadMode.newExecutor(consumers);
+
+        List<Consumer> consumerTasks = new ArrayList<>();
+        List<Future<?>> producerFutures = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        for (int c = 0; c < consumers; c++) {
+            Consumer consumer = consumerFactory.apply(queue, stopItem);
+            consumerTasks.add(consumer);
+            consumerPool.submit(consumer);
+        }
+
+        // Each producer owns a disjoint value range: 1..K, K+1..2K, ...
+        for (int p = 0; p < producers; p++) {
+            int firstValue = p * itemsPerProducer + 1;
+            producerFutures.add(producerPool.submit(new Producer(queue, firstValue, itemsPerProducer, null, producerBatchSize)));
+        }
+
+        try {
+            // Wait for every producer, even after one fails: the stop items must not
+            // overtake items another producer is still enqueueing
+            for (Future<?> future : producerFutures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    System.err.println("[Topology] Producer failed: " + ex.getCause());
+                }
+            }
+        } finally {
+            producerPool.shutdown();
+            // One stop item per consumer, sent only after all producers are done
+            for (int c = 0; c < consumers; c++) {
+                queue.put(stopItem);
+            }
+        }
+
+        consumerPool.shutdown();
+        boolean finished = consumerPool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        if (!finished) {
+            System.err.println("[Topology] Consumers took too long, forcing shutdown.");
+            consumerPool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (metrics != null) {
+            metrics.stopReporting();
+        }
+        if (queue instanceof SpillingQueue) {
+            SpillingQueue spilling = (SpillingQueue) queue;
+            AsyncLog.info("[Topology] Spilled " + spilling.getSpilledTotal() + " items to disk, "
+                    + spilling.getDiskCount() + " still on disk.", null);
+            spilling.close();
+        }
+
+        long consumed = 0;
+        for (Consumer consumer : consumerTasks) {
+            consumed += consumer.getProcessedCount();
+        }
+        return new RunReport(producers, consumers, (long) producers * itemsPerProducer, consumed, elapsed, finished, threadMode,
+                metrics == null ? null : metrics.snapshot(queue.size()));
+    }
+
+    private SpillingQueue openSpillingQueue() {
+        try {
+            return new SpillingQueue(queueSize, spillDirectory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open spill directory " + spillDirectory, ex);
+        }
+    }
+
+    /**
+     * Fluent configuration for a topology. Defaults match the original single-pair app.
+     */
+    public static class Builder {
+        private int producers = 1;
+        private int consumers = 1;
+        private int itemsPerProducer = 20;
+        private int queueSize = 5;
+        private long timeoutSeconds = 60;
+        private QueueType queueType = QueueType.ARRAY_BLOCKING;
+        private WaitStrategy waitStrategy = WaitStrategy.yielding();
+        private int consumerBatchSize = 1;
+        private long consumerBatchWaitMicros = 0;
+        private int producerBatchSize = 1;
+        private ThreadMode threadMode = ThreadMode.PLATFORM;
+        private int maxConcurrency = 0;
+        private PipelineMetrics metrics;
+        private long reportEveryMillis = 0;
+        private Path spillDirectory;
+        private BiFunction<BlockingQueue<DataItem>, DataItem, Consumer> consumerFactory;
+
+        public Builder producers(int producers) {
+            this.producers = requirePositive(producers, "producers");
+            return this;
+        }
+
+        public Builder consumers(int consumers) {
+            this.consumers = requirePositive(consumers, "consumers");
+            return this;
+        }
+
+        public Builder itemsPerProducer(int itemsPerProducer) {
+            this.itemsPerProducer = requirePositive(itemsPerProducer, "itemsPerProducer");
+            return this;
+        }
+
+        public Builder queueSize(int queueSize) {
+            this.queueSize = requirePositive(queueSize, "queueSize");
+            return this;
+        }
+
+        public Builder timeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+            return this;
+        }
+
+        public Builder queueType(QueueType queueType) {
+            this.queueType = queueType;
+            return this;
+        }
+
+        /**
+         * How threads wait on a full/empty ring buffer. Ignored for ARRAY_BLOCKING.
+         */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * Makes consumers drain up to batchSize items (waiting at most maxWaitMicros for
+         * a batch to fill) and hand them to Consumer.processBatch().
+         */
+        public Builder consumerBatch(int batchSize, long maxWaitMicros) {
+            this.consumerBatchSize = requirePositive(batchSize, "consumerBatchSize");
+            this.consumerBatchWaitMicros = maxWaitMicros;
+            return this;
+        }
+
+        /**
+         * Makes producers publish items in groups of batchSize.
+         */
+        public Builder producerBatch(int batchSize) {
+            this.producerBatchSize = requirePositive(batchSize, "producerBatchSize");
+            return this;
+        }
+
+        /**
+         * Runs producers and consumers on platform threads (default) or virtual threads.
+         */
+        public Builder threadMode(ThreadMode threadMode) {
+            this.threadMode = threadMode;
+            return this;
+        }
+
+        /**
+         * Caps how many consumers may be processing at the same time; without this call
+         * there is no cap. Useful with thousands of virtual-thread consumers and a sink
+         * with limited capacity.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = requirePositive(maxConcurrency, "maxConcurrency");
+            return this;
+        }
+
+        /**
+         * Instruments the queue: throughput per side, time blocked in put/take, occupancy
+         * and per-item wait latency are recorded into the given metrics.
+         */
+        public Builder metrics(PipelineMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * With metrics enabled, prints a metrics line every periodMillis while running.
+         */
+        public Builder reportEveryMillis(long periodMillis) {
+            this.reportEveryMillis = periodMillis;
+            return this;
+        }
+
+        /**
+         * Uses a SpillingQueue: queueSize items in memory, then overflow to segment files
+         * in the given directory instead of blocking producers. Items left on disk by an
+         * earlier run are consumed first. Replaces the queue, so build() rejects it together
+         * with a queue type other than ARRAY_BLOCKING or with metrics.
+         */
+        public Builder spillDirectory(Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Overrides how consumers are created, e.g. to plug in a custom process() sink.
+         * The factory is responsible for any batching settings of the consumers it creates.
+         */
+        public Builder consumerFactory(BiFunction<BlockingQueue<DataItem>, DataItem, Consumer> consumerFactory) {
+            this.consumerFactory = consumerFactory;
+            return this;
+        }
+
+        public ProducerConsumerTopology build() {
+            // The stop items are put by the topology thread only after the producer has
+            // finished, so a single producer still means a single writer at any moment.
+            if (queueType == QueueType.SPSC_RING && (producers != 1 || consumers != 1)) {
+                throw new IllegalArgumentException("SPSC_RING requires exactly one producer and one consumer");
+            }
+            // A spill directory replaces the queue, so settings for another queue cannot apply.
+            // Metrics would wrap each item in a timestamp, which a segment file cannot store.
+            if (spillDirectory != null && queueType != QueueType.ARRAY_BLOCKING) {
+                throw new IllegalArgumentException("A spill directory replaces the queue type; drop --queue "
+                        + queueType.getCliName() + " or --spill-dir");
+            }
+            if (spillDirectory != null && metrics != null) {
+                throw new IllegalArgumentException("A spilling queue cannot be instrumented; drop --metrics or --spill-dir");
+            }
+            return new ProducerConsumerTopology(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Outcome of a single topology run.
+     */
+    public static class RunReport {
+        private final int producers;
+        private final int consumers;
+        private final long itemsProduced;
+        private final long itemsConsumed;
+        private final long elapsedNanos;
+        private final boolean completed;
+        private final ThreadMode threadMode;
+        private final PipelineMetrics.Snapshot metrics;
+
+        RunReport(int producers, int consumers, long itemsProduced, long itemsConsumed,
+                  long elapsedNanos, boolean completed, ThreadMode threadMode,
+                  PipelineMetrics.Snapshot metrics) {
+            this.producers = producers;
+            this.consumers = consumers;
+            this.itemsProduced = itemsProduced;
+            this.itemsConsumed = itemsConsumed;
+            this.elapsedNanos = elapsedNanos;
+            this.completed = completed;
+            this.threadMode = threadMode;
+            this.metrics = metrics;
+        }
+
+        public int getProducers() { return producers; }
+        public int getConsumers() { return consumers; }
+        public long getItemsProduced() { return itemsProduced; }
+        public long getItemsConsumed() { return itemsConsumed; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public boolean isCompleted() { return completed; }
+        public ThreadMode getThreadMode() { return threadMode; }
+
+        /**
+         * Final queue metrics, or null if the topology ran without metrics.
+         * Counts include the stop items sent at shutdown.
+         */
+        public PipelineMetrics.Snapshot getMetrics() { return metrics; }
+
+        public double getItemsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : itemsConsumed * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            String summary = String.format("%s P=%d C=%d produced=%d consumed=%d time=%.1f ms throughput=%.0f items/sec",
+                    threadMode, producers, consumers, itemsProduced, itemsConsumed,
+                    elapsedNanos / 1_000_000.0, getItemsPerSecond());
+            return metrics == null ? summary : summary + System.lineSeparator() + "  queue: " + metrics;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Assignment1.src;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * The queue implementations the producer/consumer handoff can run on, selectable at startup.
+ */
+public enum QueueType {
+
+    /** The JDK's lock-based bounded queue (the original choice). */
+    ARRAY_BLOCKING("array") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new ArrayBlockingQueue<>(capacity);
+        }
+    },
+
+    /** Linked nodes with separate put and take locks; bounded by capacity. */
+    LINKED_BLOCKING("linked") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new LinkedBlockingQueue<>(capacity);
+        }
+    },
+
+    /** Lock-free linked queue. Unbounded: capacity is ignored, so there is no backpressure. */
+    LINKED_TRANSFER("transfer") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new LinkedTransferQueue<>();
+        }
+    },
+
+    /** Direct handoff with no buffer: every put waits for a take. Capacity is ignored. */
+    SYNCHRONOUS("sync") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new SynchronousQueue<>();
+        }
+    },
+
+    /** Lock-free ring buffer for exactly one producer and one consumer. */
+    SPSC_RING("spsc") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new SpscRingBuffer<>(capacity, waitStrategy);
+        }
+    },
+
+    /** Lock-free ring buffer for any number of producers and consumers. */
+    MPMC_RING("mpmc") {
+        @Override
+        public <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy) {
+            return new MpmcRingBuffer<>(capacity, waitStrategy);
+        }
+    };
+
+    private final String cliName;
+
+    QueueType(String cliName) {
+        this.cliName = cliName;
+    }
+
+    /**
+     * Creates an empty queue of this type.
+     * @param waitStrategy Used by ring buffers while full/empty; ignored by lock-based queues.
+     */
+    public abstract <E> BlockingQueue<E> create(int capacity, WaitStrategy waitStrategy);
+
+    public String getCliName() {
+        return cliName;
+    }
+
+    /**
+     * Looks up a queue type by its command line name: array, linked, transfer, sync, spsc or mpmc.
+     */
+    public static QueueType fromName(String name) {
+        for (QueueType type : values()) {
+            if (type.cliName.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown queue type: " + name);
+    }
+}
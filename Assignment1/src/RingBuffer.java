@@ -0,0 +1,180 @@
+package Assignment1.src;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Base class for lock-free bounded queues backed by a power-of-two array.
+ * Subclasses implement the non-blocking offer()/poll(); the blocking put()/take() calls
+ * required by BlockingQueue are built here by retrying with a WaitStrategy instead of
+ * parking on a lock, so a RingBuffer can be dropped in wherever a BlockingQueue is used.
+ *
+ * iterator() walks a snapshot copied from the slots between head and tail: it never
+ * blocks the producers or consumers, and may miss or still show items that are taken
+ * or added while the copy is made (weakly consistent, like the java.util.concurrent queues).
+ */
+public abstract class RingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    protected final int capacity;
+    protected final int mask;
+    protected final AtomicReferenceArray<E> buffer;
+    private final WaitStrategy waitStrategy;
+
+    protected RingBuffer(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + requestedCapacity);
+        }
+        // Round up to a power of two so the slot index is a cheap mask instead of a modulo
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    /**
+     * Inserts as many items as fit, starting at items.get(from), without waiting.
+     * @return The number of items inserted (0 if the buffer is full).
+     */
+    public int offerBatch(List<? extends E> items, int from) {
+        int added = 0;
+        while (from + added < items.size() && offer(items.get(from + added))) {
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Inserts all items, waiting for space as needed. Subclasses with a cheaper bulk
+     * publish (one counter update for the whole batch) override offerBatch().
+     */
+    public void putBatch(List<? extends E> items) throws InterruptedException {
+        int done = 0;
+        int attempt = 0;
+        while (done < items.size()) {
+            int added = offerBatch(items, done);
+            if (added > 0) {
+                done += added;
+                attempt = 0;
+            } else {
+                waitFor(attempt++);
+            }
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        int attempt = 0;
+        while (!offer(e)) {
+            waitFor(attempt++);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempt = 0;
+        while (!offer(e)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            waitFor(attempt++);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        int attempt = 0;
+        E e;
+        while ((e = poll()) == null) {
+            waitFor(attempt++);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempt = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            waitFor(attempt++);
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int drained = 0;
+        E e;
+        while (drained < maxElements && (e = poll()) != null) {
+            c.add(e);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        long h = headPosition();
+        long t = Math.min(tailPosition(), h + capacity);
+        List<E> snapshot = new ArrayList<>((int) Math.max(0, t - h));
+        for (long pos = h; pos < t; pos++) {
+            E e = buffer.get((int) pos & mask);
+            if (e != null) { // null: already taken, or claimed but not yet written
+                snapshot.add(e);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Position of the next item to read.
+     */
+    protected abstract long headPosition();
+
+    /**
+     * Position of the next item to write.
+     */
+    protected abstract long tailPosition();
+
+    /**
+     * Returns the actual capacity (the requested capacity rounded up to a power of two).
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Backs off between failed attempts and makes waiting loops respond to interruption.
+     */
+    private void waitFor(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        waitStrategy.idle(attempt);
+    }
+}
@@ -0,0 +1,26 @@
+package Assignment1.src;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that sits on its own cache line.
+ * The trailing long fields are never read; they only push the next object in memory
+ * (usually the other side's counter) onto a different 64-byte line, so the producer
+ * and consumer do not invalidate each other's cache on every update (false sharing).
+ * The cache field lets the owning thread keep a stale copy of the other side's counter
+ * on the same line as its own.
+ */
+class Sequence extends AtomicLong {
+
+    private static final long serialVersionUID = 1L;
+
+    // Owner-thread-only copy of the opposite counter
+    long cache;
+
+    // Padding: 6 + cache + value = 64 bytes
+    long p1, p2, p3, p4, p5, p6;
+
+    Sequence(long initialValue) {
+        super(initialValue);
+    }
+}
@@ -0,0 +1,656 @@
+package Assignment1.src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory queue with an overflow tier on disk.
+ *
+ * While the consumer keeps up, it behaves like an ArrayBlockingQueue of memoryCapacity.
+ * When the memory tier is full, put() appends the item to a memory-mapped segment file
+ * instead of blocking, so a stalled consumer does not stall the producer. Once anything
+ * is on disk, new items also go to disk until it is drained again. This keeps FIFO order:
+ * every item in memory is older than every item on disk, so take() reads memory first,
+ * then disk.
+ *
+ * Segments are fixed-size files (segment-NNNNNNNN.dat). Each starts with a header
+ * holding how many records were written and how many were read, followed by 8-byte
+ * records (tag, value). A fully read segment is recycled: it is renamed and reused as
+ * the next write segment instead of allocating a new file; beyond a couple of spare
+ * segments it is unmapped and deleted, so its memory and file are returned at once
+ * rather than whenever the garbage collector gets to the buffer. The read position is
+ * updated when an item is taken, so reopening the directory after a restart replays
+ * exactly the items that were spilled but not yet consumed. Items still in the memory
+ * tier are not persisted, just as with an ArrayBlockingQueue.
+ *
+ * Items whose value is null (stop items) are compared by identity, which a file cannot
+ * store, so they are kept in memory in spill order and matched back up on replay.
+ * After a restart their consumers are gone, so such records are skipped.
+ *
+ * put() blocks only when both tiers are full (maxSegments segments).
+ */
+public class SpillingQueue extends AbstractQueue<DataItem> implements BlockingQueue<DataItem>, Closeable {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 8;
+    // Record tags
+    private static final int VALUE = 1;
+    private static final int NULL_VALUE = 2;
+    private static final int SKIPPED = 3;
+    // Fully read segments kept around for reuse
+    private static final int MAX_FREE_SEGMENTS = 2;
+    // Unmaps a MappedByteBuffer right away; null if this JVM does not allow it
+    private static final MethodHandle UNMAP = findUnmapper();
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // All fields below are guarded by lock
+    private final ArrayDeque<DataItem> memory = new ArrayDeque<>();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // oldest first
+    private final ArrayDeque<Segment> freeSegments = new ArrayDeque<>();
+    private final ArrayDeque<DataItem> spilledNullItems = new ArrayDeque<>();
+    private long nextSequence;
+    private int diskCount;
+    private long spilledTotal;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) the spill directory with 64K records per segment and up to 64 segments.
+     */
+    public SpillingQueue(int memoryCapacity, Path directory) throws IOException {
+        this(memoryCapacity, directory, 65_536, 64);
+    }
+
+    /**
+     * @param memoryCapacity Items held in memory before spilling.
+     * @param directory Where segment files live; items left there by an earlier run are replayed first.
+     * @param recordsPerSegment Items per segment file.
+     * @param maxSegments Segment files in use before put() blocks.
+     */
+    public SpillingQueue(int memoryCapacity, Path directory, int recordsPerSegment, int maxSegments)
+            throws IOException {
+        if (memoryCapacity <= 0 || recordsPerSegment <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("Capacities must be positive");
+        }
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Maps the segment files left by an earlier run, in sequence order.
+     */
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null); // Zero-padded sequence numbers sort by name
+        for (Path file : files) {
+            Segment segment = new Segment(file, sequenceOf(file));
+            nextSequence = Math.max(nextSequence, segment.sequence + 1);
+            if (segment.recordCount() != recordsPerSegment) {
+                throw new IOException("Segment " + file + " was written with a different segment size");
+            }
+            // Stop items from the earlier run have no consumer waiting for them any more
+            int unread = 0;
+            for (int i = segment.readCount; i < segment.writeCount; i++) {
+                if (segment.tagAt(i) == VALUE) {
+                    unread++;
+                } else {
+                    segment.markSkipped(i);
+                }
+            }
+            if (unread == 0) {
+                // Nothing left to replay: reuse the whole file rather than appending to it
+                recycle(segment);
+                continue;
+            }
+            diskCount += unread;
+            segments.add(segment);
+        }
+    }
+
+    @Override
+    public void put(DataItem item) throws InterruptedException {
+        checkNotNull(item);
+        lock.lockInterruptibly();
+        try {
+            while (isFull()) {
+                notFull.await();
+            }
+            enqueue(item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(DataItem item) {
+        checkNotNull(item);
+        lock.lock();
+        try {
+            if (isFull()) {
+                return false;
+            }
+            enqueue(item);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(DataItem item, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (isFull()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(item);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DataItem take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count() == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DataItem poll() {
+        lock.lock();
+        try {
+            return count() == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DataItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count() == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DataItem peek() {
+        lock.lock();
+        try {
+            if (!memory.isEmpty()) {
+                return memory.peek();
+            }
+            if (diskCount == 0) {
+                return null;
+            }
+            checkOpen();
+            // Look without moving the read position
+            Segment segment = firstReadableSegment();
+            int index = segment.readCount;
+            while (segment.tagAt(index) == SKIPPED) {
+                index++;
+            }
+            return segment.tagAt(index) == NULL_VALUE ? spilledNullItems.peek() : new DataItem(segment.valueAt(index));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super DataItem> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super DataItem> c, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count() > 0) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            long diskRoom = (long) maxSegments * recordsPerSegment - diskCount;
+            return (int) Math.min(Integer.MAX_VALUE, memoryCapacity - memory.size() + diskRoom);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many items are currently on disk.
+     */
+    public int getDiskCount() {
+        lock.lock();
+        try {
+            return diskCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many items were spilled to disk since this queue was opened.
+     */
+    public long getSpilledTotal() {
+        lock.lock();
+        try {
+            return spilledTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many segment files exist, in use or waiting to be reused.
+     */
+    public int getSegmentFileCount() {
+        lock.lock();
+        try {
+            return segments.size() + freeSegments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the segments to the storage device. Without this, spilled items survive a
+     * process crash (the OS owns the dirty pages) but not a power failure.
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            if (closed) {
+                return; // Already synced, and the mappings are gone
+            }
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Syncs and unmaps the segments; unread items stay on disk for the next SpillingQueue
+     * on this directory. Items still in memory can be taken after close, spilled ones cannot.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!closed) {
+                sync();
+                closed = true;
+                for (Segment segment : segments) {
+                    segment.release();
+                }
+                for (Segment segment : freeSegments) {
+                    segment.release();
+                }
+                freeSegments.clear();
+                notEmpty.signalAll(); // Waiting takers fail instead of reading a released segment
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Weakly consistent: walks a copy of the items taken under the lock, memory tier
+     * first, then the spilled items in order. Does not move the read position.
+     */
+    @Override
+    public Iterator<DataItem> iterator() {
+        lock.lock();
+        try {
+            List<DataItem> snapshot = new ArrayList<>(memory);
+            if (diskCount > 0) {
+                checkOpen();
+                Iterator<DataItem> nullItems = spilledNullItems.iterator();
+                for (Segment segment : segments) {
+                    for (int i = segment.readCount; i < segment.writeCount; i++) {
+                        int tag = segment.tagAt(i);
+                        if (tag == VALUE) {
+                            snapshot.add(new DataItem(segment.valueAt(i)));
+                        } else if (tag == NULL_VALUE) {
+                            snapshot.add(nullItems.next());
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ----- internals, called with lock held -----
+
+    private int count() {
+        return memory.size() + diskCount;
+    }
+
+    private boolean isFull() {
+        if (diskCount == 0 && memory.size() < memoryCapacity) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        return tail != null && tail.isFull() && segments.size() >= maxSegments;
+    }
+
+    private void enqueue(DataItem item) {
+        if (closed) {
+            throw new IllegalStateException("SpillingQueue is closed");
+        }
+        if (diskCount == 0 && memory.size() < memoryCapacity) {
+            memory.add(item);
+        } else {
+            spill(item);
+        }
+        notEmpty.signal();
+    }
+
+    private void spill(DataItem item) {
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.isFull()) {
+            tail = newSegment();
+            segments.add(tail);
+        }
+        if (item.getValue() == null) {
+            spilledNullItems.add(item);
+            tail.append(NULL_VALUE, 0);
+        } else {
+            tail.append(VALUE, item.getValue());
+        }
+        diskCount++;
+        spilledTotal++;
+    }
+
+    private DataItem dequeue() {
+        DataItem item = memory.isEmpty() ? unspill() : memory.poll();
+        notFull.signal();
+        return item;
+    }
+
+    private DataItem unspill() {
+        checkOpen();
+        Segment segment = firstReadableSegment();
+        int tag;
+        int value;
+        do {
+            tag = segment.tagAt(segment.readCount);
+            value = segment.valueAt(segment.readCount);
+            segment.markRead();
+        } while (tag == SKIPPED);
+        diskCount--;
+        if (segment.isFull() && !segment.hasUnread()) {
+            segments.poll();
+            recycle(segment);
+        }
+        return tag == NULL_VALUE ? spilledNullItems.poll() : new DataItem(value);
+    }
+
+    /**
+     * Drops exhausted segments from the head (only skipped records left) and returns the
+     * first one with an item to read. Only called when diskCount > 0.
+     */
+    private Segment firstReadableSegment() {
+        while (true) {
+            Segment head = segments.peek();
+            int index = head.readCount;
+            while (index < head.writeCount && head.tagAt(index) == SKIPPED) {
+                index++;
+            }
+            if (index < head.writeCount) {
+                return head;
+            }
+            // Everything left in it was skipped
+            while (head.hasUnread()) {
+                head.markRead();
+            }
+            segments.poll();
+            recycle(head);
+        }
+    }
+
+    private Segment newSegment() {
+        try {
+            Segment segment = freeSegments.poll();
+            long sequence = nextSequence++;
+            if (segment == null) {
+                return new Segment(segmentPath(sequence), sequence);
+            }
+            segment.reuse(segmentPath(sequence), sequence);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create spill segment in " + directory, ex);
+        }
+    }
+
+    private void recycle(Segment segment) {
+        try {
+            if (freeSegments.size() < MAX_FREE_SEGMENTS) {
+                freeSegments.add(segment);
+            } else {
+                segment.release();
+                Files.deleteIfExists(segment.path);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot delete spill segment " + segment.path, ex);
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("segment-%08d.dat", sequence));
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".dat".length()));
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("SpillingQueue is closed; spilled items stay on disk for the next run");
+        }
+    }
+
+    /**
+     * Looks up sun.misc.Unsafe.invokeCleaner, the only way to unmap a buffer before it is
+     * garbage collected. The JDK ships it in jdk.unsupported; without it, release() just
+     * drops the reference.
+     */
+    private static MethodHandle findUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            MethodHandle invokeCleaner = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return invokeCleaner.bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static void checkNotNull(DataItem item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * One memory-mapped segment file.
+     * Header: int writeCount, int readCount, int recordsPerSegment, int reserved.
+     * The record is written before writeCount is bumped, so a crash mid-append loses at
+     * most that one unacknowledged record.
+     */
+    private final class Segment {
+        Path path;
+        long sequence;
+        // Null once released
+        MappedByteBuffer buffer;
+        int writeCount;
+        int readCount;
+
+        Segment(Path path, long sequence) throws IOException {
+            this.path = path;
+            this.sequence = sequence;
+            boolean existed = Files.exists(path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_BYTES + (long) recordsPerSegment * RECORD_BYTES);
+            }
+            if (existed) {
+                writeCount = buffer.getInt(0);
+                readCount = buffer.getInt(4);
+            } else {
+                buffer.putInt(8, recordsPerSegment);
+            }
+        }
+
+        int recordCount() {
+            return buffer.getInt(8);
+        }
+
+        boolean isFull() {
+            return writeCount == recordsPerSegment;
+        }
+
+        boolean hasUnread() {
+            return readCount < writeCount;
+        }
+
+        int tagAt(int index) {
+            return buffer.getInt(HEADER_BYTES + index * RECORD_BYTES);
+        }
+
+        int valueAt(int index) {
+            return buffer.getInt(HEADER_BYTES + index * RECORD_BYTES + 4);
+        }
+
+        void append(int tag, int value) {
+            int offset = HEADER_BYTES + writeCount * RECORD_BYTES;
+            buffer.putInt(offset, tag);
+            buffer.putInt(offset + 4, value);
+            buffer.putInt(0, ++writeCount);
+        }
+
+        void markRead() {
+            buffer.putInt(4, ++readCount);
+        }
+
+        void markSkipped(int index) {
+            buffer.putInt(HEADER_BYTES + index * RECORD_BYTES, SKIPPED);
+        }
+
+        /**
+         * Unmaps the file. The segment must not be touched afterwards: reading an
+         * unmapped buffer crashes the JVM, which is why every caller holds the lock and
+         * has already removed the segment from segments/freeSegments (or closed the queue).
+         */
+        void release() {
+            MappedByteBuffer mapped = buffer;
+            buffer = null;
+            if (mapped != null && UNMAP != null) {
+                try {
+                    UNMAP.invokeExact((ByteBuffer) mapped);
+                } catch (Throwable ex) {
+                    // Left to the garbage collector
+                }
+            }
+        }
+
+        void reuse(Path newPath, long newSequence) throws IOException {
+            Files.move(path, newPath);
+            path = newPath;
+            sequence = newSequence;
+            writeCount = 0;
+            readCount = 0;
+            buffer.putInt(0, 0);
+            buffer.putInt(4, 0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Assignment1.src;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Single-producer / single-consumer ring buffer.
+ * With exactly one writer and one reader, neither counter needs a CAS: each side only
+ * publishes its own counter with an ordered store (lazySet), and each side keeps a cached
+ * copy of the other side's counter so it only reads the shared line when the cache says
+ * the buffer looks full (producer) or empty (consumer).
+ *
+ * Using this buffer with more than one concurrent producer or consumer corrupts it.
+ */
+public class SpscRingBuffer<E> extends RingBuffer<E> {
+
+    // Next slot to read. Written by the consumer only; cache = consumer's view of tail.
+    private final Sequence head = new Sequence(0);
+    // Next slot to write. Written by the producer only; cache = producer's view of head.
+    private final Sequence tail = new Sequence(0);
+
+    public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long t = tail.get();
+        if (t - tail.cache >= capacity) {
+            tail.cache = head.get();
+            if (t - tail.cache >= capacity) {
+                return false; // Full
+            }
+        }
+        buffer.lazySet((int) t & mask, e);
+        tail.lazySet(t + 1); // Publishes the element to the consumer
+        return true;
+    }
+
+    @Override
+    public int offerBatch(List<? extends E> items, int from) {
+        long t = tail.get();
+        int wanted = items.size() - from;
+        if (t + wanted - tail.cache > capacity) {
+            tail.cache = head.get();
+        }
+        int n = (int) Math.min(wanted, capacity - (t - tail.cache));
+        for (int i = 0; i < n; i++) {
+            buffer.lazySet((int) (t + i) & mask, Objects.requireNonNull(items.get(from + i)));
+        }
+        if (n > 0) {
+            tail.lazySet(t + n); // One publish for the whole batch
+        }
+        return n;
+    }
+
+    @Override
+    public E poll() {
+        long h = head.get();
+        if (h >= head.cache) {
+            head.cache = tail.get();
+            if (h >= head.cache) {
+                return null; // Empty
+            }
+        }
+        int index = (int) h & mask;
+        E e = buffer.get(index);
+        buffer.lazySet(index, null);
+        head.lazySet(h + 1); // Hands the slot back to the producer
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        long h = head.get();
+        if (h + maxElements > head.cache) {
+            head.cache = tail.get();
+        }
+        int n = (int) Math.min(maxElements, head.cache - h);
+        for (int i = 0; i < n; i++) {
+            int index = (int) (h + i) & mask;
+            c.add(buffer.get(index));
+            buffer.lazySet(index, null);
+        }
+        if (n > 0) {
+            head.lazySet(h + n); // Frees the whole batch at once
+        }
+        return n;
+    }
+
+    @Override
+    public E peek() {
+        long h = head.get();
+        if (h >= head.cache) {
+            head.cache = tail.get();
+            if (h >= head.cache) {
+                return null; // Empty: the slot may hold an element not yet published
+            }
+        }
+        return buffer.get((int) h & mask);
+    }
+
+    @Override
+    public int size() {
+        // Read head first: tail only grows, so the difference can't go negative
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.min(t - h, capacity);
+    }
+
+    @Override
+    protected long headPosition() {
+        return head.get();
+    }
+
+    @Override
+    protected long tailPosition() {
+        return tail.get();
+    }
+}
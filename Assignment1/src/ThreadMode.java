@@ -0,0 +1,84 @@
+package Assignment1.src;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Which kind of threads the producer and consumer tasks run on.
+ */
+public enum ThreadMode {
+
+    /** One OS thread per task, from a fixed-size pool (the original behaviour). */
+    PLATFORM("platform") {
+        @Override
+        public ExecutorService newExecutor(int tasks) {
+            return Executors.newFixedThreadPool(tasks);
+        }
+    },
+
+    /**
+     * One virtual thread per task. A virtual thread that blocks (sleep, I/O, queue.take)
+     * unmounts from its carrier thread, so thousands of blocked consumers cost heap, not
+     * OS threads. Requires Java 21+.
+     */
+    VIRTUAL("virtual") {
+        @Override
+        public ExecutorService newExecutor(int tasks) {
+            if (VirtualThreads.FACTORY == null) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+            }
+            try {
+                return (ExecutorService) VirtualThreads.FACTORY.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Could not create virtual thread executor", ex);
+            }
+        }
+    };
+
+    private final String cliName;
+
+    ThreadMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    /**
+     * Creates an executor able to run the given number of long-lived tasks at once.
+     */
+    public abstract ExecutorService newExecutor(int tasks);
+
+    /**
+     * Returns false when this mode cannot run on the current JVM.
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || VirtualThreads.FACTORY != null;
+    }
+
+    /**
+     * Looks up a thread mode by its command line name: platform or virtual.
+     */
+    public static ThreadMode fromName(String name) {
+        for (ThreadMode mode : values()) {
+            if (mode.cliName.equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown thread mode: " + name);
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor() reflectively so the project
+     * still compiles and runs (in platform mode) on JDKs older than 21.
+     */
+    private static class VirtualThreads {
+        static final Method FACTORY = lookup();
+
+        private static Method lookup() {
+            try {
+                return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            } catch (NoSuchMethodException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package Assignment1.src;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what a thread does while it waits on a full or empty RingBuffer.
+ * Ring buffers never block on a lock, so a waiting thread retries in a loop and calls
+ * idle() between attempts. The strategy trades CPU usage against wake-up latency.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    /**
+     * Called each time an attempt to put or take fails.
+     * @param attempt Number of consecutive failed attempts so far (starts at 0).
+     */
+    void idle(int attempt);
+
+    /**
+     * Lowest latency, burns a full core while waiting.
+     */
+    static WaitStrategy busySpin() {
+        return attempt -> Thread.onSpinWait();
+    }
+
+    /**
+     * Gives the core to other runnable threads between attempts.
+     */
+    static WaitStrategy yielding() {
+        return attempt -> Thread.yield();
+    }
+
+    /**
+     * Sleeps briefly between attempts. Lowest CPU usage, highest wake-up latency.
+     */
+    static WaitStrategy parking() {
+        return attempt -> LockSupport.parkNanos(1_000);
+    }
+
+    /**
+     * Looks up a strategy by its command line name: spin, yield or park.
+     */
+    static WaitStrategy fromName(String name) {
+        switch (name) {
+            case "spin":
+                return busySpin();
+            case "yield":
+                return yielding();
+            case "park":
+                return parking();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+}
@@ -1,13 +1,42 @@
 package Assignment1.test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+import Assignment1.src.AsyncLog;
+import Assignment1.src.ChannelThroughput;
 import Assignment1.src.Consumer;
 import Assignment1.src.DataItem;
+import Assignment1.src.ElasticConsumerPool;
+import Assignment1.src.FlowConsumer;
+import Assignment1.src.FlowProducer;
+import Assignment1.src.IntChannel;
+import Assignment1.src.KeyPartitioner;
+import Assignment1.src.LatencyHistogram;
+import Assignment1.src.MpmcRingBuffer;
+import Assignment1.src.PartitionedTopology;
+import Assignment1.src.Pipeline;
+import Assignment1.src.PipelineException;
+import Assignment1.src.PipelineMetrics;
 import Assignment1.src.Producer;
+import Assignment1.src.ProducerConsumerTopology;
+import Assignment1.src.QueueType;
+import Assignment1.src.RingBuffer;
+import Assignment1.src.SpillingQueue;
+import Assignment1.src.SpscRingBuffer;
+import Assignment1.src.ThreadMode;
+import Assignment1.src.WaitStrategy;
 
 /**
  * Comprehensive manual test suite for Producer-Consumer system.
@@ -26,6 +55,20 @@ public class ManualTests {
         runTest("Test Consumer Stops on Stop Item", ManualTests::testConsumerStop);
         runTest("Test Producer Terminates Cleanly", ManualTests::testProducerTermination);
         runTest("Stress Test with High Load and Small Queue", ManualTests::testStress);
+        runTest("Test Multi-Producer Multi-Consumer Shutdown", ManualTests::testMultiProducerMultiConsumer);
+        runTest("Test Lock-Free Ring Buffers", ManualTests::testRingBuffers);
+        runTest("Test Batch Draining Honors Mid-Batch Stop", ManualTests::testBatchDraining);
+        runTest("Test Concurrency Limit and Thread Modes", ManualTests::testConcurrencyLimit);
+        runTest("Test Primitive Channels: End of Stream and Zero Garbage", ManualTests::testPrimitiveChannels);
+        runTest("Test Multi-Stage Pipeline", ManualTests::testPipeline);
+        runTest("Test Pipeline Failure Propagation", ManualTests::testPipelineFailure);
+        runTest("Test Async Logging Levels and Sampling", ManualTests::testAsyncLog);
+        runTest("Test Queue Metrics and Latency Histogram", ManualTests::testMetrics);
+        runTest("Test Key Partitioning Preserves Per-Key Order", ManualTests::testKeyPartitioning);
+        runTest("Test Hot Key Rebalancing", ManualTests::testRebalancing);
+        runTest("Test Flow Publisher Demand and Broadcast", ManualTests::testFlowPublisher);
+        runTest("Test Spill-to-Disk Queue Order, Recycling and Restart", ManualTests::testSpillingQueue);
+        runTest("Test Elastic Pool Scales With Bursty Load", ManualTests::testElasticPool);
 
         System.out.println("\nAll tests execution complete.");
     }
@@ -206,6 +249,708 @@ public class ManualTests {
     }
 
 
+    // --------------------------------------------------------------------------
+    // Test 8: N producers / M consumers - every consumer stops, nothing lost or duplicated
+    // --------------------------------------------------------------------------
+    private static void testMultiProducerMultiConsumer() throws Exception {
+        assertExactlyOnce(ProducerConsumerTopology.builder().producers(3).consumers(4), 3);
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 9: Lock-free ring buffers deliver every item exactly once
+    // --------------------------------------------------------------------------
+    private static void testRingBuffers() throws Exception {
+
+        // SPSC fast path: one producer, one consumer, tiny buffer forces wrap-around
+        assertExactlyOnce(ProducerConsumerTopology.builder()
+                .queueType(QueueType.SPSC_RING)
+                .waitStrategy(WaitStrategy.busySpin()), 1);
+
+        // MPMC variant under contention from both sides
+        assertExactlyOnce(ProducerConsumerTopology.builder()
+                .producers(3)
+                .consumers(4)
+                .queueType(QueueType.MPMC_RING)
+                .waitStrategy(WaitStrategy.parking()), 3);
+
+        // Capacity is rounded up to a power of two and enforced
+        RingBuffer<DataItem> ring = new MpmcRingBuffer<>(3, WaitStrategy.yielding());
+        assertEquals(4, ring.capacity(), "Capacity should round up to 4");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(new DataItem(i)), "Offer should succeed while not full");
+        }
+        assertTrue(!ring.offer(new DataItem(99)), "Offer must fail when full");
+        assertEquals(0, ring.poll().getValue(), "Ring buffer must be FIFO");
+
+        // A single-slot MPMC ring is widened to two slots and still refuses a third item
+        RingBuffer<DataItem> tiny = new MpmcRingBuffer<>(1, WaitStrategy.yielding());
+        assertEquals(2, tiny.capacity(), "MPMC capacity 1 should round up to 2");
+        assertTrue(tiny.offer(new DataItem(1)) && tiny.offer(new DataItem(2)), "Two offers should fit");
+        assertTrue(!tiny.offer(new DataItem(3)), "Third offer must fail, not overwrite");
+        assertEquals(1, tiny.poll().getValue(), "First item survives");
+        assertEquals(2, tiny.poll().getValue(), "Second item survives");
+        assertTrue(tiny.poll() == null, "Drained ring is empty");
+
+        // Iteration walks a snapshot of the remaining items in queue order
+        StringBuilder seen = new StringBuilder();
+        for (DataItem item : ring) seen.append(item.getValue());
+        assertTrue("123".equals(seen.toString()), "Iterator should see 1, 2, 3 but saw " + seen);
+
+        // An empty SPSC buffer has nothing to peek at
+        RingBuffer<DataItem> spsc = new SpscRingBuffer<>(2, WaitStrategy.yielding());
+        assertTrue(spsc.peek() == null, "Peek on an empty buffer returns null");
+        spsc.offer(new DataItem(7));
+        assertEquals(7, spsc.peek().getValue(), "Peek returns the published head");
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 10: Batched consumer stops on a pill in the middle of a batch
+    // --------------------------------------------------------------------------
+    private static void testBatchDraining() throws Exception {
+
+        BlockingQueue<DataItem> queue = new ArrayBlockingQueue<>(10);
+        DataItem stopItem = new DataItem(null);
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Integer> consumed = new ArrayList<>();
+
+        // 3 items, our pill, then a second consumer's pill - all in one drain
+        queue.put(new DataItem(1));
+        queue.put(new DataItem(2));
+        queue.put(new DataItem(3));
+        queue.put(stopItem);
+        queue.put(stopItem);
+
+        Consumer consumer = new Consumer(queue, stopItem, 8, 1_000) {
+            @Override
+            protected void processBatch(List<DataItem> batch) {
+                batchSizes.add(batch.size());
+                for (DataItem item : batch) consumed.add(item.getValue());
+            }
+        };
+        Thread t = new Thread(consumer);
+        t.start();
+        t.join(2000);
+
+        assertTrue(!t.isAlive(), "Batched consumer must stop on the pill");
+        assertEquals(1, batchSizes.size(), "Items before the pill form one batch");
+        assertEquals(3, consumed.size(), "All items ahead of the pill are processed");
+        assertEquals(1, queue.size(), "The other consumer's pill must be put back");
+        assertTrue(queue.peek() == stopItem, "Returned item is the pill");
+
+        // End to end: batched producers and consumers over the MPMC ring, several pills
+        assertExactlyOnceWith(ProducerConsumerTopology.builder()
+                .producers(3)
+                .consumers(4)
+                .queueType(QueueType.MPMC_RING)
+                .producerBatch(7), 3, 5);
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 11: Shared semaphore caps in-flight processing; virtual mode when available
+    // --------------------------------------------------------------------------
+    private static void testConcurrencyLimit() throws Exception {
+
+        int limit = 2;
+        Semaphore inFlight = new Semaphore(limit);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        for (ThreadMode mode : ThreadMode.values()) {
+            if (!mode.isSupported()) continue; // VIRTUAL needs Java 21+
+
+            ProducerConsumerTopology.RunReport report = ProducerConsumerTopology.builder()
+                    .producers(2)
+                    .consumers(8)
+                    .itemsPerProducer(40)
+                    .queueSize(10)
+                    .threadMode(mode)
+                    .consumerFactory((q, stop) -> new Consumer(q, stop, 1, 0, inFlight) {
+                        @Override
+                        protected void process(DataItem item) throws InterruptedException {
+                            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                            Thread.sleep(2);
+                            active.decrementAndGet();
+                        }
+                    })
+                    .build()
+                    .run();
+
+            assertTrue(report.isCompleted(), mode + " run should complete");
+            assertEquals(80, (int) report.getItemsConsumed(), mode + " consumed count");
+        }
+        assertTrue(peak.get() <= limit, "At most " + limit + " consumers may process at once, saw " + peak.get());
+
+        // A cap of zero would let no consumer run at all
+        try {
+            ProducerConsumerTopology.builder().maxConcurrency(0);
+            throw new Exception("Assertion Failed: maxConcurrency(0) must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Rejected like the other builder settings
+        }
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 12: Primitive channels carry any value, signal end of stream, allocate nothing
+    // --------------------------------------------------------------------------
+    private static void testPrimitiveChannels() throws Exception {
+
+        // Values that a sentinel-based protocol could not carry
+        IntChannel channel = new IntChannel(4, WaitStrategy.yielding());
+        channel.putAll(new int[] {0, -1, Integer.MIN_VALUE}, 0, 3);
+        channel.close();
+
+        List<Integer> received = new ArrayList<>();
+        assertEquals(3, channel.drainTo(received::add, 10), "All values before close are delivered");
+        assertEquals(-1, channel.drainTo(received::add, 10), "Closed and empty channel reports end of stream");
+        assertEquals(Integer.MIN_VALUE, received.get(2), "Payload preserved");
+
+        // Steady state: a few hundred bytes of bookkeeping at most, not bytes per item
+        int items = 2_000_000;
+        ChannelThroughput.Result ints = ChannelThroughput.intChannel(items, items, 1024, WaitStrategy.yielding());
+        ChannelThroughput.Result longs = ChannelThroughput.longChannel(items, items, 1024, WaitStrategy.yielding());
+
+        assertTrue(ints.isComplete() && longs.isComplete(), "Every value must arrive");
+        if (ints.getProducerBytes() >= 0) { // -1 when the JVM has no allocation counters
+            assertTrue(ints.getProducerBytes() + ints.getConsumerBytes() < 4096,
+                    "IntChannel steady state must not allocate: " + ints);
+            assertTrue(longs.getProducerBytes() + longs.getConsumerBytes() < 4096,
+                    "LongChannel steady state must not allocate: " + longs);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 13: Multi-stage pipeline delivers every item once through all stages
+    // --------------------------------------------------------------------------
+    private static void testPipeline() throws Exception {
+
+        List<Integer> source = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) source.add(i);
+        Set<Integer> written = ConcurrentHashMap.newKeySet();
+
+        Pipeline.Result result = Pipeline.from(source)
+                .stage("parse", 2, 4, (Integer i) -> new DataItem(i))
+                .stage("enrich", 5, 2, (DataItem item) -> item.getValue() % 10 == 0 ? null : item) // drop every 10th
+                .sink("write", 3, 4, (DataItem item) -> written.add(item.getValue()))
+                .run();
+
+        assertEquals(500, (int) result.getProcessed("parse"), "parse count");
+        assertEquals(500, (int) result.getProcessed("enrich"), "enrich count");
+        assertEquals(450, (int) result.getProcessed("write"), "write count after filtering");
+        assertEquals(450, written.size(), "Each remaining item written exactly once");
+
+        // A builder reused for a second pipeline must not change the first one
+        Pipeline.Builder<Integer> shared = Pipeline.from(source).stage("parse", 1, 4, (Integer i) -> i);
+        Pipeline first = shared.sink("count", 1, 4, (Integer i) -> { });
+        shared.sink("other", 1, 4, (Integer i) -> { });
+        Pipeline.Result firstResult = first.run();
+        assertEquals(500, (int) firstResult.getProcessed("count"), "First pipeline keeps its own sink");
+        try {
+            firstResult.getProcessed("other");
+            throw new Exception("Assertion Failed: the second sink leaked into the first pipeline");
+        } catch (IllegalArgumentException expected) {
+            // "other" belongs to the second pipeline only
+        }
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 14: A failing stage stops the whole pipeline and surfaces the cause
+    // --------------------------------------------------------------------------
+    private static void testPipelineFailure() throws Exception {
+
+        List<Integer> source = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) source.add(i);
+
+        PipelineException[] thrown = new PipelineException[1];
+        Thread runner = new Thread(() -> {
+            try {
+                Pipeline.from(source)
+                        .stage("parse", 1, 2, (Integer i) -> i)
+                        .stage("enrich", 2, 2, (Integer i) -> {
+                            if (i == 50) throw new IllegalStateException("bad record " + i);
+                            return i;
+                        })
+                        .sink("write", 1, 2, (Integer i) -> Thread.sleep(1))
+                        .run();
+            } catch (PipelineException ex) {
+                thrown[0] = ex;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        runner.start();
+        runner.join(5000);
+
+        assertTrue(!runner.isAlive(), "Pipeline must stop, not hang, after a failure");
+        assertTrue(thrown[0] != null, "run() must throw PipelineException");
+        assertTrue("enrich".equals(thrown[0].getStageName()), "Failing stage is reported");
+        assertTrue(thrown[0].getCause() instanceof IllegalStateException, "Original cause is kept");
+
+        // An Error (not just an Exception) must stop the pipeline the same way
+        Throwable[] errorRun = new Throwable[1];
+        Thread errorRunner = new Thread(() -> {
+            try {
+                Pipeline.from(source)
+                        .stage("check", 2, 2, (Integer i) -> {
+                            if (i == 20) throw new AssertionError("broken invariant at " + i);
+                            return i;
+                        })
+                        .sink("write", 1, 2, (Integer i) -> { })
+                        .run();
+            } catch (PipelineException ex) {
+                errorRun[0] = ex;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        errorRunner.start();
+        errorRunner.join(5000);
+
+        assertTrue(!errorRunner.isAlive(), "Pipeline must stop, not hang, after a stage throws an Error");
+        assertTrue(errorRun[0] instanceof PipelineException, "run() must throw PipelineException for an Error");
+        assertTrue(errorRun[0].getCause() instanceof AssertionError, "The Error is kept as the cause");
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 15: Async log filters by level, samples every Nth event, flushes in order
+    // --------------------------------------------------------------------------
+    private static void testAsyncLog() throws Exception {
+
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(captured, true);
+        AsyncLog.setOutput(capture, capture);
+        try {
+            AsyncLog.configure(AsyncLog.Level.INFO, 3);
+            Thread logger = new Thread(() -> {
+                for (int i = 1; i <= 9; i++) {
+                    AsyncLog.sampled(AsyncLog.Level.INFO, "sample-", i);
+                }
+                AsyncLog.log(AsyncLog.Level.DEBUG, "hidden", null);
+                AsyncLog.error("error-line", null);
+            });
+            logger.start();
+            logger.join();
+            AsyncLog.flush();
+        } finally {
+            AsyncLog.setOutput(System.out, System.err);
+            AsyncLog.configure(AsyncLog.Level.INFO, 1);
+        }
+
+        String text = captured.toString();
+        assertTrue(text.contains("sample-3") && text.contains("sample-6") && text.contains("sample-9"),
+                "Every 3rd sampled event is logged");
+        assertTrue(!text.contains("sample-1") && !text.contains("sample-2"), "Other sampled events are skipped");
+        assertTrue(!text.contains("hidden"), "Events below the level are discarded");
+        assertTrue(text.indexOf("sample-3") < text.indexOf("sample-9"), "Per-thread order is kept");
+        assertTrue(text.contains("error-line"), "Errors are logged");
+
+        // Buffer sizes must be powers of two; a rejected size leaves the old one in place
+        for (int bad : new int[] {0, -8, 100}) {
+            try {
+                AsyncLog.setBufferSize(bad);
+                throw new Exception("Assertion Failed: setBufferSize(" + bad + ") must be rejected");
+            } catch (IllegalArgumentException expected) {
+                // Rejected like configure() rejects a non-positive sampling rate
+            }
+        }
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 16: Histogram percentiles are accurate; instrumented queue counts every item
+    // --------------------------------------------------------------------------
+    private static void testMetrics() throws Exception {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 1; v <= 100_000; v++) histogram.record(v);
+        assertTrue(Math.abs(histogram.getValueAtPercentile(50) - 50_000) <= 50_000 / 64,
+                "p50 within bucket error: " + histogram.getValueAtPercentile(50));
+        assertTrue(Math.abs(histogram.getValueAtPercentile(99) - 99_000) <= 99_000 / 64,
+                "p99 within bucket error: " + histogram.getValueAtPercentile(99));
+        assertEquals(100_000, (int) histogram.getMax(), "Max is exact");
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        ProducerConsumerTopology.RunReport report = ProducerConsumerTopology.builder()
+                .producers(2)
+                .consumers(2)
+                .itemsPerProducer(50)
+                .queueSize(4)
+                .metrics(metrics)
+                .build()
+                .run();
+
+        PipelineMetrics.Snapshot snapshot = report.getMetrics();
+        assertTrue(snapshot != null, "Report carries a metrics snapshot");
+        // 100 items + one stop item per consumer
+        assertEquals(102, (int) snapshot.getProduced(), "Every put is counted");
+        assertEquals(102, (int) snapshot.getConsumed(), "Every take is counted");
+        assertTrue(snapshot.getMaxOccupancy() <= 4, "Occupancy never exceeds capacity");
+        assertTrue(snapshot.getLatencyP50() > 0 && snapshot.getLatencyP50() <= snapshot.getLatencyP999(),
+                "Wait latency percentiles are recorded and ordered");
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 17: Several consumers, but items with the same key stay in order
+    // --------------------------------------------------------------------------
+    private static void testKeyPartitioning() throws Exception {
+
+        for (boolean rebalance : new boolean[] {false, true}) {
+            int keys = 7;
+            Map<Integer, Integer> lastSeen = new ConcurrentHashMap<>();
+            AtomicInteger outOfOrder = new AtomicInteger();
+            AtomicInteger processed = new AtomicInteger();
+
+            PartitionedTopology.Builder builder = PartitionedTopology.builder()
+                    .producers(1)
+                    .partitions(4)
+                    .itemsPerProducer(300)
+                    .queueSize(4)
+                    .timeoutSeconds(20)
+                    .keyFunction(item -> item.getValue() % keys)
+                    .handler(item -> {
+                        int key = item.getValue() % keys;
+                        Integer previous = lastSeen.put(key, item.getValue());
+                        if (previous != null && previous > item.getValue()) outOfOrder.incrementAndGet();
+                        processed.incrementAndGet();
+                        if (key == 0) Thread.sleep(1); // one slow key to create skew
+                    });
+            if (rebalance) builder.rebalance(0);
+
+            PartitionedTopology.SkewReport report = builder.build().run();
+
+            assertTrue(report.isCompleted(), "All partition consumers terminate");
+            assertEquals(300, processed.get(), "Every item processed once");
+            assertEquals(0, outOfOrder.get(), "Per-key order must hold (rebalance=" + rebalance + ")");
+            long routed = 0;
+            for (long c : report.getItemsPerPartition()) routed += c;
+            assertEquals(300, (int) routed, "Skew report accounts for every item");
+        }
+
+        // A failing producer must not stop the others: their items all arrive before the stop items
+        Set<Integer> handled = ConcurrentHashMap.newKeySet();
+        PartitionedTopology.SkewReport afterFailure = PartitionedTopology.builder()
+                .producers(3)
+                .partitions(2)
+                .itemsPerProducer(50)
+                .queueSize(2)
+                .timeoutSeconds(20)
+                .keyFunction(item -> {
+                    if (item.getValue() == 3) throw new IllegalStateException("bad key for " + item.getValue());
+                    return item.getValue() % 4;
+                })
+                .handler(item -> handled.add(item.getValue()))
+                .build()
+                .run();
+
+        assertTrue(afterFailure.isCompleted(), "Consumers terminate after a producer failed");
+        for (int value = 51; value <= 150; value++) {
+            assertTrue(handled.contains(value), "Item " + value + " of a healthy producer was lost");
+        }
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 18: A key with nothing in flight moves off an overloaded partition
+    // --------------------------------------------------------------------------
+    private static void testRebalancing() throws Exception {
+
+        List<BlockingQueue<DataItem>> queues = new ArrayList<>();
+        queues.add(new ArrayBlockingQueue<>(10));
+        queues.add(new ArrayBlockingQueue<>(10));
+        // Key = value % 2, so key 0 starts on partition 0 and key 1 on partition 1
+        KeyPartitioner partitioner = new KeyPartitioner(queues, item -> item.getValue() % 2, true, 1);
+
+        DataItem a = new DataItem(0), b = new DataItem(2), c = new DataItem(4);
+        partitioner.put(a);
+        partitioner.put(b);
+        partitioner.put(c);
+        assertEquals(3, queues.get(0).size(), "Key 0 stays put while its items are in flight");
+        assertEquals(0, (int) partitioner.getKeyMoves(), "No moves yet");
+
+        // Items finished, but partition 0 is still 3 deep (as if other keys were queued)
+        partitioner.completed(a);
+        partitioner.completed(b);
+        partitioner.completed(c);
+        partitioner.put(new DataItem(6));
+        assertEquals(1, queues.get(1).size(), "Idle key moves to the shallow partition");
+        assertEquals(1, (int) partitioner.getKeyMoves(), "Move is counted");
+
+        // A rejected offer must not leave the key looking busy
+        List<BlockingQueue<DataItem>> tiny = new ArrayList<>();
+        tiny.add(new ArrayBlockingQueue<>(1));
+        tiny.add(new ArrayBlockingQueue<>(1));
+        KeyPartitioner single = new KeyPartitioner(tiny, item -> 0, true, 0);
+        assertTrue(single.offer(new DataItem(1)), "First offer fits");
+        assertTrue(!single.offer(new DataItem(2)), "Second offer finds the partition full");
+        DataItem taken = single.poll();
+        assertEquals(1, taken.getValue(), "Reading through the partitioner scans the partitions");
+        single.completed(taken);
+        tiny.get(0).put(new DataItem(99)); // Another key's item keeps partition 0 busy
+        assertTrue(single.offer(new DataItem(3)), "Offer after the key went idle");
+        assertEquals(1, (int) single.getKeyMoves(), "Idle key moves: the rejected offer was rolled back");
+        assertEquals(1, (int) single.getRoutedCounts()[1], "Routed counts skip the rejected item");
+    }
+
+
+    // --------------------------------------------------------------------------
+    // Test 19: Flow subscribers with different demand each get every item once, in order
+    // --------------------------------------------------------------------------
+    private static void testFlowPublisher() throws Exception {
+
+        int count = 2_000;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            FlowProducer publisher = new FlowProducer(1, count, pool, 4);
+            List<List<Integer>> received = new ArrayList<>();
+            List<FlowConsumer> subscribers = new ArrayList<>();
+            for (int prefetch : new int[] {1, 64}) {
+                List<Integer> values = new ArrayList<>();
+                received.add(values);
+                FlowConsumer subscriber = new FlowConsumer(prefetch) {
+                    @Override
+                    protected void process(DataItem item) {
+                        values.add(item.getValue()); // onNext calls are serialized
+                    }
+                };
+                subscribers.add(subscriber);
+                publisher.subscribe(subscriber);
+            }
+            publisher.start();
+
+            for (int s = 0; s < subscribers.size(); s++) {
+                assertTrue(subscribers.get(s).await(10, TimeUnit.SECONDS), "Subscriber " + s + " completed");
+                assertTrue(subscribers.get(s).getError() == null, "Subscriber " + s + " has no error");
+                assertEquals(count, (int) subscribers.get(s).getProcessedCount(), "Subscriber " + s + " count");
+                List<Integer> values = received.get(s);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(i + 1, values.get(i), "Subscriber " + s + " order at " + i);
+                }
+            }
+
+            // A non-positive request() is rejected with onError (rule 3.9)
+            FlowProducer rejecting = new FlowProducer(1, 10, pool, 4);
+            FlowConsumer invalid = new FlowConsumer(1) {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(0);
+                }
+            };
+            rejecting.subscribe(invalid);
+            assertTrue(invalid.await(10, TimeUnit.SECONDS), "Invalid request terminates the stream");
+            assertTrue(invalid.getError() instanceof IllegalArgumentException, "request(0) signals onError");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // --------------------------------------------------------------------------
+    // Test 20: Spilled items keep FIFO order, segments are recycled, restart replays
+    // --------------------------------------------------------------------------
+    private static void testSpillingQueue() throws Exception {
+
+        Path dir = Files.createTempDirectory("spill-test");
+        try {
+            DataItem stopItem = new DataItem(null);
+            SpillingQueue queue = new SpillingQueue(3, dir, 4, 3);
+            for (int i = 1; i <= 10; i++) {
+                assertTrue(queue.offer(new DataItem(i)), "Offer " + i + " does not block");
+            }
+            queue.put(stopItem);
+            assertEquals(8, queue.getDiskCount(), "Everything past the memory tier is on disk");
+            for (int i = 11; i <= 14; i++) {
+                queue.put(new DataItem(i));
+            }
+            assertTrue(!queue.offer(new DataItem(15)), "Both tiers full: offer fails");
+
+            // Iteration sees memory, then disk, and leaves everything in place
+            int expected = 1;
+            for (DataItem item : queue) {
+                if (item == stopItem) {
+                    assertEquals(11, expected, "Stop item sits between 10 and 11");
+                    continue;
+                }
+                assertEquals(expected++, item.getValue(), "Iterator order");
+            }
+            assertEquals(15, queue.size(), "Iterating does not consume");
+
+            for (int i = 1; i <= 10; i++) {
+                assertEquals(i, queue.take().getValue(), "FIFO across memory and disk");
+            }
+            assertTrue(queue.take() == stopItem, "Spilled stop item keeps its identity");
+            queue.put(stopItem); // Left behind on disk, like a pill nobody took
+            queue.close();
+            try {
+                queue.take();
+                throw new Exception("Assertion Failed: spilled items must not be read after close");
+            } catch (IllegalStateException closedError) {
+                // The segments are unmapped; the items wait on disk for the next run
+            }
+
+            SpillingQueue reopened = new SpillingQueue(3, dir, 4, 3);
+            assertEquals(4, reopened.size(), "Unconsumed items survive a restart, stale stop item dropped");
+            for (int i = 11; i <= 14; i++) {
+                assertEquals(i, reopened.take().getValue(), "Replay resumes in order at the first unconsumed item");
+            }
+            assertTrue(reopened.poll() == null, "Nothing else is replayed");
+
+            // Spilling many times over reuses a bounded set of segment files
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 15; i++) {
+                    reopened.put(new DataItem(i));
+                }
+                for (int i = 0; i < 15; i++) {
+                    assertEquals(i, reopened.take().getValue(), "Round " + round + " order");
+                }
+            }
+            assertTrue(reopened.getSegmentFileCount() <= 5, "Segments are recycled, not piled up");
+            reopened.close();
+
+            // A spill directory replaces the queue, so a second queue choice is an error
+            try {
+                ProducerConsumerTopology.builder().spillDirectory(dir).queueType(QueueType.MPMC_RING).build();
+                throw new Exception("Assertion Failed: --spill-dir with --queue mpmc must be rejected");
+            } catch (IllegalArgumentException expectedConflict) {
+                // Reported instead of silently ignoring the queue type
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------
+    // Test 21: Elastic pool grows for a burst, shrinks when idle, loses nothing
+    // --------------------------------------------------------------------------
+    private static void testElasticPool() throws Exception {
+
+        int bursts = 3;
+        int burstSize = 80;
+
+        // Bursts of 2 ms items separated by idle gaps: the pool must grow, then shrink back
+        ElasticConsumerPool.Builder elastic = ElasticConsumerPool.builder()
+                .minConsumers(1).maxConsumers(8)
+                .scaleUpDepth(2).scaleDownUtilization(0.5)
+                .checkIntervalMillis(5).cooldownMillis(5, 20);
+        ElasticConsumerPool.Stats stats = runBurstyLoad(elastic, bursts, burstSize, 1);
+        assertTrue(stats.getPeakConsumers() > 1 && stats.getPeakConsumers() <= 8,
+                "Pool grew above its minimum, within its maximum: " + stats);
+        assertTrue(stats.getScaleUps() > 0 && stats.getScaleDowns() > 0, "Pool scaled both ways: " + stats);
+        assertEquals(bursts * burstSize, (int) stats.getProcessed(), "Elastic pool processed every item");
+
+        // With min == max there is nothing to scale
+        ElasticConsumerPool.Builder fixed = ElasticConsumerPool.builder().minConsumers(2).maxConsumers(2);
+        ElasticConsumerPool.Stats fixedStats = runBurstyLoad(fixed, bursts, burstSize, 2);
+        assertEquals(2, fixedStats.getPeakConsumers(), "Fixed pool keeps its size");
+        assertEquals(0, fixedStats.getScaleUps() + fixedStats.getScaleDowns(), "Fixed pool never scales");
+        assertEquals(bursts * burstSize, (int) fixedStats.getProcessed(), "Fixed pool processed every item");
+
+        // Shutting down a pool that was never started has nothing to stop
+        ElasticConsumerPool unused = ElasticConsumerPool.builder().build(new ArrayBlockingQueue<>(1));
+        assertTrue(unused.shutdown(1, TimeUnit.SECONDS), "Shutdown without start");
+
+        // Shutdown while the controller is scaling up must not start consumers it never stops
+        for (int round = 0; round < 20; round++) {
+            BlockingQueue<DataItem> backlog = new ArrayBlockingQueue<>(100);
+            ElasticConsumerPool busy = ElasticConsumerPool.builder()
+                    .minConsumers(1).maxConsumers(8)
+                    .scaleUpDepth(1).checkIntervalMillis(1).cooldownMillis(0, 1000)
+                    .handler(item -> Thread.sleep(1))
+                    .build(backlog);
+            busy.start();
+            for (int i = 0; i < 50; i++) backlog.put(new DataItem(i));
+            assertTrue(busy.shutdown(10, TimeUnit.SECONDS), "Shutdown during scale-up, round " + round);
+            assertEquals(0, busy.getActiveConsumers(), "No consumer outlives shutdown, round " + round);
+            try {
+                busy.start();
+                throw new Exception("Assertion Failed: a shut-down pool must not restart");
+            } catch (IllegalStateException restartError) {
+                // start() after shutdown() is rejected
+            }
+        }
+    }
+
+    /**
+     * Feeds bursts of burstSize items (2 ms of work each) into a pool built from the given
+     * builder, 300 ms apart, then waits for the pool to settle at idleConsumers before
+     * shutting it down. Checks that every item was handled exactly once.
+     */
+    private static ElasticConsumerPool.Stats runBurstyLoad(ElasticConsumerPool.Builder builder, int bursts,
+                                                           int burstSize, int idleConsumers) throws Exception {
+        int total = bursts * burstSize;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        BlockingQueue<DataItem> queue = new ArrayBlockingQueue<>(total);
+
+        ElasticConsumerPool pool = builder.handler(item -> {
+            Thread.sleep(2);
+            if (!seen.add(item.getValue())) duplicates.incrementAndGet();
+        }).build(queue);
+        pool.start();
+        for (int b = 0; b < bursts; b++) {
+            for (int i = b * burstSize; i < (b + 1) * burstSize; i++) {
+                queue.put(new DataItem(i));
+            }
+            Thread.sleep(300);
+        }
+        // Poll instead of sleeping a fixed time, so a slow machine only makes this longer
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((pool.getActiveConsumers() != idleConsumers || !queue.isEmpty()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(idleConsumers, pool.getActiveConsumers(), "Pool settles back when idle");
+        assertTrue(pool.shutdown(10, TimeUnit.SECONDS), "Pool shut down cleanly");
+        assertEquals(0, duplicates.get(), "No item processed twice");
+        assertEquals(total, seen.size(), "Every item processed");
+        return pool.getStats();
+    }
+
+    /**
+     * Runs the topology with 100 items per producer and checks that every value
+     * 1..total was processed exactly once and that all consumers terminated.
+     */
+    private static void assertExactlyOnce(ProducerConsumerTopology.Builder builder, int producers) throws Exception {
+        assertExactlyOnceWith(builder, producers, 1);
+    }
+
+    private static void assertExactlyOnceWith(ProducerConsumerTopology.Builder builder, int producers,
+                                              int consumerBatchSize) throws Exception {
+
+        int itemsPerProducer = 100;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        ProducerConsumerTopology.RunReport report = builder
+                .itemsPerProducer(itemsPerProducer)
+                .queueSize(3)
+                .timeoutSeconds(20)
+                .consumerFactory((q, stop) -> new Consumer(q, stop, consumerBatchSize, 100) {
+                    @Override
+                    protected void process(DataItem item) {
+                        if (!seen.add(item.getValue())) duplicates.incrementAndGet();
+                    }
+                })
+                .build()
+                .run();
+
+        int total = producers * itemsPerProducer;
+        assertTrue(report.isCompleted(), "All consumers should terminate");
+        assertEquals(0, duplicates.get(), "No item may be processed twice");
+        assertEquals(total, seen.size(), "Every produced item must be consumed");
+        assertEquals(total, (int) report.getItemsConsumed(), "Reported consumed count");
+        for (int v = 1; v <= total; v++) {
+            assertTrue(seen.contains(v), "Missing item " + v);
+        }
+    }
+
+
     // --------------------------------------------------------------------------
     // Helper assertion and test runner functions
     // --------------------------------------------------------------------------
@@ -0,0 +1,132 @@
+package Assignment2.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Assignment2.src.AggregationEngine;
+import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesRecord;
+
+/**
+ * Compares the six SalesAnalytics stream methods (one pass each) with the same six
+ * aggregates registered on one AggregationEngine (one pass in total).
+ *
+ * The dataset is data/sales.csv repeated --scale times, so the scan is long enough to
+ * measure. Warm-up rounds are discarded to let the JIT compile both paths; then the
+ * mean and standard deviation of the measured rounds are printed.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.AggregationBenchmark --scale 10 --warmup 5 --iterations 10
+ */
+public class AggregationBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) {
+        String file = "data/sales.csv";
+        int scale = 10;
+        int warmup = 5;
+        int iterations = 10;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file":
+                    file = args[++i];
+                    break;
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<SalesRecord> base = new SalesDataLoader().load(file);
+        List<SalesRecord> records = new ArrayList<>(base.size() * scale);
+        for (int s = 0; s < scale; s++) {
+            records.addAll(base);
+        }
+        System.out.printf("%,d records, %d warm-up and %d measured rounds%n", records.size(), warmup, iterations);
+
+        for (int w = 0; w < warmup; w++) {
+            runStreams(records);
+            runEngine(records);
+        }
+        double[] streams = new double[iterations];
+        double[] engine = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            streams[it] = runStreams(records);
+            engine[it] = runEngine(records);
+        }
+
+        System.out.printf("%-26s %10s %8s%n", "path", "ms", "+/-");
+        System.out.printf("%-26s %10.1f %8.1f%n", "streams (6 passes)", mean(streams), stddev(streams));
+        System.out.printf("%-26s %10.1f %8.1f%n", "engine (1 pass)", mean(engine), stddev(engine));
+        System.out.printf("speedup: %.2fx%n", mean(streams) / mean(engine));
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * @return Elapsed milliseconds.
+     */
+    static double runStreams(List<SalesRecord> records) {
+        SalesAnalytics analytics = new SalesAnalytics();
+        long start = System.nanoTime();
+        sink += analytics.getTotalRevenue(records);
+        sink += analytics.getRevenueByItem(records).size();
+        sink += analytics.getOrdersByCustomer(records).size();
+        sink += analytics.getRevenueByDate(records).size();
+        sink += analytics.getMostSoldItem(records).map(e -> e.getValue()).orElse(0);
+        sink += analytics.getTotalTaxCollected(records);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * @return Elapsed milliseconds, including building the same six results.
+     */
+    static double runEngine(List<SalesRecord> records) {
+        long start = System.nanoTime();
+        AggregationEngine engine = new AggregationEngine();
+        AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedDoubleSum<String> revenueByItem =
+                engine.sumBy(SalesRecord::getItem, SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedCount<String> ordersByCustomer = engine.countBy(SalesRecord::getEmailAddress);
+        AggregationEngine.GroupedDoubleSum<?> revenueByDate =
+                engine.sumBy(SalesRecord::getOrderDate, SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedIntSum<String> quantityByItem =
+                engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+        AggregationEngine.DoubleSum tax = engine.sum(SalesRecord::getTaxAmount);
+        engine.run(records);
+
+        sink += revenue.get();
+        sink += revenueByItem.toMap().size();
+        sink += ordersByCustomer.toMap().size();
+        sink += revenueByDate.toMap().size();
+        sink += quantityByItem.max().map(e -> e.getValue()).orElse(0);
+        sink += tax.get();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    static double stddev(double[] values) {
+        double m = mean(values);
+        double sq = 0;
+        for (double v : values) sq += (v - m) * (v - m);
+        return values.length > 1 ? Math.sqrt(sq / (values.length - 1)) : 0.0;
+    }
+}
@@ -0,0 +1,93 @@
+package Assignment2.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Assignment2.src.DateIndex;
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesRecord;
+
+/**
+ * Time per "revenue between two dates" query: a stream that filters and sums the records
+ * against a DateIndex lookup. Ranges are random pairs of dates within the data.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.DateIndexBenchmark --scale 10 --queries 200
+ */
+public class DateIndexBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) {
+        int scale = 10;
+        int queries = 200;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                case "--queries":
+                    queries = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<SalesRecord> base = new SalesDataLoader().load("data/sales.csv");
+        List<SalesRecord> records = new ArrayList<>(base.size() * scale);
+        for (int s = 0; s < scale; s++) {
+            records.addAll(base);
+        }
+
+        long start = System.nanoTime();
+        DateIndex index = DateIndex.of(records);
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+
+        long first = index.getFirstDate().toEpochDay();
+        int span = (int) (index.getLastDate().toEpochDay() - first + 1);
+        Random random = new Random(7);
+        LocalDate[][] ranges = new LocalDate[queries][2];
+        for (int q = 0; q < queries; q++) {
+            long a = first + random.nextInt(span);
+            long b = first + random.nextInt(span);
+            ranges[q][0] = LocalDate.ofEpochDay(Math.min(a, b));
+            ranges[q][1] = LocalDate.ofEpochDay(Math.max(a, b));
+        }
+
+        // Warm up both paths, then measure
+        double scanMicros = 0;
+        double indexMicros = 0;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (LocalDate[] range : ranges) {
+                sink += records.stream()
+                        .filter(r -> !r.getOrderDate().isBefore(range[0]) && !r.getOrderDate().isAfter(range[1]))
+                        .mapToDouble(SalesRecord::getLineRevenue)
+                        .sum();
+            }
+            scanMicros = (System.nanoTime() - start) / 1e3 / queries;
+
+            int repeat = 10_000;
+            start = System.nanoTime();
+            for (int k = 0; k < repeat; k++) {
+                for (LocalDate[] range : ranges) {
+                    sink += index.revenue(range[0], range[1]);
+                }
+            }
+            indexMicros = (System.nanoTime() - start) / 1e3 / queries / repeat;
+        }
+
+        System.out.printf("%,d records over %,d days; index built in %.1f ms%n", records.size(), span, buildMillis);
+        System.out.printf("%-22s %14s%n", "query", "us/query");
+        System.out.printf("%-22s %14.3f%n", "stream filter + sum", scanMicros);
+        System.out.printf("%-22s %14.3f%n", "DateIndex.revenue", indexMicros);
+        System.out.printf("speedup: %,.0fx%n", scanMicros / indexMicros);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+}
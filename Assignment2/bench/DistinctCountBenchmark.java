@@ -0,0 +1,88 @@
+package Assignment2.bench;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import Assignment2.src.DistinctCounts;
+import Assignment2.src.SalesRecord;
+
+/**
+ * Distinct customers and orders on a synthetic stream: the exact maps the stream methods
+ * build (a count per customer, a set of order numbers) against DistinctCounts. Reports
+ * the retained heap of each and the estimation error.
+ *
+ * Records are generated on the fly and never kept, so only the counting state stays
+ * on the heap: three lines per order, customers drawn uniformly, three years of dates.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.DistinctCountBenchmark --rows 3000000 --customers 1000000
+ */
+public class DistinctCountBenchmark {
+
+    public static void main(String[] args) {
+        int rows = 3_000_000;
+        int customers = 1_000_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--customers":
+                    customers = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long before = FootprintBenchmark.usedHeap();
+        long start = System.nanoTime();
+        Map<String, Long> ordersByCustomer = new HashMap<>();
+        Set<String> orderNumbers = new HashSet<>();
+        Random random = new Random(5);
+        for (int r = 0; r < rows; r++) {
+            SalesRecord record = next(r, random, customers);
+            ordersByCustomer.merge(record.getEmailAddress(), 1L, Long::sum);
+            orderNumbers.add(record.getSalesOrderNumber());
+        }
+        double exactMillis = (System.nanoTime() - start) / 1e6;
+        long exactBytes = FootprintBenchmark.usedHeap() - before;
+        long exactCustomers = ordersByCustomer.size();
+        long exactOrders = orderNumbers.size();
+        ordersByCustomer = null;
+        orderNumbers = null;
+
+        before = FootprintBenchmark.usedHeap();
+        start = System.nanoTime();
+        DistinctCounts counts = new DistinctCounts();
+        random = new Random(5);
+        for (int r = 0; r < rows; r++) {
+            counts.accept(next(r, random, customers));
+        }
+        double sketchMillis = (System.nanoTime() - start) / 1e6;
+        long sketchBytes = FootprintBenchmark.usedHeap() - before;
+
+        long customerEstimate = counts.estimate(DistinctCounts.Dimension.CUSTOMERS);
+        long orderEstimate = counts.estimate(DistinctCounts.Dimension.ORDERS);
+        System.out.printf("%,d rows, %,d distinct customers, %,d distinct orders%n", rows, exactCustomers, exactOrders);
+        System.out.printf("%-16s %10s %12s%n", "method", "ms", "heap MB");
+        System.out.printf("%-16s %10.1f %12.1f%n", "exact maps", exactMillis, exactBytes / 1e6);
+        System.out.printf("%-16s %10.1f %12.2f   (sketch registers: %,d bytes)%n",
+                "DistinctCounts", sketchMillis, sketchBytes / 1e6, counts.getMemoryBytes());
+        System.out.printf("customers: %,d estimated (%+.2f%%), orders: %,d estimated (%+.2f%%), standard error %.2f%%%n",
+                customerEstimate, 100.0 * (customerEstimate - exactCustomers) / exactCustomers,
+                orderEstimate, 100.0 * (orderEstimate - exactOrders) / exactOrders,
+                100 * counts.getStandardError());
+    }
+
+    private static SalesRecord next(int row, Random random, int customers) {
+        int customer = random.nextInt(customers);
+        return new SalesRecord("SO" + (row / 3), row % 3 + 1, LocalDate.of(2019, 1, 1).plusDays((row / 3) % (3 * 365)),
+                "Customer " + customer, "customer" + customer + "@example.com", "Item-" + random.nextInt(300),
+                1, 10.0, 0.8);
+    }
+}
@@ -0,0 +1,172 @@
+package Assignment2.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesRecord;
+import Assignment2.src.SalesTable;
+
+/**
+ * Heap used by --rows rows as a List<SalesRecord> and as a SalesTable, and the time of
+ * the six analytics on each.
+ *
+ * Rows come from loading data/sales.csv again and again. Each pass over the file gets
+ * its own order numbers and its own customers (name and email tagged with the pass
+ * number), so the number of distinct orders and customers grows with the row count as
+ * in a real history, instead of staying at the sample's few thousand; the 130 items are
+ * a catalogue and stay shared. Every SalesRecord has its own Strings, as it would after
+ * loading one big file. Heap is measured as used memory after System.gc() has stopped
+ * freeing anything, which is approximate but stable at this size.
+ *
+ * 10 million records need roughly 3.5 GB, so give the JVM room:
+ *   java -Xmx6g -cp out Assignment2.bench.FootprintBenchmark --rows 10000000
+ */
+public class FootprintBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) {
+        String file = "data/sales.csv";
+        int rows = 10_000_000;
+        int iterations = 5;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file":
+                    file = args[++i];
+                    break;
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Row objects
+        long before = usedHeap();
+        List<SalesRecord> records = loadRows(file, rows);
+        long listBytes = usedHeap() - before;
+        double[] listMillis = time(() -> runStreams(records), iterations);
+        records.clear();
+        ((ArrayList<SalesRecord>) records).trimToSize();
+
+        // Columns; built from the same reloads so no list of all rows is held meanwhile
+        before = usedHeap();
+        SalesTable.Builder builder = SalesTable.builder();
+        for (int pass = 0; builder.size() < rows; pass++) {
+            for (SalesRecord r : new SalesDataLoader().load(file)) {
+                if (builder.size() == rows) {
+                    break;
+                }
+                builder.add(synthetic(r, pass));
+            }
+        }
+        SalesTable table = builder.build();
+        builder = null;
+        long tableBytes = usedHeap() - before;
+        double[] tableMillis = time(() -> runColumns(table), iterations);
+
+        System.out.printf("%,d rows; %d distinct items, %,d customers, %,d orders%n",
+                table.size(), table.getItems().size(), table.getEmails().size(), table.getOrderNumbers().size());
+        System.out.printf("%-22s %12s %10s %12s%n", "layout", "heap MB", "bytes/row", "6 queries ms");
+        System.out.printf("%-22s %12.1f %10.1f %12.1f%n", "List<SalesRecord>",
+                listBytes / 1048576.0, (double) listBytes / rows, AggregationBenchmark.mean(listMillis));
+        System.out.printf("%-22s %12.1f %10.1f %12.1f%n", "SalesTable (columns)",
+                tableBytes / 1048576.0, (double) tableBytes / rows, AggregationBenchmark.mean(tableMillis));
+        System.out.printf("memory: %.1fx smaller, queries: %.2fx faster%n",
+                (double) listBytes / tableBytes, AggregationBenchmark.mean(listMillis) / AggregationBenchmark.mean(tableMillis));
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static List<SalesRecord> loadRows(String file, int rows) {
+        List<SalesRecord> records = new ArrayList<>(rows);
+        for (int pass = 0; records.size() < rows; pass++) {
+            List<SalesRecord> batch = new SalesDataLoader().load(file);
+            if (batch.isEmpty()) {
+                throw new IllegalStateException("No records in " + file);
+            }
+            for (SalesRecord r : batch.subList(0, Math.min(batch.size(), rows - records.size()))) {
+                records.add(synthetic(r, pass));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * The record as it would look in the pass-th copy of the history: same item, date and
+     * amounts, but an order number and customer that no other pass uses. Pass 0 is the
+     * record unchanged.
+     */
+    private static SalesRecord synthetic(SalesRecord r, int pass) {
+        if (pass == 0) {
+            return r;
+        }
+        String email = r.getEmailAddress();
+        int at = email.indexOf('@');
+        String passEmail = at < 0 ? email + "." + pass : email.substring(0, at) + "." + pass + email.substring(at);
+        return new SalesRecord(r.getSalesOrderNumber() + "-" + pass, r.getLineNumber(), r.getOrderDate(),
+                r.getCustomerName() + " " + pass, passEmail, r.getItem(), r.getQuantity(),
+                r.getUnitPrice(), r.getTaxAmount());
+    }
+
+    private static void runStreams(List<SalesRecord> records) {
+        SalesAnalytics analytics = new SalesAnalytics();
+        sink += analytics.getTotalRevenue(records);
+        sink += analytics.getRevenueByItem(records).size();
+        sink += analytics.getOrdersByCustomer(records).size();
+        sink += analytics.getRevenueByDate(records).size();
+        sink += analytics.getMostSoldItem(records).map(e -> e.getValue()).orElse(0);
+        sink += analytics.getTotalTaxCollected(records);
+    }
+
+    private static void runColumns(SalesTable table) {
+        sink += table.getTotalRevenue();
+        sink += table.getRevenueByItem().size();
+        sink += table.getOrdersByCustomer().size();
+        sink += table.getRevenueByDate().size();
+        sink += table.getMostSoldItem().map(e -> e.getValue()).orElse(0);
+        sink += table.getTotalTaxCollected();
+    }
+
+    /**
+     * One warm-up run, then the measured ones.
+     * @return Milliseconds per measured run.
+     */
+    private static double[] time(Runnable queries, int iterations) {
+        queries.run();
+        double[] millis = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            queries.run();
+            millis[it] = (System.nanoTime() - start) / 1e6;
+        }
+        return millis;
+    }
+
+    /**
+     * Collects until used heap stops shrinking, so garbage from the previous phase is not
+     * counted.
+     */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,101 @@
+package Assignment2.bench;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import Assignment2.src.HeavyHitters;
+import Assignment2.src.TopK;
+
+/**
+ * Top-k customers by order count on a long synthetic stream with many distinct customers:
+ * an exact HashMap of every key against HeavyHitters. Customer popularity is skewed
+ * (Zipf-like), as in real sales data, so a few customers stand out from a long tail.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.HeavyHittersBenchmark --events 5000000 --keys 1000000 --k 10
+ */
+public class HeavyHittersBenchmark {
+
+    public static void main(String[] args) {
+        int events = 5_000_000;
+        int keys = 1_000_000;
+        int k = 10;
+        double epsilon = 0.0001;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--events":
+                    events = Integer.parseInt(args[++i]);
+                    break;
+                case "--keys":
+                    keys = Integer.parseInt(args[++i]);
+                    break;
+                case "--k":
+                    k = Integer.parseInt(args[++i]);
+                    break;
+                case "--epsilon":
+                    epsilon = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Key i is drawn with probability proportional to 1 / (i + 1)
+        String[] names = new String[keys];
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            names[i] = "customer" + i + "@example.com";
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(11);
+        int[] stream = new int[events];
+        for (int e = 0; e < events; e++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            stream[e] = Math.min(keys - 1, index >= 0 ? index : -index - 1);
+        }
+
+        long start = System.nanoTime();
+        Map<String, Double> exact = new HashMap<>();
+        for (int e : stream) {
+            exact.merge(names[e], 1.0, Double::sum);
+        }
+        List<Map.Entry<String, Double>> exactTop = TopK.largest(exact, k);
+        double exactMillis = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        HeavyHitters<String> approx = new HeavyHitters<>(k, epsilon, 0.01);
+        for (int e : stream) {
+            approx.add(names[e], 1);
+        }
+        List<Map.Entry<String, Double>> approxTop = approx.top();
+        double approxMillis = (System.nanoTime() - start) / 1e6;
+
+        Set<String> expected = new HashSet<>();
+        for (Map.Entry<String, Double> e : exactTop) {
+            expected.add(e.getKey());
+        }
+        int found = 0;
+        double worstError = 0;
+        for (Map.Entry<String, Double> e : approxTop) {
+            if (expected.contains(e.getKey())) {
+                found++;
+            }
+            worstError = Math.max(worstError, e.getValue() - exact.get(e.getKey()));
+        }
+
+        System.out.printf("%,d events over %,d distinct keys, top %d%n", events, exact.size(), k);
+        System.out.printf("%-16s %10s %14s%n", "method", "ms", "state");
+        System.out.printf("%-16s %10.1f %,10d keys%n", "exact HashMap", exactMillis, exact.size());
+        System.out.printf("%-16s %10.1f %,10d bytes%n", "HeavyHitters", approxMillis,
+                approx.getSketch().getMemoryBytes());
+        System.out.printf("top-%d recall: %d/%d, worst overestimate %.0f (bound %.0f)%n",
+                k, found, k, worstError, approx.getSketch().getErrorBound());
+    }
+}
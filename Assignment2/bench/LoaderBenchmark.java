@@ -0,0 +1,116 @@
+package Assignment2.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import Assignment2.src.ParallelSalesDataLoader;
+import Assignment2.src.SalesDataLoader;
+
+/**
+ * Load time of SalesDataLoader against ParallelSalesDataLoader at several pool sizes.
+ *
+ * Builds a temporary file holding the rows of data/sales.csv --scale times (one header),
+ * so the file is large enough that parsing dominates. The file is read once before
+ * timing, so all runs see it in the OS page cache.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.LoaderBenchmark --scale 20 --threads 1,2,4,8 --iterations 5
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int scale = 20;
+        int[] threads = {1, 2, 4, Runtime.getRuntime().availableProcessors()};
+        int warmup = 2;
+        int iterations = 5;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Path file = buildFile(Paths.get("data/sales.csv"), scale);
+        try {
+            System.out.printf("%,d MB file, %d cores available%n",
+                    Files.size(file) >> 20, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-20s %10s %8s %8s%n", "loader", "ms", "+/-", "speedup");
+
+            String path = file.toString();
+            double[] sequential = time(() -> new SalesDataLoader().load(path).size(), warmup, iterations);
+            double base = AggregationBenchmark.mean(sequential);
+            System.out.printf("%-20s %10.1f %8.1f %8s%n", "sequential", base, AggregationBenchmark.stddev(sequential), "1.00x");
+
+            for (int t : Arrays.stream(threads).distinct().toArray()) {
+                ForkJoinPool pool = new ForkJoinPool(t);
+                double[] parallel = time(() -> new ParallelSalesDataLoader(pool, true, 0).load(path).size(),
+                        warmup, iterations);
+                pool.shutdown();
+                double mean = AggregationBenchmark.mean(parallel);
+                System.out.printf("%-20s %10.1f %8.1f %7.2fx%n", "parallel x" + t, mean,
+                        AggregationBenchmark.stddev(parallel), base / mean);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    static Path buildFile(Path source, int scale) throws IOException {
+        byte[] bytes = Files.readAllBytes(source);
+        int headerEnd = 0;
+        while (bytes[headerEnd] != '\n') {
+            headerEnd++;
+        }
+        Path file = Files.createTempFile("sales-bench", ".csv");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(bytes);
+            for (int s = 1; s < scale; s++) {
+                out.write(bytes, headerEnd + 1, bytes.length - headerEnd - 1);
+            }
+        }
+        Files.readAllBytes(file); // Warm the page cache
+        return file;
+    }
+
+    private interface Load {
+        int run();
+    }
+
+    /**
+     * @return Milliseconds per measured run.
+     */
+    private static double[] time(Load load, int warmup, int iterations) {
+        int rows = 0;
+        for (int w = 0; w < warmup; w++) {
+            rows += load.run();
+        }
+        double[] millis = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            rows += load.run();
+            millis[it] = (System.nanoTime() - start) / 1e6;
+        }
+        if (rows == 42) {
+            System.out.println();
+        }
+        return millis;
+    }
+}
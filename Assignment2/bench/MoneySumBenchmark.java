@@ -0,0 +1,109 @@
+package Assignment2.bench;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import Assignment2.src.FixedPointSums;
+import Assignment2.src.Money;
+import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesRecord;
+import Assignment2.src.SalesTable;
+
+/**
+ * Total revenue plus total tax, three ways:
+ *   - stream doubles:  SalesAnalytics.getTotalRevenue + getTotalTaxCollected on a list
+ *   - scalar longs:    plain loops over fixed-point columns (FixedPointSums.scalarDot/Sum)
+ *   - FixedPointSums:  SalesTable.getTotalRevenueUnits + getTotalTaxUnits, which use the
+ *                      Vector API when it is available and the scalar loops otherwise
+ * and how far the double revenue total drifts from the exact one.
+ *
+ * Run with --add-modules jdk.incubator.vector (after compiling src/vector) to measure the
+ * SIMD path; the first line of output says which path FixedPointSums took.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java --add-modules jdk.incubator.vector -Xmx8g -cp out Assignment2.bench.MoneySumBenchmark --rows 1000000,10000000
+ */
+public class MoneySumBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) {
+        int[] sizes = {1_000_000, 10_000_000};
+        int warmup = 5;
+        int iterations = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        System.out.printf("FixedPointSums path: %s, %d warm-up and %d measured rounds%n",
+                FixedPointSums.isVectorized() ? "Vector API (SIMD)" : "scalar fallback", warmup, iterations);
+
+        for (int rows : sizes) {
+            List<SalesRecord> records = ParallelAggregationBenchmark.generate(rows, 42);
+            SalesTable table = SalesTable.from(records);
+            int[] quantity = new int[rows];
+            long[] price = new long[rows];
+            long[] tax = new long[rows];
+            for (int r = 0; r < rows; r++) {
+                quantity[r] = records.get(r).getQuantity();
+                price[r] = Money.toUnits(records.get(r).getUnitPrice());
+                tax[r] = Money.toUnits(records.get(r).getTaxAmount());
+            }
+            SalesAnalytics analytics = new SalesAnalytics();
+
+            System.out.printf("%n%,d rows%n", rows);
+            System.out.printf("%-22s %10s %8s %8s%n", "variant", "ms", "+/-", "speedup");
+            double base = print("stream doubles", time(() -> {
+                sink += analytics.getTotalRevenue(records) + analytics.getTotalTaxCollected(records);
+            }, warmup, iterations), 0);
+            print("scalar longs", time(() -> {
+                sink += FixedPointSums.scalarDot(quantity, price, 0, rows) + FixedPointSums.scalarSum(tax, 0, rows);
+            }, warmup, iterations), base);
+            print("FixedPointSums", time(() -> {
+                sink += table.getTotalRevenueUnits() + table.getTotalTaxUnits();
+            }, warmup, iterations), base);
+
+            double doubleRevenue = analytics.getTotalRevenue(records);
+            long exactUnits = table.getTotalRevenueUnits();
+            System.out.printf("revenue: exact %s, stream doubles %.6f (off by %.2e)%n",
+                    Money.toBigDecimal(exactUnits).toPlainString(), doubleRevenue,
+                    Money.toBigDecimal(exactUnits).subtract(new BigDecimal(doubleRevenue)).abs().doubleValue());
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static double print(String name, double[] millis, double base) {
+        double mean = AggregationBenchmark.mean(millis);
+        System.out.printf("%-22s %10.2f %8.2f %8s%n", name, mean, AggregationBenchmark.stddev(millis),
+                base == 0 ? "1.00x" : String.format("%.2fx", base / mean));
+        return mean;
+    }
+
+    private static double[] time(Runnable work, int warmup, int iterations) {
+        for (int w = 0; w < warmup; w++) {
+            work.run();
+        }
+        double[] millis = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            work.run();
+            millis[it] = (System.nanoTime() - start) / 1e6;
+        }
+        return millis;
+    }
+}
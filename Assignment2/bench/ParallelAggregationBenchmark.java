@@ -0,0 +1,200 @@
+package Assignment2.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesRecord;
+
+/**
+ * Runs the six SalesAnalytics operations on synthetic data in four ways:
+ *   - sequential:   SalesAnalytics() (one sequential stream per method)
+ *   - groupingBy:   parallelStream() with Collectors.groupingBy, which builds a HashMap
+ *                   per split and merges them
+ *   - concurrent:   parallelStream() with Collectors.groupingByConcurrent, where all
+ *                   threads update one ConcurrentHashMap
+ *   - fork-join:    SalesAnalytics(pool) (per-task accumulators, merged in a tree)
+ * The parallel variants run on a ForkJoinPool of each --threads size (a parallel stream
+ * started from inside a pool runs on that pool).
+ *
+ * This is a plain harness in the style of the other benchmarks, not JMH: warm-up rounds
+ * are discarded, then the mean and standard deviation of the measured rounds are printed.
+ *
+ * Synthetic rows share a small set of item, customer and date objects, so they take about
+ * 60 bytes each; 100 million rows need roughly -Xmx8g. Sizes that do not fit are skipped.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -Xmx8g -cp out Assignment2.bench.ParallelAggregationBenchmark --rows 1000000,10000000,100000000 --threads 1,2,4,8
+ */
+public class ParallelAggregationBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {1_000_000, 10_000_000};
+        int[] threads = {1, 2, 4, Runtime.getRuntime().availableProcessors()};
+        int warmup = 3;
+        int iterations = 5;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--threads":
+                    threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        threads = Arrays.stream(threads).distinct().toArray();
+        System.out.printf("%d cores available, %d warm-up and %d measured rounds%n",
+                Runtime.getRuntime().availableProcessors(), warmup, iterations);
+
+        for (int rows : sizes) {
+            List<SalesRecord> records;
+            try {
+                records = generate(rows, 42);
+            } catch (OutOfMemoryError e) {
+                System.out.printf("%n%,d rows: skipped, not enough heap (try a larger -Xmx)%n", rows);
+                continue;
+            }
+            System.out.printf("%n%,d rows%n", rows);
+            System.out.printf("%-22s %10s %8s %8s%n", "variant", "ms", "+/-", "speedup");
+
+            SalesAnalytics sequential = new SalesAnalytics();
+            double base = print("sequential", time(() -> runSuite(sequential, records), warmup, iterations), 0);
+            for (int t : threads) {
+                ForkJoinPool pool = new ForkJoinPool(t);
+                SalesAnalytics forkJoin = new SalesAnalytics(pool);
+                print("groupingBy x" + t, time(() -> onPool(pool, () -> runGroupingBy(records)), warmup, iterations), base);
+                print("concurrent x" + t, time(() -> onPool(pool, () -> runConcurrent(records)), warmup, iterations), base);
+                print("fork-join x" + t, time(() -> runSuite(forkJoin, records), warmup, iterations), base);
+                pool.shutdown();
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Rows with 300 items, 20,000 customers and three years of dates, drawn uniformly.
+     */
+    static List<SalesRecord> generate(int rows, long seed) {
+        Random random = new Random(seed);
+        String[] items = new String[300];
+        double[] prices = new double[items.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "Item-" + i;
+            prices[i] = 1 + random.nextInt(350_000) / 100.0;
+        }
+        String[] names = new String[20_000];
+        String[] emails = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Customer " + i;
+            emails[i] = "customer" + i + "@example.com";
+        }
+        LocalDate[] dates = new LocalDate[3 * 365];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2019, 1, 1).plusDays(i);
+        }
+        List<SalesRecord> records = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            int item = random.nextInt(items.length);
+            int customer = random.nextInt(names.length);
+            records.add(new SalesRecord("SO" + (r % 1000), 1, dates[random.nextInt(dates.length)],
+                    names[customer], emails[customer], items[item], 1 + random.nextInt(3),
+                    prices[item], prices[item] * 0.08));
+        }
+        return records;
+    }
+
+    private static void runSuite(SalesAnalytics analytics, List<SalesRecord> records) {
+        sink += analytics.getTotalRevenue(records);
+        sink += analytics.getRevenueByItem(records).size();
+        sink += analytics.getOrdersByCustomer(records).size();
+        sink += analytics.getRevenueByDate(records).size();
+        sink += analytics.getMostSoldItem(records).map(e -> e.getValue()).orElse(0);
+        sink += analytics.getTotalTaxCollected(records);
+    }
+
+    private static void runGroupingBy(List<SalesRecord> records) {
+        sink += records.parallelStream().mapToDouble(SalesRecord::getLineRevenue).sum();
+        sink += records.parallelStream().collect(Collectors.groupingBy(
+                SalesRecord::getItem, Collectors.summingDouble(SalesRecord::getLineRevenue))).size();
+        sink += records.parallelStream().collect(Collectors.groupingBy(
+                SalesRecord::getEmailAddress, Collectors.counting())).size();
+        sink += records.parallelStream().collect(Collectors.groupingBy(
+                SalesRecord::getOrderDate, Collectors.summingDouble(SalesRecord::getLineRevenue))).size();
+        sink += records.parallelStream().collect(Collectors.groupingBy(
+                        SalesRecord::getItem, Collectors.summingInt(SalesRecord::getQuantity)))
+                .entrySet().stream().max(Map.Entry.comparingByValue()).map(e -> e.getValue()).orElse(0);
+        sink += records.parallelStream().mapToDouble(SalesRecord::getTaxAmount).sum();
+    }
+
+    private static void runConcurrent(List<SalesRecord> records) {
+        sink += records.parallelStream().mapToDouble(SalesRecord::getLineRevenue).sum();
+        sink += records.parallelStream().collect(Collectors.groupingByConcurrent(
+                SalesRecord::getItem, Collectors.summingDouble(SalesRecord::getLineRevenue))).size();
+        sink += records.parallelStream().collect(Collectors.groupingByConcurrent(
+                SalesRecord::getEmailAddress, Collectors.counting())).size();
+        sink += records.parallelStream().collect(Collectors.groupingByConcurrent(
+                SalesRecord::getOrderDate, Collectors.summingDouble(SalesRecord::getLineRevenue))).size();
+        sink += records.parallelStream().collect(Collectors.groupingByConcurrent(
+                        SalesRecord::getItem, Collectors.summingInt(SalesRecord::getQuantity)))
+                .entrySet().stream().max(Map.Entry.comparingByValue()).map(e -> e.getValue()).orElse(0);
+        sink += records.parallelStream().mapToDouble(SalesRecord::getTaxAmount).sum();
+    }
+
+    private static void onPool(ForkJoinPool pool, Runnable work) {
+        try {
+            pool.submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return The mean, so the sequential row can serve as the speedup base.
+     */
+    private static double print(String name, double[] millis, double base) {
+        double mean = AggregationBenchmark.mean(millis);
+        System.out.printf("%-22s %10.1f %8.1f %8s%n", name, mean, AggregationBenchmark.stddev(millis),
+                base == 0 ? "1.00x" : String.format("%.2fx", base / mean));
+        return mean;
+    }
+
+    /**
+     * @return Milliseconds per measured run.
+     */
+    private static double[] time(Runnable suite, int warmup, int iterations) {
+        for (int w = 0; w < warmup; w++) {
+            suite.run();
+        }
+        double[] millis = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            suite.run();
+            millis[it] = (System.nanoTime() - start) / 1e6;
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,110 @@
+package Assignment2.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesQueryCache;
+import Assignment2.src.SalesRecord;
+
+/**
+ * A service-like workload: the same four queries (total revenue, revenue by item, orders
+ * by customer, top 5 items) asked --rounds times, with a batch of --batch new records
+ * appended every --every rounds. Three ways to answer:
+ *   - no cache:     SalesAnalytics recomputes every query from the records
+ *   - rebuild:      SalesQueryCache, cleared on every append (plain invalidation)
+ *   - incremental:  SalesQueryCache, cached totals updated with the new rows
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.QueryCacheBenchmark --rows 1000000 --rounds 200 --every 10 --batch 1000
+ */
+public class QueryCacheBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) {
+        int rows = 1_000_000;
+        int rounds = 200;
+        int every = 10;
+        int batch = 1000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--every":
+                    every = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        List<SalesRecord> initial = ParallelAggregationBenchmark.generate(rows, 42);
+        List<List<SalesRecord>> batches = new ArrayList<>();
+        List<SalesRecord> extra = ParallelAggregationBenchmark.generate(batch * (rounds / every + 1), 43);
+        for (int b = 0; b + batch <= extra.size(); b += batch) {
+            batches.add(extra.subList(b, b + batch));
+        }
+
+        System.out.printf("%,d rows, %d rounds of 4 queries, %,d rows appended every %d rounds%n",
+                rows, rounds, batch, every);
+        System.out.printf("%-14s %10s %10s %8s %8s%n", "variant", "total ms", "ms/query", "hits", "misses");
+
+        // Warm up each path once on a small run, then measure
+        for (int pass = 0; pass < 2; pass++) {
+            int n = pass == 0 ? Math.min(rounds, 2 * every) : rounds;
+            boolean print = pass == 1;
+
+            SalesAnalytics analytics = new SalesAnalytics();
+            List<SalesRecord> records = new ArrayList<>(initial);
+            long start = System.nanoTime();
+            for (int round = 0; round < n; round++) {
+                if (round > 0 && round % every == 0) {
+                    records.addAll(batches.get(round / every - 1));
+                }
+                sink += analytics.getTotalRevenue(records);
+                sink += analytics.getRevenueByItem(records).size();
+                sink += analytics.getOrdersByCustomer(records).size();
+                sink += analytics.getTopItemsByQuantity(records, 5).size();
+            }
+            report(print, "no cache", start, n, -1, -1);
+
+            for (boolean incremental : new boolean[] {false, true}) {
+                SalesQueryCache cache = new SalesQueryCache(initial, 16);
+                start = System.nanoTime();
+                for (int round = 0; round < n; round++) {
+                    if (round > 0 && round % every == 0) {
+                        cache.append(batches.get(round / every - 1));
+                        if (!incremental) {
+                            cache.clear();
+                        }
+                    }
+                    sink += cache.getTotalRevenue();
+                    sink += cache.getRevenueByItem().size();
+                    sink += cache.getOrdersByCustomer().size();
+                    sink += cache.getTopItemsByQuantity(5).size();
+                }
+                report(print, incremental ? "incremental" : "rebuild", start, n,
+                        cache.getHitCount(), cache.getMissCount());
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(boolean print, String name, long start, int rounds, long hits, long misses) {
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (print) {
+            System.out.printf("%-14s %10.1f %10.3f %8s %8s%n", name, millis, millis / (rounds * 4.0),
+                    hits < 0 ? "-" : String.valueOf(hits), misses < 0 ? "-" : String.valueOf(misses));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package Assignment2.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesTable;
+
+/**
+ * Load time from the CSV against load time from the binary snapshot, on data/sales.csv
+ * repeated --scale times.
+ *
+ * The first loadTable() parses the CSV and writes the snapshot; every later one maps the
+ * snapshot. Both files are in the OS page cache after the first round, so this compares
+ * parsing with copying, not disk speed.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.SnapshotBenchmark --scale 20 --iterations 5
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int scale = 20;
+        int warmup = 2;
+        int iterations = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Path file = LoaderBenchmark.buildFile(Paths.get("data/sales.csv"), scale);
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+        try {
+            String path = file.toString();
+            SalesDataLoader loader = new SalesDataLoader();
+
+            long start = System.nanoTime();
+            int rows = loader.loadTable(path).size();
+            double firstRun = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%,d rows; CSV %,d MB, snapshot %,d MB%n",
+                    rows, Files.size(file) >> 20, Files.size(snapshot) >> 20);
+            System.out.printf("%-34s %10s %8s%n", "path", "ms", "+/-");
+            System.out.printf("%-34s %10.1f %8s%n", "first run (parse + write snapshot)", firstRun, "");
+
+            double[] list = time(() -> loader.load(path).size(), warmup, iterations);
+            double[] csv = time(() -> SalesTable.load(path).size(), warmup, iterations);
+            double[] cached = time(() -> loader.loadTable(path).size(), warmup, iterations);
+            print("CSV -> List<SalesRecord>", list);
+            print("CSV -> SalesTable", csv);
+            print("snapshot -> SalesTable", cached);
+            System.out.printf("snapshot vs CSV -> SalesTable: %.1fx faster%n",
+                    AggregationBenchmark.mean(csv) / AggregationBenchmark.mean(cached));
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.delete(file);
+        }
+    }
+
+    private interface Load {
+        int run();
+    }
+
+    private static void print(String name, double[] millis) {
+        System.out.printf("%-34s %10.1f %8.1f%n", name, AggregationBenchmark.mean(millis),
+                AggregationBenchmark.stddev(millis));
+    }
+
+    /**
+     * @return Milliseconds per measured run.
+     */
+    private static double[] time(Load load, int warmup, int iterations) {
+        for (int w = 0; w < warmup; w++) {
+            load.run();
+        }
+        double[] millis = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            load.run();
+            millis[it] = (System.nanoTime() - start) / 1e6;
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,180 @@
+package Assignment2.bench;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import Assignment2.src.AggregationEngine;
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesRecord;
+
+/**
+ * Peak live heap of the Main flow (load the whole list, then aggregate) against the
+ * streaming flow (aggregate each row as it is parsed), on data/sales.csv repeated
+ * --scale times.
+ *
+ * "Live heap" is heap still in use right after a garbage collection, as reported by the
+ * JVM's GC notifications (HotSpot's com.sun.management API). Used heap before a GC also
+ * counts garbage and mostly shows how lazy the collector is; after a GC it is what the
+ * flow really needs. Both flows register the same five aggregates.
+ *
+ * Usage (run from the Assignment2 folder, all options optional):
+ *   java -cp out Assignment2.bench.StreamingBenchmark --scale 50
+ */
+public class StreamingBenchmark {
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static double sink;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int scale = 20;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Path file = LoaderBenchmark.buildFile(Paths.get("data/sales.csv"), scale);
+        try {
+            String path = file.toString();
+            HeapWatcher watcher = new HeapWatcher();
+            System.out.printf("%,d MB file%n", Files.size(file) >> 20);
+            System.out.printf("%-26s %10s %14s %10s%n", "flow", "rows", "peak live MB", "ms");
+
+            // Run each once untimed so class loading and JIT do not count
+            materialized(path, watcher);
+            streaming(path, watcher);
+
+            report("load list + aggregate", watcher, () -> materialized(path, watcher));
+            report("streaming", watcher, () -> streaming(path, watcher));
+        } finally {
+            Files.delete(file);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private interface Flow {
+        long run();
+    }
+
+    private static void report(String name, HeapWatcher watcher, Flow flow) throws InterruptedException {
+        long baseline = watcher.collect();
+        Thread.sleep(100); // Let notifications from earlier collections arrive first
+        watcher.reset();
+        long start = System.nanoTime();
+        long rows = flow.run();
+        double millis = (System.nanoTime() - start) / 1e6;
+        Thread.sleep(100);
+        System.out.printf("%-26s %,10d %14.1f %10.1f%n", name, rows,
+                (watcher.peak() - baseline) / 1048576.0, millis);
+    }
+
+    /**
+     * The current Main flow: the whole list, then one pass over it.
+     */
+    private static long materialized(String path, HeapWatcher watcher) {
+        AggregationEngine engine = register(new AggregationEngine());
+        List<SalesRecord> records = new SalesDataLoader().load(path);
+        engine.run(records);
+        watcher.collect(); // The list is still reachable here: its size counts
+        sink += records.size();
+        return engine.getRecordCount();
+    }
+
+    private static long streaming(String path, HeapWatcher watcher) {
+        AggregationEngine engine = register(new AggregationEngine());
+        new SalesDataLoader().forEach(path, engine);
+        watcher.collect(); // Only the group-by state is reachable here
+        return engine.getRecordCount();
+    }
+
+    private static AggregationEngine register(AggregationEngine engine) {
+        AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+        AggregationEngine.DoubleSum tax = engine.sum(SalesRecord::getTaxAmount);
+        engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+        engine.sumBy(SalesRecord::getOrderDate, SalesRecord::getLineRevenue);
+        engine.countBy(SalesRecord::getEmailAddress);
+        sink += revenue.get() + tax.get();
+        return engine;
+    }
+
+    /**
+     * Tracks the largest heap usage seen right after any garbage collection.
+     */
+    private static final class HeapWatcher implements NotificationListener {
+        private final Set<String> heapPools = new HashSet<>();
+        private volatile long peak;
+
+        HeapWatcher() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool.getName());
+                }
+            }
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long used = 0;
+            for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    used += pool.getValue().getUsed();
+                }
+            }
+            record(used);
+        }
+
+        private synchronized void record(long used) {
+            peak = Math.max(peak, used);
+        }
+
+        /**
+         * Runs a full GC and records the live heap now.
+         * @return The live heap in bytes.
+         */
+        long collect() {
+            System.gc();
+            long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            record(used);
+            return used;
+        }
+
+        synchronized void reset() {
+            peak = 0;
+        }
+
+        long peak() {
+            return peak;
+        }
+    }
+}
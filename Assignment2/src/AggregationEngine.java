@@ -0,0 +1,281 @@
+package Assignment2.src;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Computes many aggregates in a single scan of the records.
+ *
+ * Each SalesAnalytics method streams the whole list again, so a report that needs six
+ * numbers reads the data six times. Here the caller registers every aggregate first,
+ * then run() visits each record once and feeds it to all of them.
+ * CONCEPT: Single-pass Aggregation
+ *
+ * Accumulators are primitive: totals are plain doubles, and every group keeps a small
+ * double[]/long[] slot in a HashMap, updated in place. Nothing is boxed per record;
+ * boxed Map results are only built when a result is read.
+ *
+ * The engine is also a Consumer<SalesRecord>, so records can be fed one at a time as
+ * they are parsed (SalesDataLoader.forEach(path, engine)) and never held in a list.
+ *
+ * Usage:
+ *   AggregationEngine engine = new AggregationEngine();
+ *   AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+ *   AggregationEngine.GroupedCount<String> orders = engine.countBy(SalesRecord::getEmailAddress);
+ *   engine.run(records);
+ *   revenue.get(); orders.get("alex@example.com");
+ */
+public class AggregationEngine implements Consumer<SalesRecord> {
+
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    // Snapshot of aggregates for the per-record loop; rebuilt after a registration
+    private Aggregate[] active;
+    private long recordCount;
+
+    /**
+     * Registers a total, e.g. sum(SalesRecord::getTaxAmount).
+     */
+    public DoubleSum sum(ToDoubleFunction<SalesRecord> value) {
+        return register(new DoubleSum(value));
+    }
+
+    /**
+     * Registers a per-key total, e.g. sumBy(SalesRecord::getItem, SalesRecord::getLineRevenue).
+     */
+    public <K> GroupedDoubleSum<K> sumBy(Function<SalesRecord, K> key, ToDoubleFunction<SalesRecord> value) {
+        return register(new GroupedDoubleSum<>(key, value));
+    }
+
+    /**
+     * Registers a per-key integer total, e.g. intSumBy(SalesRecord::getItem, SalesRecord::getQuantity).
+     */
+    public <K> GroupedIntSum<K> intSumBy(Function<SalesRecord, K> key, ToIntFunction<SalesRecord> value) {
+        return register(new GroupedIntSum<>(key, value));
+    }
+
+    /**
+     * Registers a per-key record count, e.g. countBy(SalesRecord::getEmailAddress).
+     */
+    public <K> GroupedCount<K> countBy(Function<SalesRecord, K> key) {
+        return register(new GroupedCount<>(key));
+    }
+
+    private <A extends Aggregate> A register(A aggregate) {
+        aggregates.add(aggregate);
+        active = null;
+        return aggregate;
+    }
+
+    /**
+     * Scans the records once, updating every registered aggregate. Results accumulate
+     * across calls, so several lists can be fed in turn.
+     */
+    public void run(Iterable<SalesRecord> records) {
+        for (SalesRecord record : records) {
+            accept(record);
+        }
+    }
+
+    /**
+     * Feeds one record to every registered aggregate.
+     */
+    @Override
+    public void accept(SalesRecord record) {
+        Aggregate[] all = active;
+        if (all == null) {
+            all = aggregates.toArray(new Aggregate[0]);
+            active = all;
+        }
+        for (Aggregate aggregate : all) {
+            aggregate.accept(record);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Returns how many records have been fed so far.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * One registered aggregate; sees every record exactly once per run().
+     */
+    abstract static class Aggregate {
+        abstract void accept(SalesRecord record);
+    }
+
+    /**
+     * Compensated (Kahan) addition, as DoubleStream.sum() and Collectors.summingDouble()
+     * use, so results agree with the stream versions. slot[0] is the sum, slot[1] the
+     * running compensation (the low-order bits lost so far).
+     */
+    static void addCompensated(double[] slot, double value) {
+        double y = value - slot[1];
+        double t = slot[0] + y;
+        slot[1] = (t - slot[0]) - y;
+        slot[0] = t;
+    }
+
+    static double finalSum(double[] slot) {
+        return slot[0] - slot[1];
+    }
+
+    /**
+     * Total of one value over all records.
+     */
+    public static final class DoubleSum extends Aggregate {
+        private final ToDoubleFunction<SalesRecord> value;
+        private final double[] slot = new double[2];
+
+        DoubleSum(ToDoubleFunction<SalesRecord> value) {
+            this.value = value;
+        }
+
+        @Override
+        void accept(SalesRecord record) {
+            addCompensated(slot, value.applyAsDouble(record));
+        }
+
+        public double get() {
+            return finalSum(slot);
+        }
+    }
+
+    /**
+     * Total of one value per key.
+     */
+    public static final class GroupedDoubleSum<K> extends Aggregate {
+        private final Function<SalesRecord, K> key;
+        private final ToDoubleFunction<SalesRecord> value;
+        private final HashMap<K, double[]> slots = new HashMap<>();
+
+        GroupedDoubleSum(Function<SalesRecord, K> key, ToDoubleFunction<SalesRecord> value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        void accept(SalesRecord record) {
+            K k = key.apply(record);
+            double[] slot = slots.get(k);
+            if (slot == null) {
+                slot = new double[2];
+                slots.put(k, slot);
+            }
+            addCompensated(slot, value.applyAsDouble(record));
+        }
+
+        /**
+         * Returns the total for one key, or 0 if the key never occurred.
+         */
+        public double get(K k) {
+            double[] slot = slots.get(k);
+            return slot == null ? 0.0 : finalSum(slot);
+        }
+
+        /**
+         * Returns all totals, like Collectors.groupingBy(key, summingDouble(value)).
+         */
+        public Map<K, Double> toMap() {
+            Map<K, Double> result = new HashMap<>();
+            slots.forEach((k, slot) -> result.put(k, finalSum(slot)));
+            return result;
+        }
+    }
+
+    /**
+     * Total of one int value per key, with the key of the largest total.
+     */
+    public static final class GroupedIntSum<K> extends Aggregate {
+        private final Function<SalesRecord, K> key;
+        private final ToIntFunction<SalesRecord> value;
+        private final HashMap<K, int[]> slots = new HashMap<>();
+
+        GroupedIntSum(Function<SalesRecord, K> key, ToIntFunction<SalesRecord> value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        void accept(SalesRecord record) {
+            K k = key.apply(record);
+            int[] slot = slots.get(k);
+            if (slot == null) {
+                slot = new int[1];
+                slots.put(k, slot);
+            }
+            slot[0] += value.applyAsInt(record);
+        }
+
+        public int get(K k) {
+            int[] slot = slots.get(k);
+            return slot == null ? 0 : slot[0];
+        }
+
+        public Map<K, Integer> toMap() {
+            Map<K, Integer> result = new HashMap<>();
+            slots.forEach((k, slot) -> result.put(k, slot[0]));
+            return result;
+        }
+
+        /**
+         * Returns the key with the largest total (any one of them on a tie), or empty
+         * if there were no records. Same result shape as SalesAnalytics.getMostSoldItem().
+         */
+        public Optional<Map.Entry<K, Integer>> max() {
+            K bestKey = null;
+            int best = Integer.MIN_VALUE;
+            for (Map.Entry<K, int[]> e : slots.entrySet()) {
+                if (bestKey == null || e.getValue()[0] > best) {
+                    bestKey = e.getKey();
+                    best = e.getValue()[0];
+                }
+            }
+            return bestKey == null ? Optional.empty() : Optional.of(new AbstractMap.SimpleImmutableEntry<>(bestKey, best));
+        }
+    }
+
+    /**
+     * Number of records per key.
+     */
+    public static final class GroupedCount<K> extends Aggregate {
+        private final Function<SalesRecord, K> key;
+        private final HashMap<K, long[]> slots = new HashMap<>();
+
+        GroupedCount(Function<SalesRecord, K> key) {
+            this.key = key;
+        }
+
+        @Override
+        void accept(SalesRecord record) {
+            K k = key.apply(record);
+            long[] slot = slots.get(k);
+            if (slot == null) {
+                slot = new long[1];
+                slots.put(k, slot);
+            }
+            slot[0]++;
+        }
+
+        public long get(K k) {
+            long[] slot = slots.get(k);
+            return slot == null ? 0L : slot[0];
+        }
+
+        public Map<K, Long> toMap() {
+            Map<K, Long> result = new HashMap<>();
+            slots.forEach((k, slot) -> result.put(k, slot[0]));
+            return result;
+        }
+    }
+}
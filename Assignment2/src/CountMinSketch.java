@@ -0,0 +1,125 @@
+package Assignment2.src;
+
+/**
+ * Estimates per-key totals of a stream in a fixed amount of memory.
+ *
+ * The sketch is a table of depth rows by width counters. Adding weight w for a key adds w
+ * to one counter per row, chosen by a different hash of the key in each row. Other keys
+ * share those counters, so each counter can only be too high; the estimate is the
+ * smallest of the key's counters, the one with the least foreign weight in it.
+ * CONCEPT: Probabilistic Counting (Count-Min sketch)
+ *
+ * Guarantee, for non-negative weights and total weight N:
+ *   true <= estimate <= true + epsilon * N, with probability at least 1 - delta,
+ * using width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)). Memory depends only
+ * on epsilon and delta, never on the number of distinct keys.
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final double[][] counters;
+    private final double epsilon;
+    private final double delta;
+    private double total;
+
+    /**
+     * @param epsilon Error bound as a fraction of the total weight, e.g. 0.001.
+     * @param delta Probability that an estimate exceeds that bound, e.g. 0.01.
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+        }
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("delta must be in (0, 1): " + delta);
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counters = new double[depth][width];
+    }
+
+    /**
+     * Adds a non-negative weight (a quantity, an amount, or 1 to count occurrences).
+     */
+    public void add(Object key, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Count-Min weights must not be negative: " + weight);
+        }
+        long h = mix(key.hashCode());
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters[row][index(h1, h2, row)] += weight;
+        }
+        total += weight;
+    }
+
+    /**
+     * Returns an estimate that is never below the key's true total.
+     */
+    public double estimate(Object key) {
+        long h = mix(key.hashCode());
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Row i uses hash h1 + i * h2 (two hashes are enough to make the rows independent).
+     */
+    private int index(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    /**
+     * Spreads a 32-bit hashCode over 64 bits (the finalizer of MurmurHash3), so that
+     * similar keys land on unrelated counters.
+     */
+    private static long mix(int hashCode) {
+        long z = hashCode * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Returns the total weight added so far (N in the error bound).
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the largest amount any estimate can exceed the true value by, with
+     * probability 1 - delta: epsilon * N.
+     */
+    public double getErrorBound() {
+        return epsilon * total;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Memory used by the counters, in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) width * depth * Double.BYTES;
+    }
+}
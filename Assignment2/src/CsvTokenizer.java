@@ -0,0 +1,489 @@
+package Assignment2.src;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Splits CSV records directly out of a byte buffer and parses fields in place.
+ *
+ * The tokenizer never copies a record: nextRecord() only records where each field
+ * starts and ends in the buffer. Numbers and dates are then parsed straight from those
+ * bytes, so no String, char[] or List is created per row; only text columns that really
+ * are Strings (names, items) are materialized, once, with string().
+ * CONCEPT: Zero-allocation Parsing
+ *
+ * Quoting follows RFC 4180: a field in double quotes may contain commas, newlines and
+ * doubled quotes ("" stands for "). Records end at \n or \r\n. Whitespace around the
+ * quotes is allowed, as in "a", "b" with a space after the comma.
+ *
+ * Usage:
+ *   tokenizer.reset(bytes, 0, length, true);
+ *   while (tokenizer.nextRecord()) {
+ *       int quantity = tokenizer.parseInt(6);
+ *       String item = tokenizer.string(5);
+ *   }
+ *
+ * When the buffer holds only part of the input, pass endOfInput = false: nextRecord()
+ * then returns false at a record cut off by the end of the buffer, and position() tells
+ * where that record starts, so the caller can refill and continue from there.
+ */
+public final class CsvTokenizer {
+
+    // Field flags
+    private static final int QUOTED = 1;
+    // Quoted field that needs unescaping ("" inside, or text after the closing quote)
+    private static final int ESCAPED = 2;
+
+    // Exact powers of ten: m / 10^k is correctly rounded when m < 2^53 and k <= 22
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private byte[] buf;
+    private int limit;
+    private boolean endOfInput;
+    private int pos;
+
+    private int count;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] flags = new int[16];
+
+    // Unescaped bytes of the last ESCAPED field, reused
+    private byte[] scratch = new byte[64];
+    // Rows are often sorted by date, so the last date is usually the next one too
+    private long lastEpochDay = Long.MIN_VALUE;
+    private LocalDate lastDate;
+
+    /**
+     * Points the tokenizer at bytes [from, to) of buf.
+     * @param endOfInput Whether the input ends at 'to' (false if more bytes will follow).
+     */
+    public void reset(byte[] buf, int from, int to, boolean endOfInput) {
+        this.buf = buf;
+        this.pos = from;
+        this.limit = to;
+        this.endOfInput = endOfInput;
+        this.count = 0;
+    }
+
+    /**
+     * Returns the offset of the first byte not yet consumed by a complete record.
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * Advances to the next record.
+     * @return false when the buffer is used up, or when the next record is incomplete
+     *         and endOfInput is false.
+     */
+    public boolean nextRecord() {
+        if (pos >= limit) {
+            return false;
+        }
+        count = 0;
+        int p = pos;
+        while (true) {
+            int start;
+            int end;
+            int flag = 0;
+            int q = p;
+            while (q < limit && isPadding(buf[q])) {
+                q++; // Whitespace before an opening quote is not part of the field
+            }
+            if (q < limit && buf[q] == '"') {
+                flag = QUOTED;
+                p = q;
+                start = ++p;
+                // Find the closing quote; "" is an escaped quote, not the end
+                while (true) {
+                    if (p >= limit) {
+                        if (!endOfInput) {
+                            return false;
+                        }
+                        break; // Unterminated quote: take the rest
+                    }
+                    if (buf[p] == '"') {
+                        if (p + 1 >= limit && !endOfInput) {
+                            return false; // Cannot tell "" from " yet
+                        }
+                        if (p + 1 < limit && buf[p + 1] == '"') {
+                            flag |= ESCAPED;
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                end = p;
+                if (p < limit) {
+                    p++; // Skip the closing quote
+                }
+                // Whitespace up to the delimiter is dropped; any other text is kept (lenient)
+                while (p < limit && buf[p] != ',' && buf[p] != '\n') {
+                    if (!isPadding(buf[p])) {
+                        flag |= ESCAPED;
+                    }
+                    p++;
+                }
+                if ((flag & ESCAPED) != 0) {
+                    end = trimCr(start, p);
+                }
+            } else {
+                start = p;
+                while (p < limit && buf[p] != ',' && buf[p] != '\n') {
+                    p++;
+                }
+                end = trimCr(start, p);
+            }
+
+            if (p >= limit && !endOfInput) {
+                return false; // The record may continue in the next buffer
+            }
+            addField(start, end, flag);
+            if (p >= limit) {
+                pos = p;
+                return true;
+            }
+            if (buf[p] == '\n') {
+                pos = p + 1;
+                return true;
+            }
+            p++; // Comma
+            if (p >= limit && endOfInput) {
+                addField(p, p, 0); // Trailing comma at end of input
+                pos = p;
+                return true;
+            }
+        }
+    }
+
+    // Whitespace that may surround a field: what String.trim() removes, except the record end
+    private static boolean isPadding(byte b) {
+        return b != '\n' && (b & 0xff) <= ' ';
+    }
+
+    private int trimCr(int start, int end) {
+        return end > start && buf[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private void addField(int start, int end, int flag) {
+        if (count == starts.length) {
+            starts = java.util.Arrays.copyOf(starts, count * 2);
+            ends = java.util.Arrays.copyOf(ends, count * 2);
+            flags = java.util.Arrays.copyOf(flags, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        flags[count] = flag;
+        count++;
+    }
+
+    public int fieldCount() {
+        return count;
+    }
+
+    /**
+     * Offset of the field's first content byte (after an opening quote).
+     */
+    public int fieldStart(int i) {
+        return starts[checkIndex(i)];
+    }
+
+    /**
+     * Offset just past the field's content (before a closing quote).
+     */
+    public int fieldEnd(int i) {
+        return ends[checkIndex(i)];
+    }
+
+    /**
+     * Whether the field was quoted and contains "" escapes, so its bytes are not its value.
+     */
+    public boolean isEscaped(int i) {
+        return (flags[checkIndex(i)] & ESCAPED) != 0;
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Field " + i + " of " + count);
+        }
+        return i;
+    }
+
+    /**
+     * Decodes the field as UTF-8 text, with quotes removed and "" turned into ".
+     */
+    public String string(int i) {
+        checkIndex(i);
+        if ((flags[i] & ESCAPED) == 0) {
+            return new String(buf, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+        }
+        int n = unescape(i);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies an escaped field's value into scratch. The range starts inside the quotes.
+     * @return The number of bytes written.
+     */
+    private int unescape(int i) {
+        int length = ends[i] - starts[i];
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int n = 0;
+        boolean inQuotes = true;
+        for (int p = starts[i]; p < ends[i]; p++) {
+            byte b = buf[p];
+            if (b == '"') {
+                if (inQuotes && p + 1 < ends[i] && buf[p + 1] == '"') {
+                    scratch[n++] = '"';
+                    p++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                scratch[n++] = b;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Parses the field as a decimal int; surrounding whitespace is ignored, as by String.trim().
+     * @throws NumberFormatException As Integer.parseInt would.
+     */
+    public int parseInt(int i) {
+        checkIndex(i);
+        if ((flags[i] & ESCAPED) != 0) {
+            return Integer.parseInt(string(i).trim());
+        }
+        int p = skipWhitespace(starts[i], ends[i]);
+        int end = trimWhitespace(p, ends[i]);
+        boolean negative = p < end && buf[p] == '-';
+        if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+            p++;
+        }
+        if (p == end) {
+            throw invalidNumber(i);
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = buf[p] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(i);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw invalidNumber(i);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber(i);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the field as a double. Plain decimals ("3399.99", "-0.5") are parsed in place
+     * with the same result as Double.parseDouble; anything else (exponents, very long
+     * mantissas) falls back to Double.parseDouble.
+     */
+    public double parseDouble(int i) {
+        checkIndex(i);
+        if ((flags[i] & ESCAPED) != 0) {
+            return Double.parseDouble(string(i).trim());
+        }
+        int p = skipWhitespace(starts[i], ends[i]);
+        int end = trimWhitespace(p, ends[i]);
+        boolean negative = p < end && buf[p] == '-';
+        if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1; // Digits after the point; -1 until the point is seen
+        for (; p < end; p++) {
+            byte b = buf[p];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits >= 18) {
+                return slowParseDouble(i);
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0 || mantissa >= (1L << 53) || scale >= POW10.length) {
+            return slowParseDouble(i);
+        }
+        double value = scale > 0 ? mantissa / POW10[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int i) {
+        return Double.parseDouble(string(i).trim());
+    }
+
+    /**
+     * Parses the field as an amount in Money units (1/10000), straight from the digits,
+     * so "271.9992" is exactly 2719992 with no double in between. Further decimals are
+     * rounded, halves away from zero; anything else (exponents, very long numbers) goes
+     * through Double.parseDouble and Money.toUnits.
+     */
+    public long parseMoney(int i) {
+        checkIndex(i);
+        if ((flags[i] & ESCAPED) != 0) {
+            return Money.toUnits(slowParseDouble(i));
+        }
+        int p = skipWhitespace(starts[i], ends[i]);
+        int end = trimWhitespace(p, ends[i]);
+        boolean negative = p < end && buf[p] == '-';
+        if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+            p++;
+        }
+        long units = 0;
+        int digits = 0;
+        int scale = -1; // Digits after the point; -1 until the point is seen
+        boolean roundUp = false;
+        for (; p < end; p++) {
+            byte b = buf[p];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits >= 18) {
+                return Money.toUnits(slowParseDouble(i));
+            }
+            digits++;
+            if (scale < Money.DECIMALS) {
+                units = units * 10 + digit;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (scale == Money.DECIMALS) {
+                roundUp = digit >= 5; // First dropped digit decides
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            return Money.toUnits(slowParseDouble(i));
+        }
+        for (int s = Math.max(scale, 0); s < Money.DECIMALS; s++) {
+            units = Math.multiplyExact(units, 10); // Throws like Money.toUnits when out of range
+        }
+        if (roundUp) {
+            units++;
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd field to days since 1970-01-01, without creating a LocalDate.
+     * @throws java.time.DateTimeException If the field is not a valid date in that format.
+     */
+    public long parseEpochDay(int i) {
+        checkIndex(i);
+        int p = skipWhitespace(starts[i], ends[i]);
+        int end = trimWhitespace(p, ends[i]);
+        if ((flags[i] & ESCAPED) != 0 || end - p != 10 || buf[p + 4] != '-' || buf[p + 7] != '-') {
+            return LocalDate.parse(string(i).trim()).toEpochDay();
+        }
+        int year = digits(p, 4, i);
+        int month = digits(p + 5, 2, i);
+        int day = digits(p + 8, 2, i);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            // Let LocalDate produce its usual error message
+            return LocalDate.of(year, month, day).toEpochDay();
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Parses a yyyy-MM-dd field. Consecutive rows with the same date share one LocalDate.
+     */
+    public LocalDate parseDate(int i) {
+        long epochDay = parseEpochDay(i);
+        if (epochDay != lastEpochDay) {
+            lastEpochDay = epochDay;
+            lastDate = LocalDate.ofEpochDay(epochDay);
+        }
+        return lastDate;
+    }
+
+    private int digits(int p, int n, int field) {
+        int value = 0;
+        for (int k = 0; k < n; k++) {
+            int digit = buf[p + k] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new java.time.format.DateTimeParseException(
+                        "Text '" + string(field) + "' could not be parsed", string(field), k);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days from 1970-01-01 to the given date in the proleptic Gregorian calendar
+     * (the "days from civil" algorithm: count from a March-based year so the leap day
+     * falls at the end).
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    // Skips the same leading and trailing bytes as String.trim(): anything <= ' '
+    private int skipWhitespace(int p, int end) {
+        while (p < end && (buf[p] & 0xff) <= ' ') {
+            p++;
+        }
+        return p;
+    }
+
+    private int trimWhitespace(int start, int end) {
+        while (end > start && (buf[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private NumberFormatException invalidNumber(int i) {
+        return new NumberFormatException("For input string: \"" + string(i) + "\"");
+    }
+}
@@ -0,0 +1,250 @@
+package Assignment2.src;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Answers "totals between date A and date B" without scanning the records.
+ *
+ * The records are bucketed by order date into one slot per calendar day between the first
+ * and the last date. Each metric (revenue, tax, quantity, line count) then gets a prefix-sum
+ * array: prefix[d] is the total of all days before day d. The total over any range of days
+ * is prefix[last + 1] - prefix[first], two array reads however many records there are.
+ * CONCEPT: Prefix Sums (O(1) range queries)
+ *
+ * Building the index is one scan; it does not change when the data does, so build a new one
+ * after reloading.
+ *
+ * Usage:
+ *   DateIndex index = DateIndex.of(records);      // or DateIndex.of(salesTable)
+ *   index.revenue(LocalDate.of(2019, 7, 1), LocalDate.of(2019, 7, 31));
+ *   index.rollup(DateIndex.Granularity.WEEK);
+ */
+public final class DateIndex {
+
+    /**
+     * Period lengths for rollup().
+     */
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        /**
+         * Parses a granularity name case-insensitively, e.g. "week".
+         */
+        public static Granularity fromName(String name) {
+            for (Granularity g : values()) {
+                if (g.name().equalsIgnoreCase(name)) {
+                    return g;
+                }
+            }
+            throw new IllegalArgumentException("Unknown granularity: " + name + " (use day, week or month)");
+        }
+
+        /**
+         * Returns the first day of the period containing the date. Weeks start on Monday.
+         */
+        LocalDate periodStart(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+
+        LocalDate nextPeriod(LocalDate periodStart) {
+            switch (this) {
+                case WEEK:
+                    return periodStart.plusWeeks(1);
+                case MONTH:
+                    return periodStart.plusMonths(1);
+                default:
+                    return periodStart.plusDays(1);
+            }
+        }
+    }
+
+    // Epoch day of slot 0; the index covers firstDay .. firstDay + days - 1
+    private final long firstDay;
+    private final int days;
+
+    // prefix[d] = total over slots 0 .. d-1, so each array has days + 1 entries
+    private final double[] revenuePrefix;
+    private final double[] taxPrefix;
+    private final long[] quantityPrefix;
+    private final long[] linePrefix;
+
+    private DateIndex(long firstDay, double[][] revenue, double[][] tax, long[] quantity, long[] lines) {
+        this.firstDay = firstDay;
+        this.days = lines.length;
+        this.revenuePrefix = new double[days + 1];
+        this.taxPrefix = new double[days + 1];
+        this.quantityPrefix = new long[days + 1];
+        this.linePrefix = new long[days + 1];
+        for (int d = 0; d < days; d++) {
+            revenuePrefix[d + 1] = revenuePrefix[d] + AggregationEngine.finalSum(revenue[d]);
+            taxPrefix[d + 1] = taxPrefix[d] + AggregationEngine.finalSum(tax[d]);
+            quantityPrefix[d + 1] = quantityPrefix[d] + quantity[d];
+            linePrefix[d + 1] = linePrefix[d] + lines[d];
+        }
+    }
+
+    /**
+     * Indexes a list of records.
+     */
+    public static DateIndex of(List<SalesRecord> records) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (SalesRecord r : records) {
+            long day = r.getOrderDate().toEpochDay();
+            min = Math.min(min, day);
+            max = Math.max(max, day);
+        }
+        int days = records.isEmpty() ? 0 : Math.toIntExact(max - min + 1);
+        double[][] revenue = new double[days][2];
+        double[][] tax = new double[days][2];
+        long[] quantity = new long[days];
+        long[] lines = new long[days];
+        for (SalesRecord r : records) {
+            int d = (int) (r.getOrderDate().toEpochDay() - min);
+            AggregationEngine.addCompensated(revenue[d], r.getLineRevenue());
+            AggregationEngine.addCompensated(tax[d], r.getTaxAmount());
+            quantity[d] += r.getQuantity();
+            lines[d]++;
+        }
+        return new DateIndex(min, revenue, tax, quantity, lines);
+    }
+
+    /**
+     * Indexes a columnar table, reading only its date and number columns.
+     */
+    public static DateIndex of(SalesTable table) {
+        int days = table.size == 0 ? 0 : table.maxDay - table.minDay + 1;
+        long[] revenueUnits = new long[days];
+        long[] taxUnits = new long[days];
+        long[] quantity = new long[days];
+        long[] lines = new long[days];
+        for (int row = 0; row < table.size; row++) {
+            int d = table.orderDay[row] - table.minDay;
+            revenueUnits[d] = Math.addExact(revenueUnits[d], table.quantity[row] * table.priceUnits[row]);
+            taxUnits[d] = Math.addExact(taxUnits[d], table.taxUnits[row]);
+            quantity[d] += table.quantity[row];
+            lines[d]++;
+        }
+        // Each day's total is exact; only the running totals are doubles
+        return new DateIndex(table.minDay, toSlots(revenueUnits), toSlots(taxUnits), quantity, lines);
+    }
+
+    private static double[][] toSlots(long[] units) {
+        double[][] slots = new double[units.length][2];
+        for (int d = 0; d < units.length; d++) {
+            slots[d][0] = Money.toDouble(units[d]);
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the earliest order date, or null if there are no records.
+     */
+    public LocalDate getFirstDate() {
+        return days == 0 ? null : LocalDate.ofEpochDay(firstDay);
+    }
+
+    public LocalDate getLastDate() {
+        return days == 0 ? null : LocalDate.ofEpochDay(firstDay + days - 1);
+    }
+
+    /**
+     * Revenue of all records dated from..to, both inclusive. O(1).
+     */
+    public double revenue(LocalDate from, LocalDate to) {
+        int a = lowerSlot(from);
+        int b = upperSlot(to);
+        return a < b ? revenuePrefix[b] - revenuePrefix[a] : 0.0;
+    }
+
+    /**
+     * All four totals of the records dated from..to, both inclusive. O(1).
+     */
+    public Totals totals(LocalDate from, LocalDate to) {
+        return totalsOfSlots(lowerSlot(from), upperSlot(to));
+    }
+
+    /**
+     * Totals per day, week (starting Monday) or calendar month, keyed by the first day of
+     * each period, for every period between the first and last date. Periods without sales
+     * are included with zero totals. O(number of periods).
+     */
+    public SortedMap<LocalDate, Totals> rollup(Granularity granularity) {
+        SortedMap<LocalDate, Totals> result = new TreeMap<>();
+        if (days == 0) {
+            return result;
+        }
+        LocalDate last = getLastDate();
+        for (LocalDate start = granularity.periodStart(getFirstDate()); !start.isAfter(last);
+             start = granularity.nextPeriod(start)) {
+            LocalDate end = granularity.nextPeriod(start).minusDays(1);
+            result.put(start, totals(start, end));
+        }
+        return result;
+    }
+
+    /**
+     * Slot of the first day in range: from, clamped into the index.
+     */
+    private int lowerSlot(LocalDate from) {
+        long d = from.toEpochDay() - firstDay;
+        return (int) Math.max(0, Math.min(days, d));
+    }
+
+    /**
+     * Slot just past the last day in range: to + 1, clamped into the index.
+     */
+    private int upperSlot(LocalDate to) {
+        long d = to.toEpochDay() - firstDay + 1;
+        return (int) Math.max(0, Math.min(days, d));
+    }
+
+    private Totals totalsOfSlots(int a, int b) {
+        if (a >= b) {
+            return new Totals(0.0, 0.0, 0L, 0L);
+        }
+        return new Totals(revenuePrefix[b] - revenuePrefix[a], taxPrefix[b] - taxPrefix[a],
+                quantityPrefix[b] - quantityPrefix[a], linePrefix[b] - linePrefix[a]);
+    }
+
+    /**
+     * Revenue, tax, quantity and number of order lines over a date range.
+     * Revenue and tax are differences of running totals, so they can be off from a direct
+     * sum by rounding in the last digits.
+     */
+    public static final class Totals {
+        private final double revenue;
+        private final double tax;
+        private final long quantity;
+        private final long lines;
+
+        Totals(double revenue, double tax, long quantity, long lines) {
+            this.revenue = revenue;
+            this.tax = tax;
+            this.quantity = quantity;
+            this.lines = lines;
+        }
+
+        public double getRevenue() { return revenue; }
+        public double getTax() { return tax; }
+        public long getQuantity() { return quantity; }
+        public long getLines() { return lines; }
+
+        @Override
+        public String toString() {
+            return String.format("revenue=%.2f tax=%.2f quantity=%d lines=%d", revenue, tax, quantity, lines);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package Assignment2.src;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Distinct customers, orders and items, overall and per order date, without keeping a
+ * map of every key.
+ *
+ * Every dimension has one HyperLogLog over all records, plus one per order date. Distinct
+ * counts cannot be added up across days (a customer who bought on two days would count
+ * twice), but sketches can be merged: the merged sketches of a date range count each key
+ * once. So any range, week or month is answered from the day sketches.
+ * CONCEPT: Mergeable Sketches (distinct counts by union)
+ *
+ * Memory: 3 * 2^precision bytes overall, plus 3 * 2^bucketPrecision bytes per day with
+ * sales. The defaults (14 and 10) are 48 KB plus 3 KB per day, with standard errors of
+ * 0.81% overall and 3.25% per day or range.
+ *
+ * The counter is a Consumer<SalesRecord>, so it can be fed straight from the streaming
+ * loader; two counters with the same precisions merge, so partitions can be counted
+ * separately:
+ *   DistinctCounts counts = new DistinctCounts();
+ *   new SalesDataLoader().forEach(path, counts);
+ *   counts.estimate(DistinctCounts.Dimension.CUSTOMERS);
+ *   counts.byPeriod(DistinctCounts.Dimension.ORDERS, DateIndex.Granularity.MONTH);
+ */
+public final class DistinctCounts implements Consumer<SalesRecord> {
+
+    /**
+     * What is counted: customers (by email, as in getOrdersByCustomer), sales order
+     * numbers, or items.
+     */
+    public enum Dimension {
+        CUSTOMERS, ORDERS, ITEMS
+    }
+
+    public static final int DEFAULT_PRECISION = 14;
+    public static final int DEFAULT_BUCKET_PRECISION = 10;
+
+    private final int precision;
+    private final int bucketPrecision;
+    private final HyperLogLog[] overall;
+    private final TreeMap<LocalDate, HyperLogLog[]> byDay = new TreeMap<>();
+    // Records usually arrive grouped by date, so the last day's sketches are kept at hand
+    private LocalDate lastDay;
+    private HyperLogLog[] lastSketches;
+
+    public DistinctCounts() {
+        this(DEFAULT_PRECISION, DEFAULT_BUCKET_PRECISION);
+    }
+
+    /**
+     * @param precision HyperLogLog precision of the overall counts.
+     * @param bucketPrecision HyperLogLog precision of each day's counts.
+     */
+    public DistinctCounts(int precision, int bucketPrecision) {
+        this.precision = precision;
+        this.bucketPrecision = bucketPrecision;
+        this.overall = newSketches(precision);
+    }
+
+    /**
+     * Counts a list of records in one scan.
+     */
+    public static DistinctCounts of(List<SalesRecord> records) {
+        DistinctCounts counts = new DistinctCounts();
+        records.forEach(counts);
+        return counts;
+    }
+
+    @Override
+    public void accept(SalesRecord r) {
+        if (!r.getOrderDate().equals(lastDay)) {
+            lastDay = r.getOrderDate();
+            lastSketches = byDay.computeIfAbsent(lastDay, d -> newSketches(bucketPrecision));
+        }
+        add(overall, r);
+        add(lastSketches, r);
+    }
+
+    private static void add(HyperLogLog[] sketches, SalesRecord r) {
+        sketches[Dimension.CUSTOMERS.ordinal()].add(r.getEmailAddress());
+        sketches[Dimension.ORDERS.ordinal()].add(r.getSalesOrderNumber());
+        sketches[Dimension.ITEMS.ordinal()].add(r.getItem());
+    }
+
+    /**
+     * Folds another counter into this one, which then counts the records of both.
+     * Returns this counter.
+     */
+    public DistinctCounts merge(DistinctCounts other) {
+        if (other.precision != precision || other.bucketPrecision != bucketPrecision) {
+            throw new IllegalArgumentException("Cannot merge counters with different precisions");
+        }
+        mergeInto(overall, other.overall);
+        for (Map.Entry<LocalDate, HyperLogLog[]> e : other.byDay.entrySet()) {
+            mergeInto(byDay.computeIfAbsent(e.getKey(), d -> newSketches(bucketPrecision)), e.getValue());
+        }
+        return this;
+    }
+
+    private static void mergeInto(HyperLogLog[] into, HyperLogLog[] other) {
+        for (int d = 0; d < into.length; d++) {
+            into[d].merge(other[d]);
+        }
+    }
+
+    /**
+     * Estimated number of distinct keys over all records.
+     */
+    public long estimate(Dimension dimension) {
+        return overall[dimension.ordinal()].estimate();
+    }
+
+    /**
+     * Estimated number of distinct keys among the records dated from..to, both inclusive.
+     */
+    public long estimate(Dimension dimension, LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog(bucketPrecision);
+        if (!from.isAfter(to)) {
+            for (HyperLogLog[] day : byDay.subMap(from, true, to, true).values()) {
+                union.merge(day[dimension.ordinal()]);
+            }
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Estimated distinct keys per day, week (starting Monday) or calendar month, keyed by
+     * the first day of each period. Only periods with sales are listed.
+     */
+    public SortedMap<LocalDate, Long> byPeriod(Dimension dimension, DateIndex.Granularity granularity) {
+        TreeMap<LocalDate, HyperLogLog> periods = new TreeMap<>();
+        for (Map.Entry<LocalDate, HyperLogLog[]> e : byDay.entrySet()) {
+            periods.computeIfAbsent(granularity.periodStart(e.getKey()), p -> new HyperLogLog(bucketPrecision))
+                    .merge(e.getValue()[dimension.ordinal()]);
+        }
+        SortedMap<LocalDate, Long> result = new TreeMap<>();
+        periods.forEach((start, sketch) -> result.put(start, sketch.estimate()));
+        return result;
+    }
+
+    /**
+     * Relative standard error of the overall estimates.
+     */
+    public double getStandardError() {
+        return HyperLogLog.standardError(precision);
+    }
+
+    /**
+     * Relative standard error of the per-day, per-range and per-period estimates.
+     */
+    public double getBucketStandardError() {
+        return HyperLogLog.standardError(bucketPrecision);
+    }
+
+    /**
+     * Memory used by all sketches, in bytes.
+     */
+    public long getMemoryBytes() {
+        return Dimension.values().length * ((1L << precision) + (long) byDay.size() * (1L << bucketPrecision));
+    }
+
+    private static HyperLogLog[] newSketches(int precision) {
+        HyperLogLog[] sketches = new HyperLogLog[Dimension.values().length];
+        for (int d = 0; d < sketches.length; d++) {
+            sketches[d] = new HyperLogLog(precision);
+        }
+        return sketches;
+    }
+}
@@ -0,0 +1,120 @@
+package Assignment2.src;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Exact sums over fixed-point (Money unit) columns, using SIMD instructions when the
+ * JDK's Vector API is available.
+ *
+ * Long addition is exact and associative, so the column can be added up in any order:
+ * several lanes at once, then the lanes together. The vector loops live in
+ * Assignment2.src.vector.VectorSums, which needs the incubator module jdk.incubator.vector
+ * to compile and run. When that class or the module is missing, the plain loops below
+ * are used instead. Both give the same, exact result.
+ * CONCEPT: SIMD with Scalar Fallback
+ *
+ * Enable the vector path by compiling src/vector and running with
+ *   java --add-modules jdk.incubator.vector ...
+ *
+ * The sums do not check for overflow: callers make sure the total fits in a long
+ * (see SalesTable).
+ */
+public final class FixedPointSums {
+
+    private static final MethodHandle SUM;
+    private static final MethodHandle DOT;
+    private static final boolean VECTORIZED;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType sumType = MethodType.methodType(long.class, long[].class, int.class, int.class);
+        MethodType dotType = MethodType.methodType(long.class, int[].class, long[].class, int.class, int.class);
+        MethodHandle sum;
+        MethodHandle dot;
+        boolean vectorized;
+        try {
+            Class<?> vector = Class.forName("Assignment2.src.vector.VectorSums");
+            sum = lookup.findStatic(vector, "sum", sumType);
+            dot = lookup.findStatic(vector, "dot", dotType);
+            // Fails here, not on first use, if the module was not added at run time
+            long probe = (long) dot.invokeExact(new int[] {2}, new long[] {3}, 0, 1)
+                    + (long) sum.invokeExact(new long[] {1}, 0, 1);
+            vectorized = probe == 7;
+        } catch (Throwable e) {
+            vectorized = false;
+            sum = null;
+            dot = null;
+        }
+        if (!vectorized) {
+            try {
+                sum = lookup.findStatic(FixedPointSums.class, "scalarSum", sumType);
+                dot = lookup.findStatic(FixedPointSums.class, "scalarDot", dotType);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        SUM = sum;
+        DOT = dot;
+        VECTORIZED = vectorized;
+    }
+
+    private FixedPointSums() {
+    }
+
+    /**
+     * Whether sum() and dot() run on the Vector API.
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Returns values[from] + ... + values[to - 1].
+     */
+    public static long sum(long[] values, int from, int to) {
+        try {
+            return (long) SUM.invokeExact(values, from, to);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Returns the multiply-accumulate quantity[k] * price[k] over k = from .. to - 1.
+     */
+    public static long dot(int[] quantity, long[] price, int from, int to) {
+        try {
+            return (long) DOT.invokeExact(quantity, price, from, to);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public static long scalarSum(long[] values, int from, int to) {
+        long total = 0;
+        for (int k = from; k < to; k++) {
+            total += values[k];
+        }
+        return total;
+    }
+
+    public static long scalarDot(int[] quantity, long[] price, int from, int to) {
+        long total = 0;
+        for (int k = from; k < to; k++) {
+            total += quantity[k] * price[k];
+        }
+        return total;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,110 @@
+package Assignment2.src;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate top-k keys of a stream, in fixed memory.
+ *
+ * A CountMinSketch estimates every key's running total; next to it, a candidate table
+ * keeps only the k keys with the highest estimates so far. A new key enters the table
+ * when its estimate beats the weakest candidate, which is then dropped. Memory is the
+ * sketch (fixed by epsilon and delta) plus k entries, however many distinct keys
+ * the stream has.
+ * CONCEPT: Heavy Hitters (sketch + bounded candidate set)
+ *
+ * Accuracy: every reported total is never below the true one and at most epsilon * N
+ * above it (with probability 1 - delta, N = total weight). A key drops out only when
+ * other keys' estimates overtake it, and the sketch keeps counting it meanwhile, so when
+ * epsilon * N is small next to the gap between the top keys and the rest, the reported
+ * keys are the exact top k.
+ *
+ * Usage, e.g. straight from the streaming loader:
+ *   HeavyHitters<String> items = new HeavyHitters<>(10, 0.0001, 0.01);
+ *   new SalesDataLoader().forEach(path, r -> items.add(r.getItem(), r.getQuantity()));
+ *   items.top();
+ */
+public final class HeavyHitters<K> {
+
+    private final int k;
+    private final CountMinSketch sketch;
+    // Candidate key -> its latest estimate
+    private final HashMap<K, Double> candidates;
+    // Weakest candidate, or null when it has to be searched again
+    private K minKey;
+
+    /**
+     * @param k Number of keys to report.
+     * @param epsilon Error bound as a fraction of the total weight.
+     * @param delta Probability that an estimate exceeds that bound.
+     */
+    public HeavyHitters(int k, double epsilon, double delta) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.candidates = new HashMap<>(k * 2);
+    }
+
+    /**
+     * Adds a non-negative weight for the key (use 1 to count occurrences).
+     */
+    public void add(K key, double weight) {
+        sketch.add(key, weight);
+        double estimate = sketch.estimate(key);
+        if (candidates.containsKey(key)) {
+            candidates.put(key, estimate);
+            if (key.equals(minKey)) {
+                minKey = null; // It grew, so it may no longer be the weakest
+            }
+        } else if (candidates.size() < k) {
+            candidates.put(key, estimate);
+            minKey = null;
+        } else {
+            K weakest = weakest();
+            if (estimate > candidates.get(weakest)) {
+                candidates.remove(weakest);
+                candidates.put(key, estimate);
+                minKey = null;
+            }
+        }
+    }
+
+    private K weakest() {
+        if (minKey == null) {
+            double min = Double.MAX_VALUE;
+            for (Map.Entry<K, Double> e : candidates.entrySet()) {
+                if (e.getValue() < min) {
+                    min = e.getValue();
+                    minKey = e.getKey();
+                }
+            }
+        }
+        return minKey;
+    }
+
+    /**
+     * Returns up to k keys with their estimated totals, largest first.
+     */
+    public List<Map.Entry<K, Double>> top() {
+        // Refresh: collisions may have raised a candidate's estimate since it was stored
+        Map<K, Double> current = new HashMap<>();
+        for (K key : candidates.keySet()) {
+            current.put(key, sketch.estimate(key));
+        }
+        return TopK.largest(current, k);
+    }
+
+    /**
+     * Estimated total of any key, reported or not.
+     */
+    public double estimate(K key) {
+        return sketch.estimate(key);
+    }
+
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+}
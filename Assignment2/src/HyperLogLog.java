@@ -0,0 +1,155 @@
+package Assignment2.src;
+
+/**
+ * Estimates how many distinct keys a stream contains, in a few kilobytes.
+ *
+ * Each key is hashed to 64 random-looking bits. The first p bits pick one of m = 2^p
+ * registers; the register remembers the longest run of leading zeros seen in the remaining
+ * bits. A run of r zeros turns up about once per 2^r distinct keys, so the registers
+ * together tell how many distinct keys went by. Adding the same key again changes nothing.
+ * CONCEPT: Cardinality Estimation (HyperLogLog)
+ *
+ * Accuracy: the standard error is about 1.04 / sqrt(m), e.g. 0.81% at p = 14 (16 KB);
+ * about 95% of estimates fall within two standard errors of the true count. Small counts
+ * (below 2.5 * m) use linear counting over the empty registers and are nearly exact.
+ *
+ * Sketches merge: the register-wise maximum of two sketches is exactly the sketch of the
+ * union of their streams. Threads or partitions can each fill their own and merge at the
+ * end, in any order, with the same result.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision p, from 4 to 18: the sketch uses 2^p bytes.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "precision must be in " + MIN_PRECISION + ".." + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Records a key. Strings are hashed over all their characters to 64 bits; other keys
+     * through their hashCode.
+     */
+    public void add(Object key) {
+        addHash(hash(key));
+    }
+
+    private void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the bits below the index; the trailing 1 bit caps the run
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Folds another sketch of the same precision into this one, which then counts the
+     * union of both streams. Returns this sketch.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge precision " + other.precision + " into precision " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the estimated number of distinct keys added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int empty = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                empty++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && empty > 0) {
+            // Few keys: count how many registers are still empty instead
+            estimate = m * Math.log((double) m / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the relative standard error of estimate(), 1.04 / sqrt(2^p).
+     */
+    public double getStandardError() {
+        return standardError(precision);
+    }
+
+    public static double standardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Memory used by the registers, in bytes: one per register.
+     */
+    public long getMemoryBytes() {
+        return registers.length;
+    }
+
+    /**
+     * 64-bit hash: FNV-1a over the characters of a string (a 32-bit hashCode would collide
+     * too often among millions of keys), then the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(Object key) {
+        long h;
+        if (key instanceof CharSequence) {
+            CharSequence s = (CharSequence) key;
+            h = 0xCBF29CE484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * 0x100000001B3L;
+            }
+        } else {
+            h = key.hashCode();
+        }
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
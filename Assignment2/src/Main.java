@@ -6,32 +6,79 @@ import java.util.Optional;
 
 public class Main {
 
+    /**
+     * Usage: java Main [--stream | --cache] [file]
+     * With --stream the rows are aggregated as they are parsed, so the record list is
+     * never built and memory does not grow with the file.
+     * With --cache the data is read from a binary snapshot next to the CSV when it is
+     * up to date (and the snapshot is written when it is not), skipping text parsing.
+     */
     public static void main(String[] args) {
+        boolean streaming = false;
+        boolean cached = false;
         String filePath = "data/sales.csv";
+        for (String arg : args) {
+            if (arg.equals("--stream")) {
+                streaming = true;
+            } else if (arg.equals("--cache")) {
+                cached = true;
+            } else {
+                filePath = arg;
+            }
+        }
+        if (streaming && cached) {
+            System.out.println("Use either --stream or --cache, not both.");
+            return;
+        }
 
-        // 1. Data Loading Phase
+        double totalRevenue;
+        double totalTax;
+        Optional<Map.Entry<String, Integer>> mostSold;
+        long recordCount;
+
+        // 1. Data Loading & 2. Data Analysis Phase
         SalesDataLoader loader = new SalesDataLoader();
-        List<SalesRecord> records = loader.load(filePath);
+        if (cached) {
+            // Columns straight from the snapshot; the table computes the same figures
+            SalesTable table = loader.loadTable(filePath);
+            totalRevenue = table.getTotalRevenue();
+            totalTax = table.getTotalTaxCollected();
+            mostSold = table.getMostSoldItem();
+            recordCount = table.size();
+        } else {
+            // All figures come from one pass over the records (see SalesAnalytics for the
+            // equivalent one-stream-per-figure methods)
+            AggregationEngine engine = new AggregationEngine();
+            AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+            AggregationEngine.DoubleSum tax = engine.sum(SalesRecord::getTaxAmount);
+            AggregationEngine.GroupedIntSum<String> quantityByItem =
+                    engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+            if (streaming) {
+                loader.forEach(filePath, engine);
+            } else {
+                List<SalesRecord> records = loader.load(filePath);
+                engine.run(records);
+            }
+            totalRevenue = revenue.get();
+            totalTax = tax.get();
+            mostSold = quantityByItem.max();
+            recordCount = engine.getRecordCount();
+        }
 
-        if (records.isEmpty()) {
+        if (recordCount == 0) {
             System.out.println("No sales records found. Please check the CSV file path: " + filePath);
             return;
         }
 
-        // 2. Data Analysis Phase
-        SalesAnalytics analytics = new SalesAnalytics();
         System.out.println("=== Sales Analysis Report ===\n");
 
         // Data Aggregation (Summing Revenue)
-        double totalRevenue = analytics.getTotalRevenue(records);
         System.out.printf("Total Revenue:       $%.2f%n", totalRevenue);
 
         // Data Aggregation (Summing Tax)
-        double totalTax = analytics.getTotalTaxCollected(records);
         System.out.printf("Total Tax Collected: $%.2f%n", totalTax);
 
-        // Grouping & Finding Max (Functional Operation)
-        Optional<Map.Entry<String, Integer>> mostSold = analytics.getMostSoldItem(records);
+        // Grouping & Finding Max
         if (mostSold.isPresent()) {
             System.out.println("Most Sold Item:      " + mostSold.get().getKey() +
                                " (Total Qty: " + mostSold.get().getValue() + ")");
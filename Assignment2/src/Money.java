@@ -0,0 +1,53 @@
+package Assignment2.src;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money: amounts stored as whole numbers of 1/10000 units (SCALE), in a long.
+ *
+ * A double cannot hold most decimal amounts exactly (0.1 is really
+ * 0.1000000000000000055...), so sums of many doubles drift away from the true total in
+ * the last digits, and the drift depends on the order of the additions. A long count of
+ * ten-thousandths holds every 4-decimal amount in sales.csv exactly, and adding or
+ * multiplying longs is exact, so totals come out the same in any order.
+ * CONCEPT: Fixed-Point Arithmetic
+ *
+ * Range: a long holds up to about 9.2e14 currency units (Long.MAX_VALUE / SCALE).
+ * Amounts with more than 4 decimals are rounded to the nearest unit, halves away from zero.
+ */
+public final class Money {
+
+    public static final int DECIMALS = 4;
+    public static final long SCALE = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to units, rounding to the nearest 1/10000.
+     * @throws ArithmeticException If the amount is not finite or does not fit in a long.
+     */
+    public static long toUnits(double amount) {
+        double scaled = amount * SCALE;
+        if (!(Math.abs(scaled) < 0x1p63)) {
+            throw new ArithmeticException("Amount out of fixed-point range: " + amount);
+        }
+        long units = Math.round(Math.abs(scaled));
+        return scaled < 0 ? -units : units;
+    }
+
+    /**
+     * Converts units back to the nearest double. For an amount with at most 4 decimals
+     * this is the same double the decimal text parses to, so toDouble(toUnits(x)) == x.
+     */
+    public static double toDouble(long units) {
+        return units / (double) SCALE;
+    }
+
+    /**
+     * Converts units to an exact decimal, e.g. 271999 -> 27.1999.
+     */
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, DECIMALS);
+    }
+}
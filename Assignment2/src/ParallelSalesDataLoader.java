@@ -0,0 +1,238 @@
+package Assignment2.src;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the same CSV as SalesDataLoader, but splits the file into byte ranges and
+ * parses them in parallel on a fork-join pool.
+ * CONCEPT: Data Parallelism
+ *
+ * The hard part is that a split point can fall anywhere, even inside a quoted field
+ * that contains commas or newlines, and from the bytes alone you cannot tell whether
+ * you are inside quotes. So loading takes two parallel passes:
+ *   1. Scan: every chunk counts its quote characters and records its first newline
+ *      for both possibilities (chunk starts outside quotes / inside quotes).
+ *      A running XOR of the quote counts then tells exactly which case is true for each
+ *      chunk, and so where its first real record starts.
+ *   2. Parse: every chunk parses the records from its record start up to the next
+ *      chunk's record start, and the per-chunk lists are merged.
+ *
+ * Quoting follows RFC 4180: a field in double quotes may contain commas, newlines and
+ * doubled quotes ("" stands for "). Both loaders split rows with CsvTokenizer and map
+ * them with SalesDataLoader.toRecord(), so they accept the same rows.
+ */
+public class ParallelSalesDataLoader {
+
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static final int MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final boolean preserveOrder;
+    private final int chunkBytes;
+
+    /**
+     * Uses the common pool, keeps file order and picks the chunk size automatically.
+     */
+    public ParallelSalesDataLoader() {
+        this(ForkJoinPool.commonPool(), true, 0);
+    }
+
+    /**
+     * @param pool Runs the scan and parse tasks.
+     * @param preserveOrder If false, chunks are merged as they finish, so records come
+     *                      back grouped by chunk in completion order.
+     * @param chunkBytes Bytes per chunk, or 0 to derive it from the file size and pool size.
+     */
+    public ParallelSalesDataLoader(ForkJoinPool pool, boolean preserveOrder, int chunkBytes) {
+        if (chunkBytes < 0) {
+            throw new IllegalArgumentException("chunkBytes must not be negative: " + chunkBytes);
+        }
+        this.pool = pool;
+        this.preserveOrder = preserveOrder;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public List<SalesRecord> load(String filePath) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+            long chunk = chunkBytes > 0 ? chunkBytes : chooseChunkBytes(size);
+            int chunks = (int) ((size + chunk - 1) / chunk);
+
+            // Pass 1: scan all chunks in parallel
+            List<Callable<ChunkScan>> scans = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                long from = i * chunk;
+                long to = Math.min(size, from + chunk);
+                scans.add(() -> scan(channel, from, to));
+            }
+            List<ChunkScan> scanned = new ArrayList<>();
+            for (Future<ChunkScan> f : pool.invokeAll(scans)) {
+                scanned.add(f.get());
+            }
+
+            long[] starts = recordStarts(scanned, size);
+
+            // Pass 2: parse each chunk's records in parallel
+            List<Callable<List<SalesRecord>>> parses = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                long from = starts[i];
+                long to = starts[i + 1];
+                if (from < to) {
+                    parses.add(() -> parse(channel, from, to));
+                }
+            }
+            return preserveOrder ? mergeInOrder(parses) : mergeAsCompleted(parses);
+        } catch (IOException e) {
+            System.err.println("Error loading CSV file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Same behaviour as the sequential loader: a malformed number propagates
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                System.err.println("Error loading CSV file: " + cause.getCause().getMessage());
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * About four chunks per worker, so a slow chunk can be balanced by the others.
+     */
+    private long chooseChunkBytes(long size) {
+        long perTask = size / (pool.getParallelism() * 4L);
+        return Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, perTask));
+    }
+
+    /**
+     * Works out where the first record of every chunk starts.
+     * starts[i] .. starts[i + 1] are the bytes chunk i parses; starts[0] is just past
+     * the header line. A chunk without a record boundary (one long quoted field) gets
+     * the next chunk's start, i.e. an empty range.
+     */
+    static long[] recordStarts(List<ChunkScan> scans, long size) {
+        int chunks = scans.size();
+        int[] stateAtStart = new int[chunks];
+        int state = 0; // 0 = outside quotes, 1 = inside
+        for (int i = 0; i < chunks; i++) {
+            stateAtStart[i] = state;
+            state ^= scans.get(i).quoteParity;
+        }
+        long[] starts = new long[chunks + 1];
+        starts[chunks] = size;
+        for (int i = chunks - 1; i >= 0; i--) {
+            long boundary = scans.get(i).firstRecordStart[stateAtStart[i]];
+            starts[i] = boundary >= 0 ? boundary : starts[i + 1];
+        }
+        return starts;
+    }
+
+    private static ChunkScan scan(FileChannel channel, long from, long to) {
+        byte[] bytes = read(channel, from, to);
+        ChunkScan result = new ChunkScan();
+        int parity = 0;
+        for (int j = 0; j < bytes.length; j++) {
+            byte b = bytes[j];
+            if (b == '"') {
+                parity ^= 1;
+            } else if (b == '\n' && result.firstRecordStart[parity] < 0) {
+                // A real record boundary if the chunk started with quote state == parity
+                result.firstRecordStart[parity] = from + j + 1;
+            }
+        }
+        result.quoteParity = parity;
+        return result;
+    }
+
+    private static List<SalesRecord> parse(FileChannel channel, long from, long to) {
+        List<SalesRecord> records = new ArrayList<>();
+        parseRecords(read(channel, from, to), records);
+        return records;
+    }
+
+    /**
+     * Splits whole CSV records out of the bytes and maps them to SalesRecords.
+     */
+    static void parseRecords(byte[] bytes, List<SalesRecord> out) {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        tokenizer.reset(bytes, 0, bytes.length, true);
+        while (tokenizer.nextRecord()) {
+            SalesRecord record = SalesDataLoader.toRecord(tokenizer);
+            if (record != null) {
+                out.add(record);
+            }
+        }
+    }
+
+    private List<SalesRecord> mergeInOrder(List<Callable<List<SalesRecord>>> parses)
+            throws InterruptedException, ExecutionException {
+        List<SalesRecord> records = new ArrayList<>();
+        for (Future<List<SalesRecord>> f : pool.invokeAll(parses)) {
+            records.addAll(f.get());
+        }
+        return records;
+    }
+
+    private List<SalesRecord> mergeAsCompleted(List<Callable<List<SalesRecord>>> parses)
+            throws InterruptedException, ExecutionException {
+        ExecutorCompletionService<List<SalesRecord>> completion = new ExecutorCompletionService<>(pool);
+        for (Callable<List<SalesRecord>> parse : parses) {
+            completion.submit(parse);
+        }
+        // Copy each chunk while the others are still parsing
+        List<SalesRecord> records = new ArrayList<>();
+        for (int i = 0; i < parses.size(); i++) {
+            records.addAll(completion.take().get());
+        }
+        return records;
+    }
+
+    /**
+     * Reads bytes [from, to) with positional reads, which are safe to run concurrently
+     * on one FileChannel.
+     */
+    private static byte[] read(FileChannel channel, long from, long to) {
+        byte[] bytes = new byte[(int) (to - from)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, from + buffer.position());
+                if (n < 0) {
+                    throw new IOException("File shrank while loading");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * What pass 1 learns about one chunk.
+     */
+    static final class ChunkScan {
+        // Number of quote characters in the chunk, mod 2
+        int quoteParity;
+        // File offset just past the first newline seen with local quote parity 0 / 1, or -1
+        final long[] firstRecordStart = {-1, -1};
+    }
+}
@@ -1,21 +1,66 @@
 package Assignment2.src;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
  * Core analytical engine.
+ *
+ * By default every method is one sequential stream. Constructed with a ForkJoinPool, the
+ * same methods run in parallel instead (see aggregate()): the list is split into ranges,
+ * each task fills its own accumulator, and the accumulators are merged pairwise as the
+ * tasks join, so every thread works without locks and only merges small maps.
+ * CONCEPT: Parallel Aggregation (thread-local accumulate, tree merge)
  */
 public class SalesAnalytics {
 
+    // Smallest range a parallel task scans on its own
+    private static final int MIN_LEAF_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Sequential mode: each method is one sequential stream.
+     */
+    public SalesAnalytics() {
+        this(null);
+    }
+
+    /**
+     * Parallel mode: methods run on the pool, whose parallelism sets the number of threads.
+     * Totals may differ from sequential mode in the last digits, because the additions
+     * happen in a different order.
+     * @param pool The pool to run on, or null for sequential mode.
+     */
+    public SalesAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
     /**
      * Calculates total revenue across all records.
      * CONCEPT: Stream Reduction
      */
     public double getTotalRevenue(List<SalesRecord> records) {
+        if (isParallel()) {
+            return parallelSum(records, SalesRecord::getLineRevenue);
+        }
         return records.stream() // Convert list to Stream
                 .mapToDouble(SalesRecord::getLineRevenue) // Map object to double (Lambda: Reference Method)
                 .sum(); // Terminal operation: Aggregation
@@ -26,6 +71,9 @@ public class SalesAnalytics {
      * CONCEPT: Grouping & Downstream Collection
      */
     public Map<String, Double> getRevenueByItem(List<SalesRecord> records) {
+        if (isParallel()) {
+            return parallelSumBy(records, SalesRecord::getItem);
+        }
         return records.stream()
                 .collect(Collectors.groupingBy(
                         SalesRecord::getItem, // Classifier
@@ -38,6 +86,14 @@ public class SalesAnalytics {
      * CONCEPT: Counting Aggregation
      */
     public Map<String, Long> getOrdersByCustomer(List<SalesRecord> records) {
+        if (isParallel()) {
+            HashMap<String, long[]> counts = aggregate(records, HashMap::new,
+                    (map, r) -> map.computeIfAbsent(r.getEmailAddress(), k -> new long[1])[0]++,
+                    (a, b) -> mergeInto(a, b, (x, y) -> x[0] += y[0]));
+            Map<String, Long> result = new HashMap<>();
+            counts.forEach((k, slot) -> result.put(k, slot[0]));
+            return result;
+        }
         return records.stream()
                 .collect(Collectors.groupingBy(
                         SalesRecord::getEmailAddress,
@@ -50,6 +106,9 @@ public class SalesAnalytics {
      * CONCEPT: Time-series Grouping
      */
     public Map<LocalDate, Double> getRevenueByDate(List<SalesRecord> records) {
+        if (isParallel()) {
+            return parallelSumBy(records, SalesRecord::getOrderDate);
+        }
         return records.stream()
                 .collect(Collectors.groupingBy(
                         SalesRecord::getOrderDate,
@@ -63,15 +122,63 @@ public class SalesAnalytics {
      */
     public Optional<Map.Entry<String, Integer>> getMostSoldItem(List<SalesRecord> records) {
         // Step 1: Group by Item and Sum Quantities
-        Map<String, Integer> quantityByItem = records.stream()
+        Map<String, Integer> quantityByItem = getQuantityByItem(records);
+
+        // Step 2: Stream the map entries to find the Max value
+        return quantityByItem.entrySet().stream()
+                .max(Map.Entry.comparingByValue()); // Lambda comparator
+    }
+
+    private Map<String, Integer> getQuantityByItem(List<SalesRecord> records) {
+        if (isParallel()) {
+            HashMap<String, int[]> totals = aggregate(records, HashMap::new,
+                    (map, r) -> map.computeIfAbsent(r.getItem(), k -> new int[1])[0] += r.getQuantity(),
+                    (a, b) -> mergeInto(a, b, (x, y) -> x[0] += y[0]));
+            Map<String, Integer> quantityByItem = new HashMap<>();
+            for (Map.Entry<String, int[]> e : totals.entrySet()) {
+                quantityByItem.put(e.getKey(), e.getValue()[0]);
+            }
+            return quantityByItem;
+        }
+        return records.stream()
                 .collect(Collectors.groupingBy(
                         SalesRecord::getItem,
                         Collectors.summingInt(SalesRecord::getQuantity)
                 ));
+    }
 
-        // Step 2: Stream the map entries to find the Max value
-        return quantityByItem.entrySet().stream()
-                .max(Map.Entry.comparingByValue()); // Lambda comparator
+    /**
+     * Finds the k items with the largest total quantity, largest first.
+     * CONCEPT: Top-K with a Bounded Heap (see TopK)
+     */
+    public List<Map.Entry<String, Integer>> getTopItemsByQuantity(List<SalesRecord> records, int k) {
+        return TopK.largest(getQuantityByItem(records), k);
+    }
+
+    /**
+     * Finds the k items with the largest revenue, largest first.
+     */
+    public List<Map.Entry<String, Double>> getTopItemsByRevenue(List<SalesRecord> records, int k) {
+        return TopK.largest(getRevenueByItem(records), k);
+    }
+
+    /**
+     * Finds the k customers (by email) with the most order lines, largest first.
+     */
+    public List<Map.Entry<String, Long>> getTopCustomersByOrders(List<SalesRecord> records, int k) {
+        return TopK.largest(getOrdersByCustomer(records), k);
+    }
+
+    /**
+     * Estimates distinct customers, orders and items, overall and per date, without a map
+     * of every key. In parallel mode each task fills its own sketches and they are merged.
+     * CONCEPT: Cardinality Estimation (see DistinctCounts)
+     */
+    public DistinctCounts getDistinctCounts(List<SalesRecord> records) {
+        if (isParallel()) {
+            return aggregate(records, DistinctCounts::new, DistinctCounts::accept, DistinctCounts::merge);
+        }
+        return DistinctCounts.of(records);
     }
 
     /**
@@ -79,8 +186,113 @@ public class SalesAnalytics {
      * CONCEPT: Simple Aggregation
      */
     public double getTotalTaxCollected(List<SalesRecord> records) {
+        if (isParallel()) {
+            return parallelSum(records, SalesRecord::getTaxAmount);
+        }
         return records.stream()
                 .mapToDouble(SalesRecord::getTaxAmount)
                 .sum();
     }
-}
\ No newline at end of file
+
+    // ------------------------------------------------------------------------
+    // Parallel mode
+    // ------------------------------------------------------------------------
+
+    private double parallelSum(List<SalesRecord> records, ToDoubleFunction<SalesRecord> value) {
+        double[] slot = aggregate(records, () -> new double[2],
+                (acc, r) -> AggregationEngine.addCompensated(acc, value.applyAsDouble(r)),
+                SalesAnalytics::mergeSums);
+        return AggregationEngine.finalSum(slot);
+    }
+
+    /**
+     * Revenue per key; each task keeps a HashMap of compensated-sum slots.
+     */
+    private <K> Map<K, Double> parallelSumBy(List<SalesRecord> records, Function<SalesRecord, K> key) {
+        HashMap<K, double[]> sums = aggregate(records, HashMap::new,
+                (map, r) -> AggregationEngine.addCompensated(
+                        map.computeIfAbsent(key.apply(r), k -> new double[2]), r.getLineRevenue()),
+                (a, b) -> mergeInto(a, b, SalesAnalytics::mergeSums));
+        Map<K, Double> result = new HashMap<>();
+        sums.forEach((k, slot) -> result.put(k, AggregationEngine.finalSum(slot)));
+        return result;
+    }
+
+    /**
+     * Splits the list into ranges on the pool. Each leaf task folds its range into a fresh
+     * accumulator; when two tasks join, their accumulators are merged. Merges therefore
+     * form a tree, and no accumulator is ever shared between threads.
+     */
+    private <A> A aggregate(List<SalesRecord> records, Supplier<A> create, BiConsumer<A, SalesRecord> add,
+                            BinaryOperator<A> merge) {
+        List<SalesRecord> list = records instanceof RandomAccess ? records : new ArrayList<>(records);
+        // About four leaves per thread, so a slow leaf can be balanced by the others
+        int leafSize = Math.max(MIN_LEAF_SIZE, list.size() / (pool.getParallelism() * 4));
+        return pool.invoke(new AggregateTask<>(list, 0, list.size(), leafSize, create, add, merge));
+    }
+
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, but these tasks never leave the pool
+    private static final class AggregateTask<A> extends RecursiveTask<A> {
+        private final List<SalesRecord> records;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Supplier<A> create;
+        private final BiConsumer<A, SalesRecord> add;
+        private final BinaryOperator<A> merge;
+
+        AggregateTask(List<SalesRecord> records, int from, int to, int leafSize,
+                      Supplier<A> create, BiConsumer<A, SalesRecord> add, BinaryOperator<A> merge) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.create = create;
+            this.add = add;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= leafSize) {
+                A acc = create.get();
+                for (int i = from; i < to; i++) {
+                    add.accept(acc, records.get(i));
+                }
+                return acc;
+            }
+            int mid = (from + to) >>> 1;
+            AggregateTask<A> left = new AggregateTask<>(records, from, mid, leafSize, create, add, merge);
+            left.fork();
+            A right = new AggregateTask<>(records, mid, to, leafSize, create, add, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * Adds one compensated sum into another, carrying its compensation along.
+     */
+    private static double[] mergeSums(double[] into, double[] other) {
+        AggregationEngine.addCompensated(into, other[0]);
+        AggregationEngine.addCompensated(into, -other[1]);
+        return into;
+    }
+
+    /**
+     * Merges map b into map a, combining the slots of keys present in both.
+     */
+    private static <K, S> HashMap<K, S> mergeInto(HashMap<K, S> a, HashMap<K, S> b, BiConsumer<S, S> combine) {
+        if (a.size() < b.size()) {
+            HashMap<K, S> t = a; // Walk the smaller map
+            a = b;
+            b = t;
+        }
+        for (Map.Entry<K, S> e : b.entrySet()) {
+            S slot = a.putIfAbsent(e.getKey(), e.getValue());
+            if (slot != null) {
+                combine.accept(slot, e.getValue());
+            }
+        }
+        return a;
+    }
+}
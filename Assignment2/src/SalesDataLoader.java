@@ -1,78 +1,160 @@
 package Assignment2.src;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Handles data ingestion from CSV files.
- * Parses raw text lines into strongly-typed SalesRecord objects.
+ * Parses raw CSV bytes into strongly-typed SalesRecord objects, using CsvTokenizer so
+ * quoted fields (commas, newlines, "" escapes) are read as RFC 4180 specifies.
  */
 public class SalesDataLoader {
 
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int BUFFER_BYTES = 64 * 1024;
 
     public List<SalesRecord> load(String filePath) {
         List<SalesRecord> records = new ArrayList<>();
+        forEach(filePath, records::add);
+        return records;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String header = reader.readLine(); // Skip header
-            String line;
-            while ((line = reader.readLine()) != null) {
-                List<String> fields = parseCsvLine(line);
-
-                // Validation: Ensure row has enough columns
-                if (fields.size() < 9) {
-                    continue; 
+    /**
+     * Parses the file row by row and hands each record to the action without keeping it.
+     * Memory stays constant however large the file is; only what the action keeps grows.
+     * CONCEPT: Streaming Ingestion
+     */
+    public void forEach(String filePath, Consumer<SalesRecord> action) {
+        try {
+            forEachRow(filePath, fields -> {
+                SalesRecord record = toRecord(fields);
+                if (record != null) {
+                    action.accept(record);
                 }
+            });
+        } catch (IOException e) {
+            System.err.println("Error loading CSV file: " + e.getMessage());
+        }
+    }
 
-                // Map CSV fields to Domain Object
-                // Trimming ensures clean data ingestion
-                String orderNumber = fields.get(0).trim();
-                int lineNumber = Integer.parseInt(fields.get(1).trim());
-                LocalDate orderDate = LocalDate.parse(fields.get(2).trim(), DATE_FORMAT);
-                String customerName = fields.get(3).trim();
-                String email = fields.get(4).trim();
-                String item = fields.get(5).trim();
-                int quantity = Integer.parseInt(fields.get(6).trim());
-                double unitPrice = Double.parseDouble(fields.get(7).trim());
-                double taxAmount = Double.parseDouble(fields.get(8).trim());
+    /**
+     * Loads the file as a SalesTable, using the binary snapshot next to it
+     * (e.g. data/sales.csv.snapshot) when the CSV has not changed since it was written.
+     * Otherwise the CSV is parsed and a fresh snapshot is written for the next run.
+     * The snapshot is only a cache: one that cannot be read or written costs the speed-up,
+     * not the data, so both are warnings and the CSV is parsed instead. No snapshot is
+     * written when the CSV itself could not be read to the end.
+     */
+    public SalesTable loadTable(String filePath) {
+        Path csv = Paths.get(filePath);
+        Path snapshot = SalesTableSnapshot.pathFor(csv);
+        long size;
+        long modified;
+        try {
+            size = Files.size(csv);
+            modified = Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException e) {
+            System.err.println("Error loading CSV file: " + e.getMessage());
+            return SalesTable.builder().build();
+        }
 
-                records.add(new SalesRecord(
-                        orderNumber, lineNumber, orderDate, customerName, 
-                        email, item, quantity, unitPrice, taxAmount
-                ));
+        try {
+            SalesTable cached = SalesTableSnapshot.read(snapshot, size, modified);
+            if (cached != null) {
+                return cached;
             }
         } catch (IOException e) {
-            System.err.println("Error loading CSV file: " + e.getMessage());
+            // E.g. no read permission, a directory in its place, or mapping failed
+            System.err.println("Warning: could not read snapshot " + snapshot + ", parsing the CSV: " + e.getMessage());
         }
-        return records;
+
+        SalesTable.Builder builder = SalesTable.builder();
+        boolean complete = SalesTable.readCsv(filePath, builder);
+        SalesTable table = builder.build();
+        if (!complete) {
+            return table; // A partial table must not be cached as if it were the whole file
+        }
+        try {
+            SalesTableSnapshot.write(table, snapshot, size, modified);
+        } catch (IOException e) {
+            System.err.println("Warning: could not write snapshot " + snapshot + ": " + e.getMessage());
+        }
+        return table;
     }
 
     /**
-     * Custom CSV parser to handle commas inside quoted strings.
-     * Example: "Doe, John" should be one field, not two.
+     * Streams the file through a CsvTokenizer and hands every row after the header to
+     * the consumer, positioned on that row. Used by load() and by SalesTable, which
+     * copies the fields into columns without creating SalesRecords.
      */
-    private List<String> parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean insideQuotes = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                insideQuotes = !insideQuotes; // Toggle state
-            } else if (c == ',' && !insideQuotes) {
-                fields.add(current.toString()); // End of field
-                current.setLength(0);
-            } else {
-                current.append(c);
+    static void forEachRow(String filePath, Consumer<CsvTokenizer> row) throws IOException {
+        // Bytes are tokenized in place; only text columns become Strings (decoded as UTF-8)
+        try (InputStream in = new FileInputStream(filePath)) {
+            CsvTokenizer tokenizer = new CsvTokenizer();
+            byte[] buffer = new byte[BUFFER_BYTES];
+            int length = 0;
+            boolean header = true;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                int n = in.read(buffer, length, buffer.length - length);
+                if (n < 0) {
+                    endOfInput = true;
+                } else {
+                    length += n;
+                }
+                tokenizer.reset(buffer, 0, length, endOfInput);
+                while (tokenizer.nextRecord()) {
+                    if (header) {
+                        header = false; // Skip header
+                        continue;
+                    }
+                    row.accept(tokenizer);
+                }
+                // Move the unfinished record to the front and read the rest behind it
+                int consumed = tokenizer.position();
+                System.arraycopy(buffer, consumed, buffer, 0, length - consumed);
+                length -= consumed;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2); // Record larger than the buffer
+                }
             }
         }
-        fields.add(current.toString()); // Add last field
-        return fields;
     }
-}
\ No newline at end of file
+
+    /**
+     * Maps the current record of the tokenizer to a SalesRecord.
+     * Shared with ParallelSalesDataLoader so both loaders accept exactly the same rows.
+     * @return null if the row has fewer than 9 columns.
+     */
+    static SalesRecord toRecord(CsvTokenizer fields) {
+        // Validation: Ensure row has enough columns
+        if (fields.fieldCount() < 9) {
+            return null;
+        }
+
+        // Map CSV fields to Domain Object
+        // Numbers and dates are parsed from the bytes; trimming ensures clean data ingestion
+        String orderNumber = fields.string(0).trim();
+        int lineNumber = fields.parseInt(1);
+        LocalDate orderDate = fields.parseDate(2);
+        String customerName = fields.string(3).trim();
+        String email = fields.string(4).trim();
+        String item = fields.string(5).trim();
+        int quantity = fields.parseInt(6);
+        double unitPrice = fields.parseDouble(7);
+        double taxAmount = fields.parseDouble(8);
+
+        return new SalesRecord(
+                orderNumber, lineNumber, orderDate, customerName,
+                email, item, quantity, unitPrice, taxAmount
+        );
+    }
+}
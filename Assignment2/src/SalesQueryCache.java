@@ -0,0 +1,318 @@
+package Assignment2.src;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Remembers the answers of SalesAnalytics queries over a growing set of records.
+ *
+ * Each query (its type plus parameters, e.g. TOP_ITEMS_BY_QUANTITY with k = 5) is answered
+ * once by a scan, and the cache keeps the running totals behind the answer: an
+ * AggregationEngine aggregate, not just the final number. Asking again is a lookup.
+ * When records are appended, every cached aggregate the new rows belong to adds just
+ * those rows to its totals, so nothing is thrown away and nothing is rescanned.
+ * CONCEPT: Memoization with Incremental Maintenance
+ *
+ * At most maxEntries queries are kept. The map is in access order, so when it is full
+ * the least recently used query is evicted (LRU).
+ *
+ * Results are the same as the sequential SalesAnalytics methods: the aggregates use the
+ * same compensated summation. Returned maps and lists are read-only. All methods are
+ * synchronized, so one cache can serve several threads.
+ *
+ * Usage:
+ *   SalesQueryCache cache = new SalesQueryCache(records, 64);
+ *   cache.getRevenueByItem();          // miss: one scan
+ *   cache.getRevenueByItem();          // hit
+ *   cache.append(newRecords);          // cached totals absorb the new rows
+ *   cache.getHitCount(); cache.getMissCount();
+ */
+public final class SalesQueryCache {
+
+    /**
+     * The kinds of query that can be cached.
+     */
+    public enum QueryType {
+        TOTAL_REVENUE, TOTAL_TAX, REVENUE_BY_ITEM, ORDERS_BY_CUSTOMER, REVENUE_BY_DATE, MOST_SOLD_ITEM,
+        TOP_ITEMS_BY_QUANTITY, TOP_ITEMS_BY_REVENUE, TOP_CUSTOMERS_BY_ORDERS, REVENUE_BETWEEN
+    }
+
+    private final List<SalesRecord> records;
+    private final int maxEntries;
+    private final LinkedHashMap<QueryKey, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long incrementalUpdates;
+
+    /**
+     * @param records The initial records; the cache keeps its own copy and grows it with append().
+     * @param maxEntries How many queries to keep before evicting the least recently used.
+     */
+    public SalesQueryCache(List<SalesRecord> records, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.records = new ArrayList<>(records);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<QueryKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryKey, Entry> eldest) {
+                if (size() > SalesQueryCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries (same results as the SalesAnalytics methods of the same name)
+    // ------------------------------------------------------------------------
+
+    public synchronized double getTotalRevenue() {
+        return (Double) get(new QueryKey(QueryType.TOTAL_REVENUE), r -> true, engine -> {
+            AggregationEngine.DoubleSum sum = engine.sum(SalesRecord::getLineRevenue);
+            return sum::get;
+        });
+    }
+
+    public synchronized double getTotalTaxCollected() {
+        return (Double) get(new QueryKey(QueryType.TOTAL_TAX), r -> true, engine -> {
+            AggregationEngine.DoubleSum sum = engine.sum(SalesRecord::getTaxAmount);
+            return sum::get;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Map<String, Double> getRevenueByItem() {
+        return (Map<String, Double>) get(new QueryKey(QueryType.REVENUE_BY_ITEM), r -> true, engine -> {
+            AggregationEngine.GroupedDoubleSum<String> sums =
+                    engine.sumBy(SalesRecord::getItem, SalesRecord::getLineRevenue);
+            return () -> Collections.unmodifiableMap(sums.toMap());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Map<String, Long> getOrdersByCustomer() {
+        return (Map<String, Long>) get(new QueryKey(QueryType.ORDERS_BY_CUSTOMER), r -> true, engine -> {
+            AggregationEngine.GroupedCount<String> counts = engine.countBy(SalesRecord::getEmailAddress);
+            return () -> Collections.unmodifiableMap(counts.toMap());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Map<LocalDate, Double> getRevenueByDate() {
+        return (Map<LocalDate, Double>) get(new QueryKey(QueryType.REVENUE_BY_DATE), r -> true, engine -> {
+            AggregationEngine.GroupedDoubleSum<LocalDate> sums =
+                    engine.sumBy(SalesRecord::getOrderDate, SalesRecord::getLineRevenue);
+            return () -> Collections.unmodifiableMap(sums.toMap());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Optional<Map.Entry<String, Integer>> getMostSoldItem() {
+        return (Optional<Map.Entry<String, Integer>>) get(new QueryKey(QueryType.MOST_SOLD_ITEM), r -> true,
+                engine -> engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity)::max);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized List<Map.Entry<String, Integer>> getTopItemsByQuantity(int k) {
+        checkK(k);
+        return (List<Map.Entry<String, Integer>>) get(new QueryKey(QueryType.TOP_ITEMS_BY_QUANTITY, k), r -> true,
+                engine -> {
+                    AggregationEngine.GroupedIntSum<String> totals =
+                            engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+                    return () -> Collections.unmodifiableList(TopK.largest(totals.toMap(), k));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized List<Map.Entry<String, Double>> getTopItemsByRevenue(int k) {
+        checkK(k);
+        return (List<Map.Entry<String, Double>>) get(new QueryKey(QueryType.TOP_ITEMS_BY_REVENUE, k), r -> true,
+                engine -> {
+                    AggregationEngine.GroupedDoubleSum<String> sums =
+                            engine.sumBy(SalesRecord::getItem, SalesRecord::getLineRevenue);
+                    return () -> Collections.unmodifiableList(TopK.largest(sums.toMap(), k));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized List<Map.Entry<String, Long>> getTopCustomersByOrders(int k) {
+        checkK(k);
+        return (List<Map.Entry<String, Long>>) get(new QueryKey(QueryType.TOP_CUSTOMERS_BY_ORDERS, k), r -> true,
+                engine -> {
+                    AggregationEngine.GroupedCount<String> counts = engine.countBy(SalesRecord::getEmailAddress);
+                    return () -> Collections.unmodifiableList(TopK.largest(counts.toMap(), k));
+                });
+    }
+
+    /**
+     * Revenue of the records dated from..to, both inclusive. Appended records outside the
+     * range leave the cached total untouched.
+     */
+    public synchronized double getRevenueBetween(LocalDate from, LocalDate to) {
+        return (Double) get(new QueryKey(QueryType.REVENUE_BETWEEN, from, to),
+                r -> !r.getOrderDate().isBefore(from) && !r.getOrderDate().isAfter(to),
+                engine -> {
+                    AggregationEngine.DoubleSum sum = engine.sum(SalesRecord::getLineRevenue);
+                    return sum::get;
+                });
+    }
+
+    // ------------------------------------------------------------------------
+    // Updates and statistics
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds records to the data. Each cached query folds in the new rows it covers, instead
+     * of being dropped and recomputed on the next call.
+     */
+    public synchronized void append(List<SalesRecord> newRecords) {
+        records.addAll(newRecords);
+        for (Entry entry : entries.values()) {
+            boolean changed = false;
+            for (SalesRecord r : newRecords) {
+                if (entry.covers.test(r)) {
+                    entry.engine.accept(r);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                entry.value = null; // Read again from the updated totals on the next call
+                incrementalUpdates++;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached query; the counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized List<SalesRecord> getRecords() {
+        return Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * How many times a cached query was brought up to date by append().
+     */
+    public synchronized long getIncrementalUpdateCount() {
+        return incrementalUpdates;
+    }
+
+    /**
+     * Returns the cached answer, or on a miss registers the query's aggregate on a fresh
+     * engine, feeds it every record the query covers and caches it.
+     */
+    private Object get(QueryKey key, Predicate<SalesRecord> covers,
+                       Function<AggregationEngine, Result> register) {
+        Entry entry = entries.get(key); // Also marks the entry as most recently used
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+            AggregationEngine engine = new AggregationEngine();
+            entry = new Entry(engine, covers, register.apply(engine));
+            for (SalesRecord r : records) {
+                if (covers.test(r)) {
+                    engine.accept(r);
+                }
+            }
+            entries.put(key, entry);
+        }
+        if (entry.value == null) {
+            entry.value = entry.result.read();
+        }
+        return entry.value;
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+    }
+
+    /**
+     * Reads the answer from an entry's running totals.
+     */
+    private interface Result {
+        Object read();
+    }
+
+    private static final class Entry {
+        final AggregationEngine engine;
+        // Which records belong to the query
+        final Predicate<SalesRecord> covers;
+        final Result result;
+        // Answer read from the totals, until the next append
+        Object value;
+
+        Entry(AggregationEngine engine, Predicate<SalesRecord> covers, Result result) {
+            this.engine = engine;
+            this.covers = covers;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Query type plus parameters; two calls with equal keys share one cache entry.
+     */
+    private static final class QueryKey {
+        private final QueryType type;
+        private final Object[] parameters;
+
+        QueryKey(QueryType type, Object... parameters) {
+            this.type = type;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey other = (QueryKey) o;
+            return type == other.type && Arrays.equals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public String toString() {
+            return type + Arrays.toString(parameters);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package Assignment2.src;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Column-oriented, in-memory copy of the sales data.
+ *
+ * A List<SalesRecord> stores every row as its own object pointing at a LocalDate and
+ * four Strings, most of them repeats of the same few hundred items and customers. Here
+ * each field is one primitive array indexed by row number:
+ *   - quantity, line number: int[]
+ *   - unit price, tax: long[] of Money units (1/10000), so money totals are exact
+ *   - order date: int[] of epoch days (days since 1970-01-01)
+ *   - order number, customer, email, item: int[] of dictionary codes. Each distinct
+ *     String is stored once in a Dictionary, and a row only stores its code.
+ * CONCEPT: Columnar Storage & Dictionary Encoding
+ *
+ * The analytics methods mirror SalesAnalytics and return the same results, but scan
+ * only the arrays they need, and group by code into arrays instead of hashing Strings.
+ * Money totals are computed exactly in fixed point (see Money), and the whole-column
+ * sums use SIMD instructions when available (see FixedPointSums).
+ *
+ * Usage:
+ *   SalesTable table = SalesTable.load("data/sales.csv");   // or SalesTable.from(records)
+ *   table.getRevenueByItem();
+ */
+public final class SalesTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Columns; read directly by other columnar code in this package, never modified after build()
+    final int size;
+    final int[] orderNumber;
+    final int[] lineNumber;
+    final int[] orderDay;
+    final int[] customer;
+    final int[] email;
+    final int[] item;
+    final int[] quantity;
+    final long[] priceUnits;
+    final long[] taxUnits;
+
+    final Dictionary orderNumbers;
+    final Dictionary customers;
+    final Dictionary emails;
+    final Dictionary items;
+
+    // Range of orderDay, so revenue by date can be grouped into a plain array
+    // (MAX_VALUE / MIN_VALUE when the table is empty)
+    final int minDay;
+    final int maxDay;
+
+    // Largest |quantity * price| and |tax| of any row, to know when a total cannot overflow
+    private final long maxLineUnits;
+    private final long maxTaxUnits;
+
+    private SalesTable(Builder b) {
+        this(Arrays.copyOf(b.orderNumber, b.size), Arrays.copyOf(b.lineNumber, b.size),
+                Arrays.copyOf(b.orderDay, b.size), Arrays.copyOf(b.customer, b.size),
+                Arrays.copyOf(b.email, b.size), Arrays.copyOf(b.item, b.size),
+                Arrays.copyOf(b.quantity, b.size), Arrays.copyOf(b.priceUnits, b.size),
+                Arrays.copyOf(b.taxUnits, b.size),
+                b.orderNumbers, b.customers, b.emails, b.items);
+    }
+
+    /**
+     * Wraps finished columns (all of the same length) without copying them.
+     * Used by SalesTableSnapshot when reading a snapshot back.
+     */
+    SalesTable(int[] orderNumber, int[] lineNumber, int[] orderDay, int[] customer, int[] email,
+               int[] item, int[] quantity, long[] priceUnits, long[] taxUnits,
+               Dictionary orderNumbers, Dictionary customers, Dictionary emails, Dictionary items) {
+        this.size = quantity.length;
+        this.orderNumber = orderNumber;
+        this.lineNumber = lineNumber;
+        this.orderDay = orderDay;
+        this.customer = customer;
+        this.email = email;
+        this.item = item;
+        this.quantity = quantity;
+        this.priceUnits = priceUnits;
+        this.taxUnits = taxUnits;
+        this.orderNumbers = orderNumbers;
+        this.customers = customers;
+        this.emails = emails;
+        this.items = items;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int day : orderDay) {
+            min = Math.min(min, day);
+            max = Math.max(max, day);
+        }
+        this.minDay = min;
+        this.maxDay = max;
+        long maxLine = 0;
+        long maxTax = 0;
+        for (int row = 0; row < size; row++) {
+            // A single line too large for a long fails here, when the table is built
+            maxLine = Math.max(maxLine, Math.abs(Math.multiplyExact(quantity[row], priceUnits[row])));
+            maxTax = Math.max(maxTax, Math.abs(taxUnits[row]));
+        }
+        this.maxLineUnits = maxLine;
+        this.maxTaxUnits = maxTax;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copies a list of records into columns.
+     */
+    public static SalesTable from(Iterable<SalesRecord> records) {
+        Builder builder = new Builder();
+        for (SalesRecord record : records) {
+            builder.add(record);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the CSV straight into columns, without creating a SalesRecord per row.
+     * Accepts exactly the rows SalesDataLoader accepts.
+     */
+    public static SalesTable load(String filePath) {
+        Builder builder = new Builder();
+        readCsv(filePath, builder);
+        return builder.build();
+    }
+
+    /**
+     * Adds the CSV's rows to the builder; a read error is printed, as by load().
+     * @return false if the file could not be read to the end. The builder then holds
+     *         only the rows read before the error.
+     */
+    static boolean readCsv(String filePath, Builder builder) {
+        try {
+            SalesDataLoader.forEachRow(filePath, builder::addRow);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error loading CSV file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rebuilds row i as a SalesRecord, for code that still needs objects.
+     */
+    public SalesRecord getRecord(int row) {
+        checkRow(row);
+        return new SalesRecord(
+                orderNumbers.decode(orderNumber[row]), lineNumber[row], LocalDate.ofEpochDay(orderDay[row]),
+                customers.decode(customer[row]), emails.decode(email[row]), items.decode(item[row]),
+                quantity[row], Money.toDouble(priceUnits[row]), Money.toDouble(taxUnits[row]));
+    }
+
+    public List<SalesRecord> toRecords() {
+        List<SalesRecord> records = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            records.add(getRecord(row));
+        }
+        return records;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    public Dictionary getOrderNumbers() {
+        return orderNumbers;
+    }
+
+    public Dictionary getItems() {
+        return items;
+    }
+
+    public Dictionary getCustomers() {
+        return customers;
+    }
+
+    public Dictionary getEmails() {
+        return emails;
+    }
+
+    // ------------------------------------------------------------------------
+    // Analytics (same results as the SalesAnalytics methods of the same name)
+    // ------------------------------------------------------------------------
+
+    // Money totals are exact sums of Money units, converted to double only at the end.
+    // They can differ from the SalesAnalytics double sums in the last digits; the double
+    // sums are the ones that drift.
+
+    /**
+     * Sums quantity * unit price over all rows, exactly, in Money units.
+     * @throws ArithmeticException If the total does not fit in a long.
+     */
+    public long getTotalRevenueUnits() {
+        if (fitsInLong(maxLineUnits)) {
+            return FixedPointSums.dot(quantity, priceUnits, 0, size);
+        }
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total = Math.addExact(total, quantity[row] * priceUnits[row]);
+        }
+        return total;
+    }
+
+    /**
+     * Sums tax over all rows, exactly, in Money units.
+     * @throws ArithmeticException If the total does not fit in a long.
+     */
+    public long getTotalTaxUnits() {
+        if (fitsInLong(maxTaxUnits)) {
+            return FixedPointSums.sum(taxUnits, 0, size);
+        }
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total = Math.addExact(total, taxUnits[row]);
+        }
+        return total;
+    }
+
+    /**
+     * Whether size values of at most maxUnits each can be added without overflow, so the
+     * unchecked (vectorized) sums are safe.
+     */
+    private boolean fitsInLong(long maxUnits) {
+        return maxUnits == 0 || size <= Long.MAX_VALUE / maxUnits;
+    }
+
+    public double getTotalRevenue() {
+        return Money.toDouble(getTotalRevenueUnits());
+    }
+
+    public double getTotalTaxCollected() {
+        return Money.toDouble(getTotalTaxUnits());
+    }
+
+    /**
+     * Groups by item code: the running totals live in an array indexed by code, so no
+     * String is hashed during the scan.
+     */
+    public Map<String, Double> getRevenueByItem() {
+        long[] units = new long[items.size()];
+        for (int row = 0; row < size; row++) {
+            units[item[row]] = Math.addExact(units[item[row]], quantity[row] * priceUnits[row]);
+        }
+        Map<String, Double> result = new HashMap<>();
+        for (int code = 0; code < units.length; code++) {
+            result.put(items.decode(code), Money.toDouble(units[code]));
+        }
+        return result;
+    }
+
+    public Map<String, Long> getOrdersByCustomer() {
+        long[] counts = new long[emails.size()];
+        for (int row = 0; row < size; row++) {
+            counts[email[row]]++;
+        }
+        Map<String, Long> result = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            result.put(emails.decode(code), counts[code]);
+        }
+        return result;
+    }
+
+    /**
+     * Groups by epoch day, offset by the first day in the table.
+     */
+    public Map<LocalDate, Double> getRevenueByDate() {
+        Map<LocalDate, Double> result = new HashMap<>();
+        if (size == 0) {
+            return result;
+        }
+        long[] units = new long[maxDay - minDay + 1];
+        boolean[] present = new boolean[units.length];
+        for (int row = 0; row < size; row++) {
+            int d = orderDay[row] - minDay;
+            units[d] = Math.addExact(units[d], quantity[row] * priceUnits[row]);
+            present[d] = true;
+        }
+        for (int d = 0; d < units.length; d++) {
+            if (present[d]) {
+                result.put(LocalDate.ofEpochDay(minDay + d), Money.toDouble(units[d]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the item with the largest total quantity (any one of them on a tie).
+     */
+    public Optional<Map.Entry<String, Integer>> getMostSoldItem() {
+        int[] totals = new int[items.size()];
+        for (int row = 0; row < size; row++) {
+            totals[item[row]] += quantity[row];
+        }
+        int best = -1;
+        for (int code = 0; code < totals.length; code++) {
+            if (best < 0 || totals[code] > totals[best]) {
+                best = code;
+            }
+        }
+        return best < 0 ? Optional.empty()
+                : Optional.of(new AbstractMap.SimpleImmutableEntry<>(items.decode(best), totals[best]));
+    }
+
+    /**
+     * Maps each distinct String of a column to a dense int code (0, 1, 2, ...) in order
+     * of first appearance, and back.
+     */
+    public static final class Dictionary {
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        public String decode(int code) {
+            return values.get(code);
+        }
+
+        /**
+         * @return The code of the value, or -1 if it does not occur in the column.
+         */
+        public int code(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Appends rows to growing column arrays; build() trims them to size.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] orderNumber = new int[INITIAL_CAPACITY];
+        private int[] lineNumber = new int[INITIAL_CAPACITY];
+        private int[] orderDay = new int[INITIAL_CAPACITY];
+        private int[] customer = new int[INITIAL_CAPACITY];
+        private int[] email = new int[INITIAL_CAPACITY];
+        private int[] item = new int[INITIAL_CAPACITY];
+        private int[] quantity = new int[INITIAL_CAPACITY];
+        private long[] priceUnits = new long[INITIAL_CAPACITY];
+        private long[] taxUnits = new long[INITIAL_CAPACITY];
+
+        private final Dictionary orderNumbers = new Dictionary();
+        private final Dictionary customers = new Dictionary();
+        private final Dictionary emails = new Dictionary();
+        private final Dictionary items = new Dictionary();
+
+        private Builder() {
+        }
+
+        public Builder add(SalesRecord record) {
+            append(record.getSalesOrderNumber(), record.getLineNumber(),
+                    Math.toIntExact(record.getOrderDate().toEpochDay()),
+                    record.getCustomerName(), record.getEmailAddress(), record.getItem(),
+                    record.getQuantity(), Money.toUnits(record.getUnitPrice()), Money.toUnits(record.getTaxAmount()));
+            return this;
+        }
+
+        /**
+         * Appends the tokenizer's current row, mapped like SalesDataLoader.toRecord().
+         * Rows with fewer than 9 columns are skipped.
+         */
+        void addRow(CsvTokenizer fields) {
+            if (fields.fieldCount() < 9) {
+                return;
+            }
+            append(fields.string(0).trim(), fields.parseInt(1), Math.toIntExact(fields.parseEpochDay(2)),
+                    fields.string(3).trim(), fields.string(4).trim(), fields.string(5).trim(),
+                    fields.parseInt(6), fields.parseMoney(7), fields.parseMoney(8));
+        }
+
+        private void append(String order, int line, int day, String customerName, String emailAddress,
+                            String itemName, int qty, long price, long tax) {
+            if (size == quantity.length) {
+                grow();
+            }
+            orderNumber[size] = orderNumbers.encode(order);
+            lineNumber[size] = line;
+            orderDay[size] = day;
+            customer[size] = customers.encode(customerName);
+            email[size] = emails.encode(emailAddress);
+            item[size] = items.encode(itemName);
+            quantity[size] = qty;
+            priceUnits[size] = price;
+            taxUnits[size] = tax;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = quantity.length * 2;
+            orderNumber = Arrays.copyOf(orderNumber, capacity);
+            lineNumber = Arrays.copyOf(lineNumber, capacity);
+            orderDay = Arrays.copyOf(orderDay, capacity);
+            customer = Arrays.copyOf(customer, capacity);
+            email = Arrays.copyOf(email, capacity);
+            item = Arrays.copyOf(item, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            priceUnits = Arrays.copyOf(priceUnits, capacity);
+            taxUnits = Arrays.copyOf(taxUnits, capacity);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SalesTable build() {
+            return new SalesTable(this);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package Assignment2.src;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves a SalesTable as a binary file and reads it back with memory mapping, so a later
+ * run can skip parsing the CSV.
+ * CONCEPT: Binary Columnar Cache
+ *
+ * Layout (little-endian):
+ *   header       magic, version, source CSV size and last-modified time, row count,
+ *                offset of the first column
+ *   dictionaries order numbers, customers, emails, items: a count, then each String
+ *                as a length and its UTF-8 bytes, in code order
+ *   columns      orderNumber, lineNumber, orderDay, customer, email, item, quantity
+ *                (int), priceUnits, taxUnits (long), 8-byte aligned
+ *
+ * A column is one contiguous block of the file, so reading it is a single bulk copy from
+ * the mapped file into an array; nothing is parsed per row. Writing goes through plain
+ * channel writes of heap buffers instead, and the file is forced to the device before it
+ * is renamed into place, so a crash cannot leave a complete-looking snapshot with
+ * missing columns.
+ *
+ * The snapshot is only used if the CSV still has the size and modification time recorded
+ * in the header. Otherwise, or if the file is missing, truncated or from another version,
+ * read() returns null and the caller parses the CSV again.
+ */
+final class SalesTableSnapshot {
+
+    private static final int MAGIC = 0x53414C45; // "SALE"
+    private static final int VERSION = 2; // 2: prices and tax as fixed-point longs
+    private static final int HEADER_BYTES = 40;
+    private static final int INT_COLUMNS = 7;
+    private static final int LONG_COLUMNS = 2;
+    // Size of the heap buffer columns are copied through when writing
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private SalesTableSnapshot() {
+    }
+
+    /**
+     * Where the snapshot of a CSV lives: next to it, e.g. data/sales.csv.snapshot.
+     */
+    static Path pathFor(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + ".snapshot");
+    }
+
+    /**
+     * Writes the table to a temporary file, forces it to the device and renames it into
+     * place, so a reader never sees a half-written snapshot.
+     */
+    static void write(SalesTable table, Path snapshot, long sourceSize, long sourceModified) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        head.position(HEADER_BYTES);
+        for (SalesTable.Dictionary dictionary : dictionaries(table)) {
+            head = ensure(head, 4);
+            head.putInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                head = ensure(head, 4 + bytes.length);
+                head.putInt(bytes.length);
+                head.put(bytes);
+            }
+        }
+        head = ensure(head, 8);
+        long columnsOffset = (head.position() + 7) & ~7L;
+        head.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putLong(8, sourceSize)
+                .putLong(16, sourceModified)
+                .putInt(24, table.size)
+                .putInt(28, 0)
+                .putLong(32, columnsOffset);
+        head.limit((int) columnsOffset); // Includes the zero padding
+        head.position(0);
+
+        Path tmp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long offset = writeFully(channel, head, 0);
+                ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int[] column : intColumns(table)) {
+                    for (int from = 0; from < column.length; from += CHUNK_BYTES / 4) {
+                        int n = Math.min(column.length - from, CHUNK_BYTES / 4);
+                        chunk.clear();
+                        chunk.asIntBuffer().put(column, from, n);
+                        chunk.limit(n * 4);
+                        offset = writeFully(channel, chunk, offset);
+                    }
+                }
+                for (long[] column : longColumns(table)) {
+                    for (int from = 0; from < column.length; from += CHUNK_BYTES / 8) {
+                        int n = Math.min(column.length - from, CHUNK_BYTES / 8);
+                        chunk.clear();
+                        chunk.asLongBuffer().put(column, from, n);
+                        chunk.limit(n * 8);
+                        offset = writeFully(channel, chunk, offset);
+                    }
+                }
+                channel.force(true); // Data and size on the device before the rename publishes them
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a snapshot back if it matches the CSV's current size and modification time.
+     * @return The table, or null if the snapshot is missing, stale or unreadable.
+     */
+    static SalesTable read(Path snapshot, long sourceSize, long sourceModified) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int rows = header.getInt(24);
+            long columnsOffset = header.getLong(32);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getLong(8) != sourceSize || header.getLong(16) != sourceModified
+                    || rows < 0 || columnsOffset < HEADER_BYTES
+                    || fileSize != columnsOffset + rows * (INT_COLUMNS * 4L + LONG_COLUMNS * 8L)) {
+                return null;
+            }
+
+            ByteBuffer dictionaryBytes = map(channel, FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES, columnsOffset - HEADER_BYTES);
+            SalesTable.Dictionary[] dictionaries = new SalesTable.Dictionary[4];
+            byte[] scratch = new byte[64];
+            for (int d = 0; d < dictionaries.length; d++) {
+                dictionaries[d] = new SalesTable.Dictionary();
+                int count = dictionaryBytes.getInt();
+                for (int code = 0; code < count; code++) {
+                    int length = dictionaryBytes.getInt();
+                    if (scratch.length < length) {
+                        scratch = new byte[Math.max(length, scratch.length * 2)];
+                    }
+                    dictionaryBytes.get(scratch, 0, length);
+                    if (dictionaries[d].encode(new String(scratch, 0, length, StandardCharsets.UTF_8)) != code) {
+                        return null; // Duplicate entry: not a file we wrote
+                    }
+                }
+            }
+
+            long offset = columnsOffset;
+            int[][] ints = new int[INT_COLUMNS][rows];
+            for (int[] column : ints) {
+                map(channel, FileChannel.MapMode.READ_ONLY, offset, rows * 4L).asIntBuffer().get(column);
+                offset += rows * 4L;
+            }
+            long[][] longs = new long[LONG_COLUMNS][rows];
+            for (long[] column : longs) {
+                map(channel, FileChannel.MapMode.READ_ONLY, offset, rows * 8L).asLongBuffer().get(column);
+                offset += rows * 8L;
+            }
+            if (!codesInRange(ints[0], dictionaries[0]) || !codesInRange(ints[3], dictionaries[1])
+                    || !codesInRange(ints[4], dictionaries[2]) || !codesInRange(ints[5], dictionaries[3])) {
+                return null;
+            }
+            return new SalesTable(ints[0], ints[1], ints[2], ints[3], ints[4], ints[5], ints[6],
+                    longs[0], longs[1],
+                    dictionaries[0], dictionaries[1], dictionaries[2], dictionaries[3]);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null; // Truncated or corrupt
+        }
+    }
+
+    private static boolean codesInRange(int[] codes, SalesTable.Dictionary dictionary) {
+        int size = dictionary.size();
+        for (int code : codes) {
+            if (code < 0 || code >= size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all remaining bytes of the buffer at the given file position.
+     * @return The file position after the last byte written.
+     */
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long length)
+            throws IOException {
+        return channel.map(mode, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + extra);
+        ByteBuffer bigger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    private static SalesTable.Dictionary[] dictionaries(SalesTable table) {
+        return new SalesTable.Dictionary[] {table.orderNumbers, table.customers, table.emails, table.items};
+    }
+
+    private static int[][] intColumns(SalesTable table) {
+        return new int[][] {table.orderNumber, table.lineNumber, table.orderDay, table.customer,
+                table.email, table.item, table.quantity};
+    }
+
+    private static long[][] longColumns(SalesTable table) {
+        return new long[][] {table.priceUnits, table.taxUnits};
+    }
+}
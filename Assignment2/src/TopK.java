@@ -0,0 +1,51 @@
+package Assignment2.src;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the k largest entries of a map without sorting all of it.
+ *
+ * A min-heap holds the best k entries seen so far; its root is the weakest of them. Each
+ * further entry only has to beat the root to get in. That is O(n log k) time and O(k)
+ * extra memory, instead of O(n log n) for sorting every entry.
+ * CONCEPT: Bounded Heap Selection
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Returns the k entries with the largest values, largest first. Entries with equal
+     * values come in no particular order.
+     */
+    public static <K, V extends Comparable<? super V>> List<Map.Entry<K, V>> largest(Map<K, V> values, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        if (k == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Map.Entry<K, V>> heap = new PriorityQueue<>(Math.min(k, Math.max(1, values.size())),
+                Map.Entry.comparingByValue());
+        for (Map.Entry<K, V> e : values.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            } else if (e.getValue().compareTo(heap.peek().getValue()) > 0) {
+                heap.poll();
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            }
+        }
+        List<Map.Entry<K, V>> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll()); // Smallest first
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package Assignment2.src.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API loops behind FixedPointSums. Each step loads as many longs as one CPU
+ * vector register holds (4 with AVX2, 8 with AVX-512) and adds them lane by lane into an
+ * accumulator register; the lanes are added together once at the end, and the few
+ * elements left over are added one by one.
+ * CONCEPT: SIMD (Single Instruction, Multiple Data)
+ *
+ * Compile and run with --add-modules jdk.incubator.vector. Nothing else in the project
+ * depends on this class directly; FixedPointSums finds it at run time.
+ */
+public final class VectorSums {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED.vectorBitSize() >= 128
+            ? LongVector.SPECIES_PREFERRED : LongVector.SPECIES_128;
+    // Ints with as many lanes as LONGS, so one int load widens into one long vector
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    private VectorSums() {
+    }
+
+    public static long sum(long[] values, int from, int to) {
+        LongVector acc = LongVector.zero(LONGS);
+        int k = from;
+        for (int upper = from + LONGS.loopBound(to - from); k < upper; k += LONGS.length()) {
+            acc = acc.add(LongVector.fromArray(LONGS, values, k));
+        }
+        long total = acc.reduceLanes(VectorOperators.ADD);
+        for (; k < to; k++) {
+            total += values[k];
+        }
+        return total;
+    }
+
+    public static long dot(int[] quantity, long[] price, int from, int to) {
+        LongVector acc = LongVector.zero(LONGS);
+        int k = from;
+        for (int upper = from + LONGS.loopBound(to - from); k < upper; k += LONGS.length()) {
+            LongVector q = (LongVector) IntVector.fromArray(INTS, quantity, k)
+                    .convertShape(VectorOperators.I2L, LONGS, 0);
+            acc = acc.add(q.mul(LongVector.fromArray(LONGS, price, k)));
+        }
+        long total = acc.reduceLanes(VectorOperators.ADD);
+        for (; k < to; k++) {
+            total += quantity[k] * price[k];
+        }
+        return total;
+    }
+}
@@ -1,15 +1,43 @@
 package Assignment2.test;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import Assignment2.src.AggregationEngine;
+import Assignment2.src.CsvTokenizer;
+import Assignment2.src.DateIndex;
+import Assignment2.src.DistinctCounts;
+import Assignment2.src.FixedPointSums;
+import Assignment2.src.HeavyHitters;
+import Assignment2.src.HyperLogLog;
+import Assignment2.src.Money;
+import Assignment2.src.ParallelSalesDataLoader;
 import Assignment2.src.SalesAnalytics;
+import Assignment2.src.SalesDataLoader;
+import Assignment2.src.SalesQueryCache;
 import Assignment2.src.SalesRecord;
+import Assignment2.src.SalesTable;
 
 public class SalesAnalyticsManualTest {
 
@@ -43,6 +71,21 @@ public class SalesAnalyticsManualTest {
         testSingleRecord(analytics);
         testRefundRecord(analytics);
 
+        // 3. Performance Path Tests (must agree with the stream methods)
+        testSinglePassEngine(analytics);
+        testParallelLoader();
+        testCsvTokenizer();
+        testColumnarTable(analytics);
+        testStreamingAggregation(analytics);
+        testSnapshotCache();
+        testUnreadableSnapshot();
+        testParallelAnalytics(analytics);
+        testDateIndex(analytics);
+        testTopKAndHeavyHitters(analytics);
+        testDistinctCounts(analytics);
+        testFixedPointMoney();
+        testQueryCache(analytics);
+
         System.out.println("\n=== All Tests Completed ===");
     }
 
@@ -130,6 +173,656 @@ public class SalesAnalyticsManualTest {
         printResult("Refund/Negative Value Handling", expectedRevenue == actualRevenue);
     }
 
+    // ------------------------------------------------------------------------
+    // Performance Path Tests
+    // ------------------------------------------------------------------------
+
+    private static void testSinglePassEngine(SalesAnalytics analytics) {
+        AggregationEngine engine = new AggregationEngine();
+        AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+        AggregationEngine.DoubleSum tax = engine.sum(SalesRecord::getTaxAmount);
+        AggregationEngine.GroupedDoubleSum<String> revenueByItem =
+                engine.sumBy(SalesRecord::getItem, SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedCount<String> ordersByCustomer = engine.countBy(SalesRecord::getEmailAddress);
+        AggregationEngine.GroupedDoubleSum<LocalDate> revenueByDate =
+                engine.sumBy(SalesRecord::getOrderDate, SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedIntSum<String> quantityByItem =
+                engine.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+        engine.run(sample);
+
+        boolean sameResults = revenue.get() == analytics.getTotalRevenue(sample)
+                && tax.get() == analytics.getTotalTaxCollected(sample)
+                && revenueByItem.toMap().equals(analytics.getRevenueByItem(sample))
+                && ordersByCustomer.toMap().equals(analytics.getOrdersByCustomer(sample))
+                && revenueByDate.toMap().equals(analytics.getRevenueByDate(sample))
+                && quantityByItem.max().get().getValue() == 2
+                && quantityByItem.get("Helmet") == 2;
+
+        AggregationEngine empty = new AggregationEngine();
+        AggregationEngine.GroupedIntSum<String> noItems = empty.intSumBy(SalesRecord::getItem, SalesRecord::getQuantity);
+        empty.run(Collections.<SalesRecord>emptyList());
+
+        printResult("Single-Pass Engine Matches Streams", sameResults && !noItems.max().isPresent());
+    }
+
+    private static void testParallelLoader() {
+        // Quoted commas, a quoted newline, an escaped quote, CRLF and a blank line;
+        // 7-byte chunks put split points inside every kind of field
+        String csv = "SalesOrderNumber,SalesOrderLineNumber,OrderDate,CustomerName,EmailAddress,Item,Quantity,UnitPrice,TaxAmount\n"
+                + "SO1,1,2019-07-01,\"Doe, John\",john@x.com,\"Mountain-100, 44\",1,10.5,1.0\r\n"
+                + "SO2,1,2019-07-02,Ann,ann@x.com,\"Say \"\"Hi\"\"\nTwice\",2,3.25,0.5\n"
+                + "\n"
+                + "SO3,2,2019-07-03,Bo,bo@x.com,Helmet,3,1,0\n";
+        boolean ok;
+        try {
+            Path file = Files.createTempFile("sales", ".csv");
+            Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+            ForkJoinPool pool = new ForkJoinPool(4);
+            List<SalesRecord> tricky = new ParallelSalesDataLoader(pool, true, 7).load(file.toString());
+            ok = tricky.size() == 3
+                    && tricky.get(0).getCustomerName().equals("Doe, John")
+                    && tricky.get(0).getItem().equals("Mountain-100, 44")
+                    && tricky.get(0).getTaxAmount() == 1.0
+                    && tricky.get(1).getItem().equals("Say \"Hi\"\nTwice")
+                    && tricky.get(2).getQuantity() == 3;
+            Files.delete(file);
+
+            // Real data: same rows as the sequential loader, in order or not
+            List<SalesRecord> sequential = new SalesDataLoader().load("data/sales.csv");
+            List<SalesRecord> ordered = new ParallelSalesDataLoader(pool, true, 100_000).load("data/sales.csv");
+            List<SalesRecord> unordered = new ParallelSalesDataLoader(pool, false, 100_000).load("data/sales.csv");
+            ok = ok && sequential.size() == ordered.size() && sequential.size() == unordered.size();
+            for (int i = 0; ok && i < sequential.size(); i++) {
+                ok = describe(sequential.get(i)).equals(describe(ordered.get(i)));
+            }
+            Set<String> seen = new HashSet<>();
+            for (SalesRecord r : unordered) {
+                seen.add(describe(r));
+            }
+            for (SalesRecord r : sequential) {
+                ok = ok && seen.contains(describe(r));
+            }
+            pool.shutdown();
+        } catch (IOException e) {
+            ok = false;
+        }
+        printResult("Parallel Loader Matches Sequential", ok);
+    }
+
+    private static void testCsvTokenizer() {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        boolean ok;
+
+        // Escaped quotes, a quoted comma and newline, padding and CRLF
+        byte[] tricky = "\"Say \"\"Hi\"\"\",\"a,\nb\", 42 ,-0.75,2020-02-29\r\n,\"\"\n".getBytes(StandardCharsets.UTF_8);
+        tokenizer.reset(tricky, 0, tricky.length, true);
+        ok = tokenizer.nextRecord()
+                && tokenizer.fieldCount() == 5
+                && tokenizer.string(0).equals("Say \"Hi\"")
+                && tokenizer.string(1).equals("a,\nb")
+                && tokenizer.parseInt(2) == 42
+                && tokenizer.parseDouble(3) == -0.75
+                && tokenizer.parseDate(4).equals(LocalDate.of(2020, 2, 29))
+                && tokenizer.nextRecord()
+                && tokenizer.fieldCount() == 2
+                && tokenizer.string(0).isEmpty() && tokenizer.string(1).isEmpty()
+                && !tokenizer.nextRecord();
+
+        // The Readme's example row: spaces around quoted fields, tabs around numbers
+        byte[] spaced = "\"SO123\", 1, \"2024-01-01\" , \"John Doe\", \"john@email.com\", \"Widget A\",\t5\t, 10.00, 2.50\n"
+                .getBytes(StandardCharsets.UTF_8);
+        tokenizer.reset(spaced, 0, spaced.length, true);
+        ok = ok && tokenizer.nextRecord()
+                && tokenizer.fieldCount() == 9
+                && tokenizer.string(0).equals("SO123")
+                && tokenizer.parseInt(1) == 1
+                && tokenizer.parseDate(2).equals(LocalDate.of(2024, 1, 1))
+                && tokenizer.string(3).equals("John Doe")
+                && tokenizer.string(5).equals("Widget A")
+                && tokenizer.parseInt(6) == 5
+                && tokenizer.parseDouble(7) == 10.0
+                && tokenizer.parseMoney(8) == Money.toUnits(2.5)
+                && !tokenizer.nextRecord();
+
+        // A record cut off by the end of the buffer is left for the next read
+        tokenizer.reset(tricky, 0, 10, false);
+        ok = ok && !tokenizer.nextRecord() && tokenizer.position() == 0;
+
+        // In-place numbers and dates agree with the JDK parsers on every real row
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get("data/sales.csv"));
+            tokenizer.reset(bytes, 0, bytes.length, true);
+            tokenizer.nextRecord(); // Header
+            int rows = 0;
+            while (ok && tokenizer.nextRecord()) {
+                if (tokenizer.fieldCount() < 9) {
+                    continue;
+                }
+                ok = tokenizer.parseInt(1) == Integer.parseInt(tokenizer.string(1).trim())
+                        && tokenizer.parseEpochDay(2) == LocalDate.parse(tokenizer.string(2).trim()).toEpochDay()
+                        && tokenizer.parseInt(6) == Integer.parseInt(tokenizer.string(6).trim())
+                        && tokenizer.parseDouble(7) == Double.parseDouble(tokenizer.string(7).trim())
+                        && tokenizer.parseDouble(8) == Double.parseDouble(tokenizer.string(8).trim());
+                rows++;
+            }
+            ok = ok && rows > 0;
+
+            // The sequential loader keeps "" escapes (it used to drop both quotes)
+            Path file = Files.createTempFile("sales", ".csv");
+            Files.write(file, ("header\nSO1,1,2019-07-01,\"Ann \"\"AJ\"\" Lee\",a@x.com,\"Cap, \"\"Red\"\"\",1,2.5,0.2\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            List<SalesRecord> loaded = new SalesDataLoader().load(file.toString());
+            Files.delete(file);
+            ok = ok && loaded.size() == 1
+                    && loaded.get(0).getCustomerName().equals("Ann \"AJ\" Lee")
+                    && loaded.get(0).getItem().equals("Cap, \"Red\"");
+
+            // Both loaders accept the Readme's example row
+            file = Files.createTempFile("sales", ".csv");
+            Files.write(file, ("header\n\"SO123\", 1, \"2024-01-01\", \"John Doe\", \"john@email.com\", "
+                    + "\"Widget A\", 5, 10.00, 2.50\n").getBytes(StandardCharsets.UTF_8));
+            loaded = new SalesDataLoader().load(file.toString());
+            SalesTable example = SalesTable.load(file.toString());
+            Files.delete(file);
+            ok = ok && loaded.size() == 1 && example.size() == 1
+                    && loaded.get(0).getOrderDate().equals(LocalDate.of(2024, 1, 1))
+                    && loaded.get(0).getEmailAddress().equals("john@email.com")
+                    && loaded.get(0).getQuantity() == 5
+                    && describe(example.getRecord(0)).equals(describe(loaded.get(0)));
+        } catch (IOException e) {
+            ok = false;
+        }
+        printResult("Byte Tokenizer Parses In Place", ok);
+    }
+
+    private static void testColumnarTable(SalesAnalytics analytics) {
+        // Same answers as the stream methods, on the sample and on the real file
+        SalesTable small = SalesTable.from(sample);
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        SalesTable table = SalesTable.load("data/sales.csv");
+
+        boolean ok = sameAsStreams(analytics, small, sample)
+                && sameAsStreams(analytics, table, records)
+                && small.getItems().size() == 2
+                && small.getItems().code("Helmet") >= 0
+                && small.getItems().code("Unknown") == -1
+                && table.size() == records.size();
+        for (int row = 0; ok && row < table.size(); row++) {
+            ok = describe(table.getRecord(row)).equals(describe(records.get(row)));
+        }
+
+        SalesTable empty = SalesTable.from(Collections.<SalesRecord>emptyList());
+        ok = ok && empty.getTotalRevenue() == 0.0
+                && empty.getRevenueByDate().isEmpty()
+                && !empty.getMostSoldItem().isPresent();
+        printResult("Columnar Table Matches Streams", ok);
+    }
+
+    private static boolean sameAsStreams(SalesAnalytics analytics, SalesTable table, List<SalesRecord> records) {
+        // Money sums are exact fixed point on the table, doubles in the streams, so they
+        // agree up to the drift of the doubles. On a tie the two may name different items,
+        // but the top quantity must agree
+        return close(table.getTotalRevenue(), analytics.getTotalRevenue(records))
+                && close(table.getTotalTaxCollected(), analytics.getTotalTaxCollected(records))
+                && closeMaps(table.getRevenueByItem(), analytics.getRevenueByItem(records))
+                && table.getOrdersByCustomer().equals(analytics.getOrdersByCustomer(records))
+                && closeMaps(table.getRevenueByDate(), analytics.getRevenueByDate(records))
+                && table.getMostSoldItem().get().getValue().equals(analytics.getMostSoldItem(records).get().getValue());
+    }
+
+    private static void testStreamingAggregation(SalesAnalytics analytics) {
+        // Rows fed straight from the parser give the same figures as the loaded list
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        AggregationEngine engine = new AggregationEngine();
+        AggregationEngine.DoubleSum revenue = engine.sum(SalesRecord::getLineRevenue);
+        AggregationEngine.GroupedCount<String> ordersByCustomer = engine.countBy(SalesRecord::getEmailAddress);
+        AggregationEngine.GroupedDoubleSum<LocalDate> revenueByDate =
+                engine.sumBy(SalesRecord::getOrderDate, SalesRecord::getLineRevenue);
+        new SalesDataLoader().forEach("data/sales.csv", engine);
+
+        // A missing file streams nothing, like load() returning an empty list
+        AggregationEngine none = new AggregationEngine();
+        new SalesDataLoader().forEach("data/missing.csv", none);
+
+        boolean ok = engine.getRecordCount() == records.size()
+                && revenue.get() == analytics.getTotalRevenue(records)
+                && ordersByCustomer.toMap().equals(analytics.getOrdersByCustomer(records))
+                && revenueByDate.toMap().equals(analytics.getRevenueByDate(records))
+                && none.getRecordCount() == 0;
+        printResult("Streaming Aggregation Matches List", ok);
+    }
+
+    private static void testSnapshotCache() {
+        boolean ok;
+        try {
+            Path dir = Files.createTempDirectory("snapshot");
+            Path csv = dir.resolve("sales.csv");
+            Path snapshot = dir.resolve("sales.csv.snapshot");
+            String header = "SalesOrderNumber,SalesOrderLineNumber,OrderDate,CustomerName,EmailAddress,Item,Quantity,UnitPrice,TaxAmount\n";
+            String rows = "SO1,1,2019-07-01,\"Doe, John\",john@x.com,\"Cap \"\"Red\"\"\",2,10.5,1.0\n"
+                    + "SO2,1,2019-07-02,Ann,ann@x.com,Helmet,1,35,2.8\n";
+            Files.write(csv, (header + rows).getBytes(StandardCharsets.UTF_8));
+            SalesDataLoader loader = new SalesDataLoader();
+
+            // First run parses the CSV and writes the snapshot
+            SalesTable parsed = loader.loadTable(csv.toString());
+            ok = Files.exists(snapshot) && parsed.size() == 2;
+
+            // Same size and timestamp: the snapshot is trusted, even though a digit changed
+            FileTime stamp = Files.getLastModifiedTime(csv);
+            Files.write(csv, (header + rows.replace(",2,10.5", ",3,10.5")).getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(csv, stamp);
+            SalesTable cached = loader.loadTable(csv.toString());
+            ok = ok && cached.size() == 2
+                    && cached.getRecord(0).getQuantity() == 2
+                    && cached.getRecord(0).getItem().equals("Cap \"Red\"")
+                    && cached.getRecord(1).getOrderDate().equals(LocalDate.of(2019, 7, 2))
+                    && cached.getTotalRevenue() == parsed.getTotalRevenue();
+
+            // A newer CSV makes the snapshot stale: parse again and rewrite it
+            Files.setLastModifiedTime(csv, FileTime.fromMillis(stamp.toMillis() + 60_000));
+            ok = ok && loader.loadTable(csv.toString()).getRecord(0).getQuantity() == 3
+                    && loader.loadTable(csv.toString()).getRecord(0).getQuantity() == 3;
+
+            // A damaged snapshot falls back to the CSV
+            byte[] bytes = Files.readAllBytes(snapshot);
+            Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 5));
+            ok = ok && loader.loadTable(csv.toString()).size() == 2;
+
+            // The real file round-trips exactly
+            Path real = dir.resolve("real.csv");
+            Files.copy(Paths.get("data/sales.csv"), real);
+            SalesTable fromCsv = loader.loadTable(real.toString());
+            SalesTable fromSnapshot = loader.loadTable(real.toString());
+            ok = ok && fromCsv.size() == fromSnapshot.size()
+                    && fromCsv.getRevenueByDate().equals(fromSnapshot.getRevenueByDate());
+            for (int row = 0; ok && row < fromCsv.size(); row++) {
+                ok = describe(fromCsv.getRecord(row)).equals(describe(fromSnapshot.getRecord(row)));
+            }
+
+            // A CSV that cannot be read to the end is not cached: a directory has a size and
+            // a timestamp, but opening it for reading fails (prints an expected error line)
+            Path broken = dir.resolve("broken.csv");
+            Files.createDirectory(broken);
+            ok = ok && loader.loadTable(broken.toString()).size() == 0
+                    && !Files.exists(dir.resolve("broken.csv.snapshot"));
+
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        } catch (IOException e) {
+            ok = false;
+        }
+        printResult("Snapshot Cache Reuse & Staleness", ok);
+    }
+
+    private static void testUnreadableSnapshot() {
+        boolean ok;
+        try {
+            Path dir = Files.createTempDirectory("snapshot");
+            Path csv = dir.resolve("sales.csv");
+            Path snapshot = dir.resolve("sales.csv.snapshot");
+            Files.write(csv, ("SalesOrderNumber,SalesOrderLineNumber,OrderDate,CustomerName,EmailAddress,Item,Quantity,UnitPrice,TaxAmount\n"
+                    + "SO1,1,2019-07-01,Ann,ann@x.com,Helmet,2,35,2.8\n").getBytes(StandardCharsets.UTF_8));
+            SalesDataLoader loader = new SalesDataLoader();
+
+            // A directory where the snapshot should be: cannot be read or replaced, CSV is parsed
+            Files.createDirectory(snapshot);
+            SalesTable table = loader.loadTable(csv.toString());
+            ok = table.size() == 1 && table.getTotalRevenue() == 70.0 && Files.isDirectory(snapshot);
+
+            // A snapshot without read permission (still readable when running as root)
+            Files.delete(snapshot);
+            loader.loadTable(csv.toString());
+            boolean posix = Files.getFileStore(snapshot).supportsFileAttributeView("posix");
+            if (posix) {
+                Files.setPosixFilePermissions(snapshot, PosixFilePermissions.fromString("-w-------"));
+            }
+            table = loader.loadTable(csv.toString());
+            ok = ok && table.size() == 1 && table.getRecord(0).getItem().equals("Helmet");
+            if (posix) {
+                Files.setPosixFilePermissions(snapshot, PosixFilePermissions.fromString("rw-------"));
+            }
+
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        } catch (IOException e) {
+            ok = false;
+        }
+        printResult("Unreadable Snapshot Falls Back", ok);
+    }
+
+    private static void testParallelAnalytics(SalesAnalytics analytics) {
+        // Sums are added in a different order, so doubles may differ in the last digits
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SalesAnalytics parallel = new SalesAnalytics(pool);
+
+        boolean ok = parallel.isParallel() && !analytics.isParallel()
+                && close(parallel.getTotalRevenue(records), analytics.getTotalRevenue(records))
+                && close(parallel.getTotalTaxCollected(records), analytics.getTotalTaxCollected(records))
+                && closeMaps(parallel.getRevenueByItem(records), analytics.getRevenueByItem(records))
+                && closeMaps(parallel.getRevenueByDate(records), analytics.getRevenueByDate(records))
+                && parallel.getOrdersByCustomer(records).equals(analytics.getOrdersByCustomer(records))
+                && parallel.getMostSoldItem(records).get().getValue()
+                        .equals(analytics.getMostSoldItem(records).get().getValue())
+                // Small and empty inputs take the single-leaf path
+                && parallel.getTotalRevenue(sample) == analytics.getTotalRevenue(sample)
+                && parallel.getTotalRevenue(Collections.<SalesRecord>emptyList()) == 0.0
+                && !parallel.getMostSoldItem(Collections.<SalesRecord>emptyList()).isPresent();
+        pool.shutdown();
+        printResult("Parallel Analytics Match Sequential", ok);
+    }
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1.0, Math.abs(b));
+    }
+
+    private static <K> boolean closeMaps(Map<K, Double> a, Map<K, Double> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<K, Double> e : b.entrySet()) {
+            if (!close(a.get(e.getKey()), e.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void testDateIndex(SalesAnalytics analytics) {
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        DateIndex index = DateIndex.of(records);
+        DateIndex fromTable = DateIndex.of(SalesTable.from(records));
+        Map<LocalDate, Double> byDate = analytics.getRevenueByDate(records);
+
+        // Range totals agree with a scan, for ranges inside, across and outside the data
+        LocalDate first = index.getFirstDate();
+        LocalDate last = index.getLastDate();
+        boolean ok = first.equals(Collections.min(byDate.keySet())) && last.equals(Collections.max(byDate.keySet()));
+        LocalDate[][] ranges = {
+                {first, last}, {first.plusDays(10), first.plusDays(40)}, {last, last},
+                {first.minusYears(1), first.plusDays(3)}, {last.plusDays(1), last.plusDays(9)},
+                {last, first}};
+        for (LocalDate[] range : ranges) {
+            double scanned = 0;
+            long quantity = 0;
+            long lines = 0;
+            for (SalesRecord r : records) {
+                if (!r.getOrderDate().isBefore(range[0]) && !r.getOrderDate().isAfter(range[1])) {
+                    scanned += r.getLineRevenue();
+                    quantity += r.getQuantity();
+                    lines++;
+                }
+            }
+            DateIndex.Totals totals = index.totals(range[0], range[1]);
+            ok = ok && close(index.revenue(range[0], range[1]), scanned)
+                    && close(fromTable.revenue(range[0], range[1]), scanned)
+                    && totals.getQuantity() == quantity && totals.getLines() == lines;
+        }
+
+        // Rollups: daily matches getRevenueByDate, weeks start on Monday, all cover everything
+        SortedMap<LocalDate, DateIndex.Totals> daily = index.rollup(DateIndex.Granularity.DAY);
+        SortedMap<LocalDate, DateIndex.Totals> weekly = index.rollup(DateIndex.Granularity.fromName("week"));
+        SortedMap<LocalDate, DateIndex.Totals> monthly = index.rollup(DateIndex.Granularity.MONTH);
+        for (Map.Entry<LocalDate, Double> e : byDate.entrySet()) {
+            ok = ok && close(daily.get(e.getKey()).getRevenue(), e.getValue());
+        }
+        long weeklyLines = 0;
+        for (Map.Entry<LocalDate, DateIndex.Totals> e : weekly.entrySet()) {
+            ok = ok && e.getKey().getDayOfWeek() == DayOfWeek.MONDAY;
+            weeklyLines += e.getValue().getLines();
+        }
+        long monthlyLines = 0;
+        for (Map.Entry<LocalDate, DateIndex.Totals> e : monthly.entrySet()) {
+            ok = ok && e.getKey().getDayOfMonth() == 1;
+            monthlyLines += e.getValue().getLines();
+        }
+        ok = ok && weeklyLines == records.size() && monthlyLines == records.size();
+
+        DateIndex empty = DateIndex.of(Collections.<SalesRecord>emptyList());
+        ok = ok && empty.getFirstDate() == null
+                && empty.revenue(first, last) == 0.0
+                && empty.rollup(DateIndex.Granularity.MONTH).isEmpty();
+        printResult("Date Index Range Queries", ok);
+    }
+
+    private static void testTopKAndHeavyHitters(SalesAnalytics analytics) {
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+
+        // Exact: same as sorting the whole grouped map
+        List<Map.Entry<String, Integer>> topItems = analytics.getTopItemsByQuantity(records, 5);
+        Map<String, Integer> quantityByItem = new HashMap<>();
+        for (SalesRecord r : records) {
+            quantityByItem.merge(r.getItem(), r.getQuantity(), Integer::sum);
+        }
+        List<Integer> sorted = new ArrayList<>(quantityByItem.values());
+        sorted.sort(Collections.reverseOrder());
+        boolean ok = topItems.size() == 5;
+        for (int i = 0; ok && i < 5; i++) {
+            ok = topItems.get(i).getValue().equals(sorted.get(i));
+        }
+        ok = ok && topItems.get(0).getValue().equals(analytics.getMostSoldItem(records).get().getValue())
+                && analytics.getTopItemsByRevenue(sample, 10).size() == 2
+                && analytics.getTopItemsByRevenue(sample, 10).get(0).getValue() == 200.0
+                && analytics.getTopCustomersByOrders(records, 0).isEmpty()
+                && analytics.getTopItemsByQuantity(Collections.emptyList(), 3).isEmpty()
+                && analytics.getTopCustomersByOrders(records, 3).get(0).getValue()
+                        >= analytics.getTopCustomersByOrders(records, 3).get(2).getValue();
+
+        try {
+            analytics.getTopItemsByQuantity(sample, -1);
+            ok = false;
+        } catch (IllegalArgumentException expected) {
+            // Negative k is rejected
+        }
+
+        // Approximate: estimates never low, at most epsilon * N high
+        HeavyHitters<String> items = new HeavyHitters<>(5, 0.001, 0.01);
+        HeavyHitters<String> customers = new HeavyHitters<>(5, 0.0005, 0.01);
+        for (SalesRecord r : records) {
+            items.add(r.getItem(), r.getQuantity());
+            customers.add(r.getEmailAddress(), 1);
+        }
+        Set<String> exactTop = new HashSet<>();
+        for (Map.Entry<String, Integer> e : topItems) {
+            exactTop.add(e.getKey());
+        }
+        Set<String> approxTop = new HashSet<>();
+        for (Map.Entry<String, Double> e : items.top()) {
+            approxTop.add(e.getKey());
+        }
+        ok = ok && approxTop.equals(exactTop);
+        Map<String, Long> orders = analytics.getOrdersByCustomer(records);
+        for (Map.Entry<String, Double> e : customers.top()) {
+            long actual = orders.get(e.getKey());
+            ok = ok && e.getValue() >= actual
+                    && e.getValue() <= actual + customers.getSketch().getErrorBound();
+        }
+        ok = ok && customers.getSketch().getTotal() == records.size()
+                && customers.getSketch().getMemoryBytes() == 8L * 5437 * 5;
+        printResult("Top-K Exact & Heavy Hitters", ok);
+    }
+
+    private static void testDistinctCounts(SalesAnalytics analytics) {
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        Set<String> customers = new HashSet<>();
+        Set<String> orders = new HashSet<>();
+        Set<String> items = new HashSet<>();
+        for (SalesRecord r : records) {
+            customers.add(r.getEmailAddress());
+            orders.add(r.getSalesOrderNumber());
+            items.add(r.getItem());
+        }
+        DistinctCounts counts = analytics.getDistinctCounts(records);
+        double bound = 3 * counts.getStandardError();
+        boolean ok = within(counts.estimate(DistinctCounts.Dimension.CUSTOMERS), customers.size(), bound)
+                && within(counts.estimate(DistinctCounts.Dimension.ORDERS), orders.size(), bound)
+                && counts.estimate(DistinctCounts.Dimension.ITEMS) == items.size(); // Small counts are near exact
+
+        // One month, as a range and as a rollup period, against an exact set
+        LocalDate from = LocalDate.of(2021, 6, 1);
+        LocalDate to = LocalDate.of(2021, 6, 30);
+        Set<String> juneCustomers = new HashSet<>();
+        for (SalesRecord r : records) {
+            if (!r.getOrderDate().isBefore(from) && !r.getOrderDate().isAfter(to)) {
+                juneCustomers.add(r.getEmailAddress());
+            }
+        }
+        long juneEstimate = counts.estimate(DistinctCounts.Dimension.CUSTOMERS, from, to);
+        ok = ok && within(juneEstimate, juneCustomers.size(), 3 * counts.getBucketStandardError())
+                && counts.byPeriod(DistinctCounts.Dimension.CUSTOMERS, DateIndex.Granularity.MONTH)
+                        .get(from) == juneEstimate
+                && counts.estimate(DistinctCounts.Dimension.CUSTOMERS, to, from) == 0;
+
+        // Merging two halves (or parallel tasks) gives exactly the sketch of the whole
+        DistinctCounts merged = DistinctCounts.of(records.subList(0, records.size() / 2))
+                .merge(DistinctCounts.of(records.subList(records.size() / 2, records.size())));
+        DistinctCounts parallel = new SalesAnalytics(new ForkJoinPool(4)).getDistinctCounts(records);
+        for (DistinctCounts.Dimension d : DistinctCounts.Dimension.values()) {
+            ok = ok && merged.estimate(d) == counts.estimate(d)
+                    && parallel.estimate(d) == counts.estimate(d)
+                    && parallel.byPeriod(d, DateIndex.Granularity.WEEK)
+                            .equals(counts.byPeriod(d, DateIndex.Granularity.WEEK));
+        }
+
+        // Repeated keys do not count again; precisions must match to merge
+        HyperLogLog once = new HyperLogLog(12);
+        HyperLogLog twice = new HyperLogLog(12);
+        for (String c : customers) {
+            once.add(c);
+            twice.add(c);
+            twice.add(c);
+        }
+        ok = ok && once.estimate() == twice.estimate() && new HyperLogLog(12).estimate() == 0;
+        try {
+            once.merge(new HyperLogLog(10));
+            ok = false;
+        } catch (IllegalArgumentException expected) {
+            // Different register counts cannot be merged
+        }
+        printResult("HyperLogLog Distinct Counts", ok);
+    }
+
+    private static boolean within(long estimate, long actual, double relativeError) {
+        return Math.abs(estimate - actual) <= relativeError * actual;
+    }
+
+    private static void testFixedPointMoney() {
+        // Amounts parse straight to units; further decimals round half away from zero
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        byte[] row = "271.9992,3399.99,-2.5,0.00005,1.23454,7,1e2,\"12.5\"\"\"".getBytes(StandardCharsets.US_ASCII);
+        tokenizer.reset(row, 0, row.length, true);
+        tokenizer.nextRecord();
+        boolean ok = tokenizer.parseMoney(0) == 2_719_992L && tokenizer.parseMoney(1) == 33_999_900L
+                && tokenizer.parseMoney(2) == -25_000L && tokenizer.parseMoney(3) == 1L
+                && tokenizer.parseMoney(4) == 12_345L && tokenizer.parseMoney(5) == 70_000L
+                && tokenizer.parseMoney(6) == 1_000_000L
+                && Money.toUnits(-0.00005) == -1L && Money.toDouble(Money.toUnits(271.9992)) == 271.9992
+                && Money.toBigDecimal(2_719_992L).equals(new BigDecimal("271.9992"));
+        try {
+            tokenizer.parseMoney(7); // 12.5" is not a number
+            ok = false;
+        } catch (NumberFormatException expected) {
+            // Rejected like parseDouble rejects it
+        }
+
+        // Table totals equal the exact decimal sums of the CSV amounts
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        SalesTable table = SalesTable.load("data/sales.csv");
+        BigDecimal revenue = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        for (SalesRecord r : records) {
+            revenue = revenue.add(BigDecimal.valueOf(r.getUnitPrice()).multiply(BigDecimal.valueOf(r.getQuantity())));
+            tax = tax.add(BigDecimal.valueOf(r.getTaxAmount()));
+        }
+        ok = ok && Money.toBigDecimal(table.getTotalRevenueUnits()).compareTo(revenue) == 0
+                && Money.toBigDecimal(table.getTotalTaxUnits()).compareTo(tax) == 0
+                && SalesTable.from(records).getTotalTaxUnits() == table.getTotalTaxUnits();
+
+        // Vector and scalar loops agree for every length and offset (the tails included)
+        Random random = new Random(3);
+        long[] values = new long[103];
+        int[] quantities = new int[values.length];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = random.nextInt(2_000_000_000) - 1_000_000_000L;
+            quantities[k] = random.nextInt(200) - 100;
+        }
+        for (int from = 0; from < 9; from++) {
+            for (int to = from; to <= values.length; to++) {
+                ok = ok && FixedPointSums.sum(values, from, to) == FixedPointSums.scalarSum(values, from, to)
+                        && FixedPointSums.dot(quantities, values, from, to)
+                                == FixedPointSums.scalarDot(quantities, values, from, to);
+            }
+        }
+        printResult("Fixed-Point Money Sums" + (FixedPointSums.isVectorized() ? " (SIMD)" : " (scalar)"), ok);
+    }
+
+    private static void testQueryCache(SalesAnalytics analytics) {
+        List<SalesRecord> records = new SalesDataLoader().load("data/sales.csv");
+        int half = records.size() / 2;
+        List<SalesRecord> first = records.subList(0, half);
+        SalesQueryCache cache = new SalesQueryCache(first, 4);
+        // The file is sorted by date and its first half ends in 2021-09, so December
+        // 2021 only has rows once the second half is appended
+        LocalDate from = LocalDate.of(2021, 12, 1);
+        LocalDate to = LocalDate.of(2021, 12, 31);
+
+        // First call misses, the second hits, and both match the stream methods
+        boolean ok = cache.getRevenueByItem().equals(analytics.getRevenueByItem(first))
+                && cache.getRevenueByItem().equals(analytics.getRevenueByItem(first))
+                && cache.getHitCount() == 1 && cache.getMissCount() == 1;
+        cache.getTopItemsByQuantity(3);
+        cache.getTopItemsByQuantity(5); // Another parameter is another entry
+        double december = cache.getRevenueBetween(from, to);
+        ok = ok && cache.size() == 4 && cache.getMissCount() == 4 && december == 0.0;
+
+        // Appending updates every covered entry in place: no new misses, same answers as a rescan
+        List<SalesRecord> second = records.subList(half, records.size());
+        cache.append(second);
+        ok = ok && cache.getIncrementalUpdateCount() == 4
+                && closeMaps(cache.getRevenueByItem(), analytics.getRevenueByItem(records))
+                && cache.getTopItemsByQuantity(5).equals(analytics.getTopItemsByQuantity(records, 5))
+                && close(cache.getRevenueBetween(from, to), records.stream()
+                        .filter(r -> !r.getOrderDate().isBefore(from) && !r.getOrderDate().isAfter(to))
+                        .mapToDouble(SalesRecord::getLineRevenue).sum())
+                && cache.getMissCount() == 4 && cache.getHitCount() == 4;
+
+        // A range the new rows miss is not touched
+        cache.append(Collections.singletonList(r1)); // Dated 2019-07-01
+        ok = ok && cache.getIncrementalUpdateCount() == 4 + 3;
+
+        // LRU: a fifth query evicts the least recently used one (TOP 3)
+        ok = ok && close(cache.getTotalRevenue(), analytics.getTotalRevenue(cache.getRecords()))
+                && cache.getEvictionCount() == 1 && cache.size() == 4;
+        long misses = cache.getMissCount();
+        cache.getTopItemsByQuantity(5);
+        ok = ok && cache.getMissCount() == misses;
+        cache.getTopItemsByQuantity(3);
+        ok = ok && cache.getMissCount() == misses + 1 && cache.getEvictionCount() == 2;
+
+        try {
+            cache.getRevenueByItem().put("x", 1.0);
+            ok = false;
+        } catch (UnsupportedOperationException expected) {
+            // Cached results are read-only
+        }
+        printResult("Query Cache Hits, LRU & Appends", ok);
+    }
+
+    private static String describe(SalesRecord r) {
+        return r.getSalesOrderNumber() + "|" + r.getLineNumber() + "|" + r.getOrderDate() + "|" + r.getCustomerName()
+                + "|" + r.getEmailAddress() + "|" + r.getItem() + "|" + r.getQuantity() + "|" + r.getUnitPrice()
+                + "|" + r.getTaxAmount();
+    }
+
     // ------------------------------------------------------------------------
     // Helper
     // ------------------------------------------------------------------------